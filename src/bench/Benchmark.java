@@ -0,0 +1,137 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Minimal benchmark harness: runs an operation a number of warm-up iterations (to let
+ * the JIT and the database caches settle), then measures the latency of each iteration
+ * and the number of SQL statements the server received for it.
+ * <p>
+ * Statements are counted with the server's global "Questions" status, so run benchmarks
+ * against a database no one else is using.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class Benchmark implements AutoCloseable {
+
+	/**
+	 * Operation to measure.
+	 */
+	public interface Operation {
+		void run() throws Exception;
+	}
+
+	private final int warmup;
+	private final int iterations;
+	private final Connection statusConnect;
+	private final long statusOverhead;
+
+	/**
+	 * @param dbUrl - Database url
+	 * @param dbUser - Database user
+	 * @param dbPassword - Database password
+	 * @param warmup - Iterations run before measuring
+	 * @param iterations - Iterations measured
+	 * @throws SQLException if the status connection cannot be opened
+	 */
+	public Benchmark(String dbUrl, String dbUser, String dbPassword, int warmup, int iterations) throws SQLException {
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.statusConnect = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+
+		// Reading the status is itself counted
+		long first = readQuestions();
+		this.statusOverhead = readQuestions() - first;
+	}
+
+	/**
+	 * Runs and measures an operation.
+	 * @param name - Name printed with the results
+	 * @param operation - Operation to measure
+	 * @return the results
+	 * @throws Exception if an iteration fails
+	 */
+	public Result measure(String name, Operation operation) throws Exception {
+		for (int i = 0; i < warmup; i++) operation.run();
+
+		double[] millis = new double[iterations];
+		long statements = 0;
+		for (int i = 0; i < iterations; i++) {
+			long questions = readQuestions();
+			long start = System.nanoTime();
+			operation.run();
+			millis[i] = (System.nanoTime() - start) / 1e6;
+			statements += readQuestions() - questions - statusOverhead;
+		}
+		Result result = new Result(name, millis, (double) statements / iterations);
+		System.out.println("[Bench] --> " + result);
+		return result;
+	}
+
+	/*
+	 * Statements received by the server since it started.
+	 */
+	private long readQuestions() throws SQLException {
+		try (Statement statement = statusConnect.createStatement()) {
+			ResultSet result = statement.executeQuery("SHOW GLOBAL STATUS LIKE 'Questions'");
+			return result.next() ? result.getLong(2) : 0;
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		statusConnect.close();
+	}
+
+	/**
+	 * Latency and statements of the measured iterations.
+	 */
+	public static class Result {
+		private final String name;
+		private final double[] millis;
+		private final double statementsPerOp;
+
+		private Result(String name, double[] millis, double statementsPerOp) {
+			this.name = name;
+			this.millis = millis.clone();
+			this.statementsPerOp = statementsPerOp;
+			Arrays.sort(this.millis);
+		}
+
+		/**
+		 * @return the mean latency in milliseconds
+		 */
+		public double getMean() {
+			return Arrays.stream(millis).average().orElse(0);
+		}
+
+		/**
+		 * @param percentile - 0 to 100
+		 * @return the latency in milliseconds at the percentile
+		 */
+		public double getPercentile(double percentile) {
+			if (millis.length == 0) return 0;
+			int index = (int) Math.ceil(percentile / 100 * millis.length) - 1;
+			return millis[Math.max(0, Math.min(millis.length - 1, index))];
+		}
+
+		/**
+		 * @return the SQL statements issued per iteration
+		 */
+		public double getStatementsPerOp() {
+			return statementsPerOp;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-40s mean %8.2f ms  p50 %8.2f ms  p95 %8.2f ms  max %8.2f ms  %6.1f queries/op",
+					name, getMean(), getPercentile(50), getPercentile(95), getPercentile(100), statementsPerOp);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import db.PseudoDataGenerator;
+import db.ScaleGenerator;
+import main.java.Page;
+import main.java.Session;
+import main.java.db.ConnectionPool;
+import main.java.db.QueryStats;
+import main.java.ui.DashboardData;
+
+/**
+ * Benchmarks the dashboard analytics: the construction of DashboardData for all buildings
+ * and for a single building, at several data scales. Each scale is seeded with the
+ * generator's scale mode (same seed, same data) before it is measured, unless "reuse" is
+ * entered to measure the data already in the database.
+ * <p>
+ * Runs offline against the local database of Page.dbUrl (a disposable MariaDB or MySQL
+ * server: seeding clears it).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class DashboardBenchmark {
+
+	private DashboardBenchmark() {}
+
+	/**
+	 * Seeds and measures every scale.
+	 * Arguments: database user and password of an admin account, then optional
+	 * scales= (buildings of 60 units, comma separated), warmup=, iterations=,
+	 * building= (single building measured), seed= and reuse.
+	 * @param args - user, password, [name=value ...], [reuse]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: DashboardBenchmark <db user> <db password> "
+					+ "[scales=10,50,100] [warmup=5] [iterations=20] [building=100 Prospect Ave.] [seed=1] [reuse]");
+			return;
+		}
+
+		// Parameters
+		List<Integer> scales = new ArrayList<Integer>(List.of(10, 50, 100));
+		int warmup = 5;
+		int iterations = 20;
+		String building = "100 Prospect Ave.";
+		String seed = "1";
+		boolean reuse = false;
+		for (int i = 2; i < args.length; i++) {
+			String[] pair = args[i].split("=", 2);
+			switch (pair[0].toLowerCase()) {
+				case "scales" -> {
+					scales.clear();
+					for (String scale : pair[1].split(",")) scales.add(Integer.parseInt(scale.trim()));
+				}
+				case "warmup" -> warmup = Integer.parseInt(pair[1]);
+				case "iterations" -> iterations = Integer.parseInt(pair[1]);
+				case "building" -> building = pair[1];
+				case "seed" -> seed = pair[1];
+				case "reuse" -> reuse = true;
+				default -> System.out.println("[Bench] --> Unknown parameter ignored: " + pair[0]);
+			}
+		}
+		if (reuse) scales = List.of(0);
+
+		try (Benchmark benchmark = new Benchmark(Page.dbUrl, args[0], args[1], warmup, iterations)) {
+			Session session = logIn(args[0], args[1]);
+			String singleBuilding = building;
+			for (int buildings : scales) {
+
+				// Seed
+				if (buildings > 0) {
+					System.out.println("[Bench] Seeding " + buildings + " buildings...");
+					PseudoDataGenerator.generateScale(ScaleGenerator.Options.parse(
+							new String[] {"scale", "buildings=" + buildings, "seed=" + seed}));
+				}
+				String scale = buildings > 0 ? buildings + " buildings" : "current data";
+
+				// Measure
+				benchmark.measure("DashboardData all (" + scale + ")", () -> {
+					if (!new DashboardData("", session).isComplete()) throw new SQLException("Incomplete dashboard");
+				});
+				benchmark.measure("DashboardData one (" + scale + ")", () -> {
+					if (!new DashboardData(singleBuilding, session).isComplete()) {
+						throw new SQLException("Incomplete dashboard");
+					}
+				});
+			}
+			QueryStats.dump(System.out);
+			System.out.println("[Bench] --> SUCCESS");
+		} catch (Exception err) {
+			System.out.println("[Bench] --> FAILED");
+			err.printStackTrace();
+		} finally {
+			ConnectionPool.shutdown();
+		}
+	}
+
+	/*
+	 * Session of the admin account, as the log in window creates it.
+	 */
+	private static Session logIn(String user, String password) throws SQLException {
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, user, password);
+				PreparedStatement statement = connect.prepareStatement("SELECT * FROM users WHERE user = ? AND pass = ?")) {
+			statement.setString(1, user);
+			statement.setString(2, password);
+			ResultSet result = statement.executeQuery();
+			if (!result.next()) throw new SQLException("No user " + user + " with this password");
+			return new Session(result, Page.dbUrl);
+		}
+	}
+}
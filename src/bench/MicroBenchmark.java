@@ -0,0 +1,205 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import main.java.Page;
+import main.java.db.LeaseService;
+import main.java.db.MonthlyMetrics;
+import main.java.ui.DashboardData;
+
+/**
+ * Micro-benchmarks of the CPU-side paths run on every screen, with realistic inputs.
+ * Each benchmark is run for the warm-up time, then measured over timed iterations,
+ * reporting the time per operation and the bytes allocated per operation (what JMH
+ * reports as gc.alloc.rate.norm, read from the thread's allocation counter).
+ * No database is needed.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class MicroBenchmark {
+
+	private static final int ROWS = 1000; // Unit manager with 1000 units
+	private static final int LEASE_MONTHS = 12;
+
+	private static volatile int sink; // Keeps results from being optimized away
+
+	private final long warmupMillis;
+	private final long iterationMillis;
+	private final int iterations;
+
+	/**
+	 * @param warmupMillis - Time run before measuring
+	 * @param iterationMillis - Time of each measured iteration
+	 * @param iterations - Iterations measured
+	 */
+	public MicroBenchmark(long warmupMillis, long iterationMillis, int iterations) {
+		this.warmupMillis = warmupMillis;
+		this.iterationMillis = iterationMillis;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Measures an operation and prints the results.
+	 * @param name - Name printed with the results
+	 * @param operation - Operation to measure, returning its result
+	 */
+	public void measure(String name, Supplier<Object> operation) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		// Warm up
+		long end = System.currentTimeMillis() + warmupMillis;
+		while (System.currentTimeMillis() < end) sink += System.identityHashCode(operation.get());
+
+		// Measure
+		double bestNanos = Double.MAX_VALUE;
+		double totalNanos = 0;
+		long totalOps = 0;
+		long totalBytes = 0;
+		for (int i = 0; i < iterations; i++) {
+			long ops = 0;
+			long bytes = threads.getThreadAllocatedBytes(threadId);
+			long start = System.nanoTime();
+			long deadline = start + iterationMillis * 1000000L;
+			long now;
+			do {
+				sink += System.identityHashCode(operation.get());
+				ops++;
+			} while ((now = System.nanoTime()) < deadline);
+			totalBytes += threads.getThreadAllocatedBytes(threadId) - bytes;
+			totalNanos += now - start;
+			totalOps += ops;
+			bestNanos = Math.min(bestNanos, (double) (now - start) / ops);
+		}
+		System.out.println(String.format("[Micro] --> %-45s %12.1f ns/op (best %12.1f)  %10.0f B/op",
+				name, totalNanos / totalOps, bestNanos, (double) totalBytes / totalOps));
+	}
+
+	/*
+	 * Inputs
+	 */
+
+	/*
+	 * Result set of the unit manager's query (id, unit, building, floor, sqft, lease end,
+	 * rent, resident and balance), held in primitive columns and text bytes. Like the
+	 * driver, getObject decodes and boxes the value on every call: Integer, String,
+	 * Date and BigDecimal. The cursor rewinds at the end, so one instance can be read by
+	 * every operation.
+	 */
+	private static class UnitRows extends ResultSetStub {
+		private static final int COLUMNS = 9;
+
+		private final ResultSetMetaData metaData = new MetaData(COLUMNS);
+		private final int[] ids = new int[ROWS];
+		private final byte[][] units = new byte[ROWS][];
+		private final byte[][] buildings = new byte[ROWS][];
+		private final int[] floors = new int[ROWS];
+		private final int[] sqft = new int[ROWS];
+		private final long[] leaseEnds = new long[ROWS]; // Epoch days
+		private final int[] rents = new int[ROWS];
+		private final byte[][] residents = new byte[ROWS][];
+		private final long[] balanceCents = new long[ROWS];
+		private int row = -1;
+
+		private UnitRows() {
+			for (int i = 0; i < ROWS; i++) {
+				ids[i] = i + 1;
+				units[i] = ((i % 8 + 1) + "A").getBytes(StandardCharsets.UTF_8);
+				buildings[i] = ((100 + i / 60) + " Prospect Ave.").getBytes(StandardCharsets.UTF_8);
+				floors[i] = i % 8 + 1;
+				sqft[i] = 1000;
+				leaseEnds[i] = LocalDate.of(2026, 1 + i % 12, 1).toEpochDay();
+				rents[i] = 1500 + i % 20 * 5;
+				residents[i] = ("Resident " + i).getBytes(StandardCharsets.UTF_8);
+				balanceCents[i] = i % 7 * 399;
+			}
+		}
+
+		@Override
+		public boolean next() {
+			if (++row < ROWS) return true;
+			row = -1;
+			return false;
+		}
+
+		@Override
+		public ResultSetMetaData getMetaData() {
+			return metaData;
+		}
+
+		@Override
+		public Object getObject(int columnIndex) throws SQLException {
+			return switch (columnIndex) {
+				case 1 -> ids[row];
+				case 2 -> new String(units[row], StandardCharsets.UTF_8);
+				case 3 -> new String(buildings[row], StandardCharsets.UTF_8);
+				case 4 -> floors[row];
+				case 5 -> sqft[row];
+				case 6 -> Date.valueOf(LocalDate.ofEpochDay(leaseEnds[row]));
+				case 7 -> rents[row];
+				case 8 -> new String(residents[row], StandardCharsets.UTF_8);
+				case 9 -> BigDecimal.valueOf(balanceCents[row], 2);
+				default -> throw new SQLException("Column index out of range: " + columnIndex);
+			};
+		}
+	}
+
+	/*
+	 * Dashboard data of 24 months, as loaded from building_month_kpis.
+	 */
+	private static DashboardData dashboardData() {
+		LocalDate[] periodEnds = new DashboardData("", new MonthlyMetrics[0]).generateMonthPeriods(
+				DashboardData.getPeriodNumber());
+		MonthlyMetrics[] months = new MonthlyMetrics[periodEnds.length];
+		for (int i = 0; i < periodEnds.length; i++) {
+			months[i] = new MonthlyMetrics("", periodEnds[i], 6000, 5400 + i * 7, 9100000 + i * 1300,
+					5900000 + i * 700, 8900000.55 + i * 1211.37);
+		}
+		return new DashboardData("", months);
+	}
+
+	/**
+	 * Runs every benchmark.
+	 * Arguments: optional warmup= (ms), time= (ms per iteration) and iterations=.
+	 * @param args - [name=value ...]
+	 */
+	public static void main(String[] args) {
+		long warmup = 2000;
+		long time = 1000;
+		int iterations = 5;
+		for (String arg : args) {
+			String[] pair = arg.split("=", 2);
+			if (pair.length < 2) continue;
+			switch (pair[0].toLowerCase()) {
+				case "warmup" -> warmup = Long.parseLong(pair[1]);
+				case "time" -> time = Long.parseLong(pair[1]);
+				case "iterations" -> iterations = Integer.parseInt(pair[1]);
+				default -> System.out.println("[Micro] --> Unknown parameter ignored: " + pair[0]);
+			}
+		}
+		MicroBenchmark benchmark = new MicroBenchmark(warmup, time, iterations);
+
+		Page page = new Page() {};
+		ResultSet units = new UnitRows();
+		benchmark.measure("Page.sqlToArray (" + ROWS + " rows x 9 columns)", () -> page.sqlToArray(units));
+
+		DashboardData dashboard = dashboardData();
+		benchmark.measure("DashboardData.getAverageRentPerArea (24 months)", dashboard::getAverageRentPerArea);
+		benchmark.measure("DashboardData.generateMonthPeriods (24 months)",
+				() -> dashboard.generateMonthPeriods(DashboardData.getPeriodNumber()));
+
+		LocalDate leaseStart = LocalDate.now().withDayOfMonth(15);
+		LocalDate leaseEnd = leaseStart.plusMonths(LEASE_MONTHS).minusDays(1);
+		benchmark.measure("LeaseService.buildRentCharges (" + LEASE_MONTHS + " months)",
+				() -> LeaseService.buildRentCharges(leaseStart, leaseEnd, 1850));
+	}
+}
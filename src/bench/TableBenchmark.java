@@ -0,0 +1,247 @@
+package bench;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+
+import javax.swing.JScrollPane;
+
+import main.java.ui.ComplaintsPage;
+import main.java.ui.ResidentDashboardPage;
+import main.java.ui.ResidentManagerPage;
+import main.java.ui.Theme;
+import main.java.ui.ThemedTable;
+import main.java.ui.UnitManagerPage;
+
+/**
+ * Benchmarks the tables of the Resident Manager, Unit Manager, Complaints and resident
+ * dashboard pages in headless mode, with thousands of synthetic rows. For each row count
+ * it measures the time to build the table (model, columns, renderers, scroll pane), to lay
+ * it out, and to paint a screen of it into a BufferedImage, and the heap the table retains.
+ * <p>
+ * The pages load their rows from the database when they are created, so the tables are
+ * built with the pages' own table factories and models over generated rows in the format
+ * of each page's query (see PageQueries).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class TableBenchmark {
+
+	private static final int WIDTH = 1200;
+	private static final int HEIGHT = 800;
+
+	private TableBenchmark() {}
+
+	/*
+	 * Page Tables
+	 */
+
+	/*
+	 * Table of a page built over loaded rows.
+	 */
+	private interface PageTable {
+		ThemedTable build(ArrayList<Object[]> rows);
+	}
+
+	private static ThemedTable buildResidentTable(ArrayList<Object[]> rows) {
+		return ResidentManagerPage.createResidentTable(new ResidentManagerPage.ResidentTableModel(rows));
+	}
+
+	private static ThemedTable buildUnitTable(ArrayList<Object[]> rows) {
+		return UnitManagerPage.createUnitTable(new UnitManagerPage.UnitTableModel(rows));
+	}
+
+	private static ThemedTable buildComplaintTable(ArrayList<Object[]> rows) {
+		ComplaintsPage.ComplaintLogModel model = new ComplaintsPage.ComplaintLogModel();
+		model.setFirstPage(rows, rows.size());
+		return ComplaintsPage.createComplaintTable(model);
+	}
+
+	private static ThemedTable buildChargesTable(ArrayList<Object[]> rows) {
+		ResidentDashboardPage.LedgerModel model = new ResidentDashboardPage.LedgerModel();
+		model.setFirstPage(new ResidentDashboardPage.LedgerPage(rows, LocalDate.now().minusYears(5), false), 0);
+		return ResidentDashboardPage.createChargesTable(model);
+	}
+
+	/*
+	 * Rows
+	 */
+
+	private static String building(int i) {
+		return (100 + i / 60) + " Prospect Ave.";
+	}
+
+	private static String unit(int i) {
+		return (i % 8 + 1) + "" + (char) ('A' + i % 8);
+	}
+
+	/*
+	 * Rows of PageQueries.RESIDENT_LIST: uid, user, email, phone, first name, last name,
+	 * lease start, lease end, unit, building, charges, payments.
+	 */
+	private static ArrayList<Object[]> generateResidents(int count) {
+		Random random = new Random(count);
+		LocalDate today = LocalDate.now();
+		ArrayList<Object[]> rows = new ArrayList<Object[]>(count);
+		for (int i = 0; i < count; i++) {
+			LocalDate start = today.minusDays(random.nextInt(700));
+			boolean isNewUser = random.nextInt(10) == 0;
+			double charges = 1500 + random.nextInt(20) * 5.0;
+			rows.add(new Object[] {i + 1, "resident" + i, "resident" + i + "@mail.com", "555-0100", "Resident",
+					String.valueOf(i), isNewUser ? null : Date.valueOf(start),
+					isNewUser ? null : Date.valueOf(start.plusYears(1).minusDays(1)), isNewUser ? null : unit(i),
+					isNewUser ? null : building(i), charges, random.nextInt(3) == 0 ? 0.0 : charges});
+		}
+		return rows;
+	}
+
+	/*
+	 * Rows of PageQueries.UNIT_LIST: id, building, floor, unit, resident name, lease end,
+	 * rent, balance.
+	 */
+	private static ArrayList<Object[]> generateUnits(int count) {
+		Random random = new Random(count);
+		LocalDate today = LocalDate.now();
+		ArrayList<Object[]> rows = new ArrayList<Object[]>(count);
+		for (int i = 0; i < count; i++) {
+			boolean isVacant = random.nextInt(4) == 0;
+			rows.add(new Object[] {i + 1, building(i), i % 8 + 1, unit(i), isVacant ? null : "Resident " + i,
+					isVacant ? null : Date.valueOf(today.plusDays(random.nextInt(400) - 30)),
+					isVacant ? null : 1500 + random.nextInt(20) * 5, random.nextInt(3) == 0 ? 1850.0 : 0.0});
+		}
+		return rows;
+	}
+
+	/*
+	 * Rows of PageQueries.complaintPage: id, log date, event date, subject, description,
+	 * status, userid, unitid, user, first name, last name, email, phone, unit, building, type.
+	 */
+	private static ArrayList<Object[]> generateComplaints(int count) {
+		Random random = new Random(count);
+		LocalDate today = LocalDate.now();
+		ArrayList<Object[]> rows = new ArrayList<Object[]>(count);
+		for (int i = 0; i < count; i++) {
+			LocalDate logDate = today.minusDays(i / 4);
+			rows.add(new Object[] {count - i, Date.valueOf(logDate), Date.valueOf(logDate.minusDays(random.nextInt(5))),
+					"Sink is leaking", "The kitchen sink has been leaking since last week.",
+					random.nextInt(4) == 0 ? "open" : "closed", i + 1, i + 1, "resident" + i, "Resident",
+					String.valueOf(i), "resident" + i + "@mail.com", "555-0100", unit(i), building(i),
+					random.nextInt(20) == 0 ? "admin" : "general"});
+		}
+		return rows;
+	}
+
+	/*
+	 * Rows of PageQueries.LEDGER_PAGE, newest first: userid, type, date, name, charge,
+	 * payment, id.
+	 */
+	private static ArrayList<Object[]> generateLedger(int count) {
+		Random random = new Random(count);
+		LocalDate today = LocalDate.now();
+		ArrayList<Object[]> rows = new ArrayList<Object[]>(count);
+		for (int i = 0; i < count; i++) {
+			double amount = 1500 + random.nextInt(20) * 5.0;
+			LocalDate month = today.withDayOfMonth(1).minusMonths(i / 2);
+			rows.add((i % 2 == 0)
+					? new Object[] {1, "payment", Date.valueOf(month.plusDays(2)), "Debit Card On-Line Payment", 0.0, amount, i + 1}
+					: new Object[] {1, "charge", Date.valueOf(month), "Rent (" + month.getMonth() + ")", amount, 0.0, i + 1});
+		}
+		return rows;
+	}
+
+	/*
+	 * Measurement
+	 */
+
+	/*
+	 * Lays out the component tree, as validate() would on a displayed window (headless
+	 * components have no peer, so validate() does nothing).
+	 */
+	private static void layoutTree(Component component) {
+		if (!(component instanceof Container)) return;
+		Container container = (Container) component;
+		container.doLayout();
+		for (Component child : container.getComponents()) layoutTree(child);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/*
+	 * Measures a page table at one row count and prints the results.
+	 */
+	private static void measure(String name, PageTable pageTable, ArrayList<Object[]> rows, int warmup, int iterations) {
+		int rowCount = rows.size();
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		double build = 0, layout = 0, paint = 0;
+
+		for (int i = -warmup; i < iterations; i++) {
+			long start = System.nanoTime();
+			JScrollPane scroll = pageTable.build(rows).buildScrollPane();
+			long built = System.nanoTime();
+			scroll.setSize(WIDTH, HEIGHT);
+			layoutTree(scroll);
+			long laidOut = System.nanoTime();
+			Graphics2D graphics = image.createGraphics();
+			scroll.paint(graphics);
+			graphics.dispose();
+			long painted = System.nanoTime();
+			if (i < 0) continue;
+			build += (built - start) / 1e6;
+			layout += (laidOut - built) / 1e6;
+			paint += (painted - laidOut) / 1e6;
+		}
+
+		// Retained heap (the rows themselves are already allocated)
+		long before = usedHeap();
+		JScrollPane retained = pageTable.build(rows).buildScrollPane();
+		retained.setSize(WIDTH, HEIGHT);
+		layoutTree(retained);
+		long retainedBytes = Math.max(0, usedHeap() - before);
+
+		System.out.println(String.format("[Tables] --> %-22s %6d rows  build %8.2f ms  layout %8.2f ms  "
+				+ "paint %8.2f ms  retained %8.1f KB (%6.1f B/row)", name, rowCount, build / iterations,
+				layout / iterations, paint / iterations, retainedBytes / 1024.0, (double) retainedBytes / rowCount));
+		if (retained.getViewport().getView() == null) System.out.println("[Tables] --> Empty scroll pane");
+	}
+
+	/**
+	 * Measures every page table at every row count.
+	 * Arguments: optional rows= (comma separated), warmup= and iterations=.
+	 * @param args - [name=value ...]
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		int[] rowCounts = {1000, 5000, 20000};
+		int warmup = 5;
+		int iterations = 10;
+		for (String arg : args) {
+			String[] pair = arg.split("=", 2);
+			if (pair.length < 2) continue;
+			switch (pair[0].toLowerCase()) {
+				case "rows" -> rowCounts = java.util.Arrays.stream(pair[1].split(",")).mapToInt(
+						count -> Integer.parseInt(count.trim())).toArray();
+				case "warmup" -> warmup = Integer.parseInt(pair[1]);
+				case "iterations" -> iterations = Integer.parseInt(pair[1]);
+				default -> System.out.println("[Tables] --> Unknown parameter ignored: " + pair[0]);
+			}
+		}
+		Theme.setDark();
+
+		for (int rowCount : rowCounts) {
+			measure("Resident Manager", TableBenchmark::buildResidentTable, generateResidents(rowCount), warmup, iterations);
+			measure("Unit Manager", TableBenchmark::buildUnitTable, generateUnits(rowCount), warmup, iterations);
+			measure("Complaints", TableBenchmark::buildComplaintTable, generateComplaints(rowCount), warmup, iterations);
+			measure("Resident ledger", TableBenchmark::buildChargesTable, generateLedger(rowCount), warmup, iterations);
+		}
+	}
+}
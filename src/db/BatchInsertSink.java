@@ -0,0 +1,64 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes rows with a batched prepared INSERT, committing every batch. With
+ * rewriteBatchedStatements the driver sends each batch as multi-row inserts.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class BatchInsertSink implements RowSink {
+
+	private final Connection connect;
+	private final PreparedStatement statement;
+	private final int batchSize;
+	private final LongAdder rowsWritten;
+	private int pending = 0;
+
+	/**
+	 * @param connect - Open connection with autocommit off, used by this thread only
+	 * @param table - Table name
+	 * @param columns - Column names, in the order of the values added
+	 * @param batchSize - Rows per batch
+	 * @param rowsWritten - Counter of the rows written, shared with the other threads
+	 * @throws SQLException if the statement cannot be prepared
+	 */
+	public BatchInsertSink(Connection connect, String table, String[] columns, int batchSize,
+			LongAdder rowsWritten) throws SQLException {
+		this.connect = connect;
+		this.batchSize = batchSize;
+		this.rowsWritten = rowsWritten;
+		this.statement = connect.prepareStatement("INSERT INTO `" + table + "` (`"
+				+ String.join("`,`", columns) + "`) VALUES (" + "?, ".repeat(columns.length - 1) + "?)");
+	}
+
+	@Override
+	public void add(Object... values) throws SQLException {
+		for (int i = 0; i < values.length; i++) statement.setObject(i + 1, values[i]);
+		statement.addBatch();
+		if (++pending >= batchSize) flush();
+	}
+
+	@Override
+	public void flush() throws SQLException {
+		if (pending == 0) return;
+		statement.executeBatch();
+		connect.commit();
+		rowsWritten.add(pending);
+		pending = 0;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			flush();
+		} finally {
+			statement.close();
+		}
+	}
+}
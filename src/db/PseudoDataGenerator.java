@@ -2,32 +2,45 @@ package db;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Iterator;
 
+import main.java.db.AccountBalances;
+import main.java.db.BillingEngine;
+import main.java.db.BuildingMonthKpis;
+import main.java.db.CurrentLeases;
+
 /**
  * Connects to a SQL database and performs a series of operations to fill the tables:
  * units, users, leases, charges, complaints, and payments.
+ * Run with "scale" and name=value parameters to generate production-sized tables instead
+ * (see ScaleGenerator.Options).
  * 
  * @author Nicolas Gonzalez
  *
  */
 public class PseudoDataGenerator {
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equalsIgnoreCase("scale")) {
+			generateScale(ScaleGenerator.Options.parse(args));
+			return;
+		}
 		new PseudoDataGenerator();
 	}
 	
 	// Database
-	private static String dbUrl = "jdbc:mysql://localhost:3306/apartment_manager"; // TODO Change to your database url
-	private static String dbUsername = "apartment-manager-generator"; // Database access account with all privileges
-	private static String dbPassword = "data-generator"; // Database access account with all privileges
+	static String dbUrl = "jdbc:mysql://localhost:3306/apartment_manager"; // TODO Change to your database url
+	static String dbUsername = "apartment-manager-generator"; // Database access account with all privileges
+	static String dbPassword = "data-generator"; // Database access account with all privileges
 	
 	// Rent calibration
 	private double baseSqftRent = 3;
@@ -75,6 +88,10 @@ public class PseudoDataGenerator {
 	
 		insertPayments();
 		
+		System.out.print(consoleSpace);
+		
+		rebuildSummaries();
+		
 		System.out.print("""
 				=========================================================
 				                           END
@@ -82,6 +99,31 @@ public class PseudoDataGenerator {
 				""");
 	}
 	
+	/**
+	 * Fills the database in scale mode: clears it, generates the tables with
+	 * ScaleGenerator and rebuilds the summary tables.
+	 * @param options - Scale parameters
+	 */
+	public static void generateScale(ScaleGenerator.Options options) {
+		String consoleSpace = "=========================================================\n";
+		
+		clearDatabase(); // Preserves administrator accounts
+		
+		System.out.print(consoleSpace);
+		
+		try {
+			new ScaleGenerator(options).run();
+		} catch (SQLException e) {
+			System.out.println("[Scale] --> FAILED");
+			e.printStackTrace();
+			return;
+		}
+		
+		System.out.print(consoleSpace);
+		
+		rebuildSummaries();
+	}
+	
 	/**
 	 * Connects to database and inserts a list of units into `units` table.
 	 */
@@ -976,7 +1018,8 @@ public class PseudoDataGenerator {
 	
 	/**
 	 * Helper method used by insertCurrentUsers() and insertPastUsers() to create rent charges.
-	 * Creates monthly charges for the input lease terms.
+	 * Creates monthly charges for the input lease terms, through the current month (later
+	 * months are posted by BillingEngine).
 	 * @param leaseStart
 	 * @param leaseEnd
 	 * @param monthlyRent
@@ -988,6 +1031,8 @@ public class PseudoDataGenerator {
 
 		// Loop while the term end count is ahead of the lease start
 		LocalDate termEndCount = leaseEnd;
+		LocalDate billedThrough = YearMonth.now().atEndOfMonth();
+		if (termEndCount.isAfter(billedThrough)) termEndCount = billedThrough;
 		while ((termEndCount.isEqual(leaseStart)) || (termEndCount.isAfter(leaseStart))) {
 			
 			// Sets start of term to first of the month (based on term end)
@@ -1051,6 +1096,62 @@ public class PseudoDataGenerator {
 		return insertQuery.toString();
 	}
 	
+	/**
+	 * Recomputes the summary tables read by the pages from the generated data.
+	 */
+	private static void rebuildSummaries() {
+		
+		// Connect to database
+		System.out.println("[Database] Connecting...");
+		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+			System.out.println("[Database] --> Connected to database");
+			
+			// Query
+			System.out.println("[Summaries] Rebuilding building_month_kpis...");
+			try {
+				int rows = BuildingMonthKpis.rebuild(connect);
+				System.out.println("[Summaries] --> SUCCESS: " + rows + " rows in `building_month_kpis`");
+			} catch (SQLException e) {
+				System.out.println("[Summaries] --> SKIPPED: apply src/db/migrations first");
+				e.printStackTrace();
+			}
+			
+			System.out.println("[Summaries] Recording billing runs...");
+			try {
+				BillingEngine.baseline(connect, YearMonth.now());
+				System.out.println("[Summaries] --> SUCCESS: charges billed through " + YearMonth.now());
+			} catch (SQLException e) {
+				System.out.println("[Summaries] --> SKIPPED: apply src/db/migrations first");
+				e.printStackTrace();
+			}
+			
+			System.out.println("[Summaries] Rebuilding current_lease_id...");
+			try {
+				int rows = CurrentLeases.rebuild(connect);
+				System.out.println("[Summaries] --> SUCCESS: " + rows + " units and users with a current lease");
+			} catch (SQLException e) {
+				System.out.println("[Summaries] --> SKIPPED: apply src/db/migrations first");
+				e.printStackTrace();
+			}
+			
+			System.out.println("[Summaries] Rebuilding account_balances...");
+			try {
+				int rows = AccountBalances.rebuild(connect);
+				System.out.println("[Summaries] --> SUCCESS: " + rows + " rows in `account_balances`");
+			} catch (SQLException e) {
+				System.out.println("[Summaries] --> SKIPPED: apply src/db/migrations first");
+				e.printStackTrace();
+			}
+			
+			// Close connection
+			System.out.println("[Database] Disconnecting from database...");
+			connect.close();
+			System.out.println("[Database] --> Disconnected");
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+	
 	/**
 	 * Truncates all database tables. Preserves rows in `users` with type 'admin'. 
 	 */
@@ -1088,8 +1189,8 @@ public class PseudoDataGenerator {
 			String removeConstraint1 = "ALTER TABLE complaints DROP FOREIGN KEY `complaint_unit`;";
 			String removeConstraint2 = "ALTER TABLE leases DROP FOREIGN KEY `lease_unit`;";
 			String removeConstraint3 = "ALTER TABLE leases DROP FOREIGN KEY `lease_user`;";
-			String removeConstraint4 = "ALTER TABLE charges DROP FOREIGN KEY `charge_user`;";
-			String removeConstraint5 = "ALTER TABLE payments DROP FOREIGN KEY `payment_user`;";
+			String removeConstraint4 = "ALTER TABLE charges DROP FOREIGN KEY IF EXISTS `charge_user`;";
+			String removeConstraint5 = "ALTER TABLE payments DROP FOREIGN KEY IF EXISTS `payment_user`;";
 					
 			// Truncate tables
 			String leasesTruncate = "TRUNCATE leases;";
@@ -1164,8 +1265,10 @@ public class PseudoDataGenerator {
 				statement.executeUpdate(addConstraint1);
 				statement.executeUpdate(addConstraint2);
 				statement.executeUpdate(addConstraint3);
-				statement.executeUpdate(addConstraint4);
-				statement.executeUpdate(addConstraint5);
+				
+				// Partitioned tables cannot have foreign keys (migration 007)
+				if (!isPartitioned(connect, "charges")) statement.executeUpdate(addConstraint4);
+				if (!isPartitioned(connect, "payments")) statement.executeUpdate(addConstraint5);
 				System.out.println("[Clear Database] --> Table constraints added");
 				
 				// Add administrator accounts
@@ -1183,5 +1286,22 @@ public class PseudoDataGenerator {
 			e.printStackTrace();
 		}
 	}
+	
+	/**
+	 * Checks if a table has been partitioned.
+	 * @param connect - Open connection
+	 * @param table - Table name
+	 * @return true if the table has partitions
+	 * @throws SQLException if the query fails
+	 */
+	private static boolean isPartitioned(Connection connect, String table) throws SQLException {
+		String sqlQuery = "SELECT COUNT(*) AS partitions FROM information_schema.PARTITIONS "
+				+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setString(1, table);
+			ResultSet result = statement.executeQuery();
+			return result.next() && result.getInt("partitions") > 0;
+		}
+	}
 }
 
@@ -0,0 +1,33 @@
+package db;
+
+import java.sql.SQLException;
+
+/**
+ * Destination of the rows generated for one table by ScaleGenerator. Each generator
+ * thread writes to sinks of its own, so implementations do not need to be thread-safe.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public interface RowSink extends AutoCloseable {
+
+	/**
+	 * Adds a row. Values are in the order of the sink's columns.
+	 * @param values - Column values
+	 * @throws SQLException if writing a full buffer fails
+	 */
+	void add(Object... values) throws SQLException;
+
+	/**
+	 * Writes the buffered rows.
+	 * @throws SQLException if writing fails
+	 */
+	void flush() throws SQLException;
+
+	/**
+	 * Writes the buffered rows and releases the sink.
+	 * @throws SQLException if writing fails
+	 */
+	@Override
+	void close() throws SQLException;
+}
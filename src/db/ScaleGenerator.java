@@ -0,0 +1,370 @@
+package db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import main.java.db.LeaseService;
+
+/**
+ * Scale mode of PseudoDataGenerator: fills the database with a configurable number of
+ * buildings, units, residents and years of history, to reproduce production-sized tables.
+ * <p>
+ * Units are split between worker threads. Each worker has its own connection and generates
+ * the residents, leases, charges, payments and complaints of its units into RowSinks:
+ * batched parameterized inserts by default, or CSV files loaded with LOAD DATA LOCAL
+ * INFILE with "load=csv" (fastest, needs local_infile enabled on the server).
+ * <p>
+ * Foreign key checks are turned off on the workers' connections while the constraints
+ * re-added by PseudoDataGenerator.clearDatabase() stay in place. Ids of units, residents
+ * and leases are computed from the unit's index, and each unit draws from a random
+ * generator seeded with its index, so workers never need each other's rows and a seed
+ * always produces the same dataset whatever the number of threads.
+ * Progress and rows per second are printed while the workers run.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class ScaleGenerator {
+
+	private static final String[] TABLES = {"units", "users", "leases", "charges", "payments", "complaints"};
+	private static final String[][] COLUMNS = {
+			{"id", "unit", "building", "floor", "sqft", "created"},
+			{"uid", "user", "pass", "email", "phone", "first_name", "last_name"},
+			{"id", "start", "end", "rent", "unitid", "userid"},
+			{"name", "date", "amount", "userid"},
+			{"name", "date", "amount", "account", "userid"},
+			{"log_date", "event_date", "subject", "description", "status", "userid", "unitid"}
+			};
+
+	private static final String[] STREETS = {"Prospect Ave.", "Main St.", "Grand St.", "Oak St.",
+			"Park Ave.", "Lake St.", "Hill Rd.", "River Rd."};
+	private static final String[] FIRST_NAMES = {"Travis", "Eve", "Iris", "Julian", "Karis", "Hadi",
+			"Mara", "Arjan", "Emily", "Zane", "Amelia", "Jay", "Pearl", "Norman", "Jenna", "Andre"};
+	private static final String[] LAST_NAMES = {"Espinoza", "Chen", "Parks", "Nelson", "Lewis", "Barton",
+			"Wilcox", "Beck", "Rios", "Fisher", "Beaumont", "Copeland", "Garcia", "Warner", "James", "Weber"};
+	private static final String[][] COMPLAINTS = {
+			{"Light out", "Light bulb went out in the bedroom"},
+			{"Door hinge broken", "Door hinge fell off the door"},
+			{"No hot water", "Self explanatory"},
+			{"Sink is leaking", "The sink is leaking"},
+			{"Bugs in kitchen", "There are roaches in the kitchen"},
+			{"Broken window", "The living room window was broken by a golf ball"},
+			{"Ceiling leak", "Water is leaking from the ceiling in the living room"},
+			{"Washer making loud noises", "The washer has started making loud banging noises"}
+			};
+	private static final int[] SQFT = {600, 800, 1000, 1500, 3000};
+	private static final int UNITS_PER_FLOOR = 8;
+	private static final int CSV_FILE_ROWS = 200000;
+
+	private final Options options;
+	private final Map<String, LongAdder> rowsWritten = new LinkedHashMap<String, LongAdder>();
+	private final LocalDate today = LocalDate.now();
+	private final LocalDate billedThrough = YearMonth.now().atEndOfMonth();
+	private int userBase;
+	private Path csvDirectory = null;
+
+	/**
+	 * Scale mode parameters, entered as "name=value" arguments.
+	 */
+	public static class Options {
+		int buildings = 100;
+		int unitsPerBuilding = 60;
+		int residents = 0; // 0: three per unit
+		int years = 5;
+		double complaintRate = 2; // Complaints per lease year
+		int threads = Runtime.getRuntime().availableProcessors();
+		int batchSize = 1000;
+		boolean csv = false;
+		long seed = 1; // Same seed, same data (for a given day)
+
+		/**
+		 * Reads the parameters, keeping the defaults of the ones not entered.
+		 * @param args - "scale" followed by buildings=, units=, residents=, years=,
+		 * complaints=, threads=, batch=, load=(batch|csv) and seed= arguments
+		 * @return the parameters
+		 */
+		public static Options parse(String[] args) {
+			Options options = new Options();
+			for (String arg : args) {
+				String[] pair = arg.split("=", 2);
+				if (pair.length < 2) continue;
+				switch (pair[0].toLowerCase()) {
+					case "buildings" -> options.buildings = Integer.parseInt(pair[1]);
+					case "units" -> options.unitsPerBuilding = Integer.parseInt(pair[1]);
+					case "residents" -> options.residents = Integer.parseInt(pair[1]);
+					case "years" -> options.years = Integer.parseInt(pair[1]);
+					case "complaints" -> options.complaintRate = Double.parseDouble(pair[1]);
+					case "threads" -> options.threads = Integer.parseInt(pair[1]);
+					case "batch" -> options.batchSize = Integer.parseInt(pair[1]);
+					case "load" -> options.csv = pair[1].equalsIgnoreCase("csv");
+					case "seed" -> options.seed = Long.parseLong(pair[1]);
+					default -> System.out.println("[Scale] --> Unknown parameter ignored: " + pair[0]);
+				}
+			}
+			return options;
+		}
+
+		int getUnits() {
+			return buildings * unitsPerBuilding;
+		}
+
+		int getResidentsPerUnit() {
+			if (residents <= 0) return 3;
+			return Math.max(1, Math.round((float) residents / getUnits()));
+		}
+
+		// A lease a year, plus the one running from before the history starts
+		int getMaxLeasesPerUnit() {
+			return years + 2;
+		}
+
+		@Override
+		public String toString() {
+			return buildings + " buildings, " + unitsPerBuilding + " units per building, "
+					+ (getUnits() * getResidentsPerUnit()) + " residents, " + years + " years, "
+					+ complaintRate + " complaints per lease year, " + threads + " threads, "
+					+ (csv ? "CSV files of " + CSV_FILE_ROWS : "batches of " + batchSize);
+		}
+	}
+
+	/**
+	 * @param options - Scale parameters
+	 */
+	public ScaleGenerator(Options options) {
+		this.options = options;
+		for (String table : TABLES) rowsWritten.put(table, new LongAdder());
+	}
+
+	/**
+	 * Generates and inserts the rows. Call after the tables are cleared.
+	 * @throws SQLException if a worker fails
+	 */
+	public void run() throws SQLException {
+		System.out.println("[Scale] Generating " + options);
+		if (options.csv) {
+			try {
+				csvDirectory = Files.createTempDirectory("apartment-manager-scale");
+			} catch (IOException err) {
+				throw new SQLException("Could not create the CSV directory", err);
+			}
+		}
+		try (Connection connect = openConnection()) {
+			ResultSet result = connect.createStatement().executeQuery("SELECT COALESCE(MAX(uid), 0) FROM users");
+			userBase = result.next() ? result.getInt(1) : 0;
+		}
+
+		// Workers
+		long start = System.currentTimeMillis();
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+		progress.scheduleAtFixedRate(() -> printProgress(start), 2, 2, TimeUnit.SECONDS);
+		ExecutorService workers = Executors.newFixedThreadPool(options.threads);
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+		int units = options.getUnits();
+		int unitsPerWorker = (units + options.threads - 1) / options.threads;
+		for (int from = 0; from < units; from += unitsPerWorker) {
+			int first = from;
+			int last = Math.min(units, from + unitsPerWorker);
+			results.add(workers.submit(() -> {
+				generateUnits(first, last);
+				return null;
+			}));
+		}
+
+		try {
+			for (Future<Void> result : results) result.get();
+		} catch (Exception err) {
+			workers.shutdownNow();
+			throw new SQLException("Scale generation failed", err.getCause());
+		} finally {
+			workers.shutdown();
+			progress.shutdownNow();
+			if (csvDirectory != null) csvDirectory.toFile().delete();
+		}
+
+		// Summary
+		long ms = Math.max(1, System.currentTimeMillis() - start);
+		for (Map.Entry<String, LongAdder> table : rowsWritten.entrySet()) {
+			System.out.println("[Scale] ----> " + table.getKey() + ": " + table.getValue().sum() + " rows");
+		}
+		System.out.println("[Scale] --> SUCCESS: " + getTotalRows() + " rows in " + (ms / 1000) + " s ("
+				+ (getTotalRows() * 1000 / ms) + " rows/s)");
+	}
+
+	/*
+	 * Worker
+	 */
+
+	/*
+	 * Generates the units with index first to last (excluded) and their history.
+	 */
+	private void generateUnits(int first, int last) throws SQLException {
+		try (Connection connect = openConnection()) {
+			connect.setAutoCommit(false);
+
+			// Rows are generated consistent, checking keys would only slow the load
+			try (Statement statement = connect.createStatement()) {
+				statement.execute("SET foreign_key_checks = 0");
+				if (options.csv) statement.execute("SET unique_checks = 0");
+			}
+
+			RowSink[] sinks = new RowSink[TABLES.length];
+			try {
+				for (int i = 0; i < TABLES.length; i++) sinks[i] = createSink(connect, i);
+				for (int unit = first; unit < last; unit++) generateUnit(unit, sinks);
+			} finally {
+				for (RowSink sink : sinks) if (sink != null) sink.close();
+			}
+		}
+	}
+
+	/*
+	 * Generates one unit with a chain of yearly leases from the start of the history,
+	 * renewed by the same resident or handed to the next one.
+	 */
+	private void generateUnit(int unit, RowSink[] sinks) throws SQLException {
+		Random random = new Random(options.seed * 1000003L + unit);
+		int building = unit / options.unitsPerBuilding;
+		int indexInBuilding = unit % options.unitsPerBuilding;
+		int floor = indexInBuilding / UNITS_PER_FLOOR + 1;
+		int sqft = SQFT[random.nextInt(SQFT.length)];
+		int unitId = unit + 1;
+
+		sinks[0].add(unitId, floor + "" + (char) ('A' + indexInBuilding % UNITS_PER_FLOOR),
+				(100 + building) + " " + STREETS[building % STREETS.length], floor, sqft,
+				Date.valueOf(today.minusYears(options.years + 1)));
+
+		// Leases
+		int residentsPerUnit = options.getResidentsPerUnit();
+		int maxLeases = options.getMaxLeasesPerUnit();
+		int lastResident = -1;
+		LocalDate leaseStart = today.minusYears(options.years).minusDays(random.nextInt(365));
+		for (int lease = 0; lease < maxLeases && !leaseStart.isAfter(today); lease++) {
+			LocalDate leaseEnd = leaseStart.plusYears(1).minusDays(1);
+			int resident = Math.min(residentsPerUnit - 1, lease * residentsPerUnit / maxLeases);
+			int uid = userBase + unit * residentsPerUnit + resident + 1;
+			int leaseId = unit * maxLeases + lease + 1;
+			if (resident != lastResident) {
+				sinks[1].add(uid, "resident" + uid, "password", "resident" + uid + "@email.com", "123456789",
+						FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+				lastResident = resident;
+			}
+
+			// Rent grows with time
+			double rentGrowth = ChronoUnit.MONTHS.between(today.minusYears(options.years), leaseStart) * 0.005;
+			int rent = (int) (sqft * 3 * (1 + rentGrowth)) + random.nextInt(20) * 5;
+			sinks[2].add(leaseId, Date.valueOf(leaseStart), Date.valueOf(leaseEnd), rent, unitId, uid);
+
+			generateLedger(uid, leaseStart, leaseEnd, rent, random, sinks);
+			generateComplaints(uid, unitId, leaseStart, leaseEnd, random, sinks);
+
+			// Next lease, after a vacancy of up to a month
+			leaseStart = leaseEnd.plusDays(1 + (random.nextInt(3) == 0 ? random.nextInt(30) : 0));
+		}
+	}
+
+	/*
+	 * Charges of the billed months and a payment for each month up to today, a few
+	 * days after the charges (1/30 chance of a missed payment in the last 30 days).
+	 */
+	private void generateLedger(int uid, LocalDate leaseStart, LocalDate leaseEnd, int rent, Random random,
+			RowSink[] sinks) throws SQLException {
+		List<LeaseService.Charge> charges = LeaseService.buildRentCharges(leaseStart, leaseEnd, rent);
+		for (int i = 0; i + 1 < charges.size(); i += 2) {
+			LeaseService.Charge rentCharge = charges.get(i);
+			LeaseService.Charge serviceFee = charges.get(i + 1);
+			if (rentCharge.getDate().isAfter(billedThrough)) continue;
+			sinks[3].add(rentCharge.getName(), Date.valueOf(rentCharge.getDate()), rentCharge.getAmount(), uid);
+			sinks[3].add(serviceFee.getName(), Date.valueOf(serviceFee.getDate()), serviceFee.getAmount(), uid);
+
+			LocalDate paymentDate = rentCharge.getDate().plusDays(random.nextInt(5));
+			if (paymentDate.isAfter(today)) continue;
+			if (paymentDate.isAfter(today.minusDays(30)) && random.nextInt(30) == 1) continue;
+			double amount = Math.round((rentCharge.getAmount() + serviceFee.getAmount()) * 100) / 100.0;
+			sinks[4].add("Debit Card On-Line Payment", Date.valueOf(paymentDate), amount, "0000", uid);
+		}
+	}
+
+	/*
+	 * Complaints logged during the lease, up to today. Open if logged in the last week.
+	 */
+	private void generateComplaints(int uid, int unitId, LocalDate leaseStart, LocalDate leaseEnd, Random random,
+			RowSink[] sinks) throws SQLException {
+		double expected = options.complaintRate * (ChronoUnit.DAYS.between(leaseStart, leaseEnd) + 1) / 365.0;
+		int count = (int) expected + (random.nextDouble() < expected - (int) expected ? 1 : 0);
+		int leaseDays = (int) ChronoUnit.DAYS.between(leaseStart, leaseEnd) + 1;
+		for (int i = 0; i < count; i++) {
+			LocalDate eventDate = leaseStart.plusDays(random.nextInt(leaseDays));
+			LocalDate logDate = eventDate.plusDays(random.nextInt(3));
+			if (!logDate.isBefore(today)) continue;
+			String[] complaint = COMPLAINTS[random.nextInt(COMPLAINTS.length)];
+			String status = logDate.isBefore(today.minusDays(7)) ? "closed" : "open";
+			sinks[5].add(Date.valueOf(logDate), Date.valueOf(eventDate), complaint[0], complaint[1], status, uid, unitId);
+		}
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Sink writing the rows of one table (index in TABLES).
+	 */
+	private RowSink createSink(Connection connect, int table) throws SQLException {
+		if (options.csv) {
+			return new CsvLoadSink(connect, TABLES[table], COLUMNS[table], csvDirectory, CSV_FILE_ROWS,
+					rowsWritten.get(TABLES[table]));
+		}
+		return new BatchInsertSink(connect, TABLES[table], COLUMNS[table], options.batchSize,
+				rowsWritten.get(TABLES[table]));
+	}
+
+	/*
+	 * Connection of the generator account, sending batches as multi-row inserts (and
+	 * allowed to load local files from the CSV directory only).
+	 */
+	private Connection openConnection() throws SQLException {
+		Properties properties = new Properties();
+		properties.setProperty("user", PseudoDataGenerator.dbUsername);
+		properties.setProperty("password", PseudoDataGenerator.dbPassword);
+		properties.setProperty("rewriteBatchedStatements", "true");
+		if (csvDirectory != null) {
+			properties.setProperty("allowLoadLocalInfileInPath", csvDirectory.toAbsolutePath().toString());
+		}
+		return DriverManager.getConnection(PseudoDataGenerator.dbUrl, properties);
+	}
+
+	private long getTotalRows() {
+		long rows = 0;
+		for (LongAdder table : rowsWritten.values()) rows += table.sum();
+		return rows;
+	}
+
+	private void printProgress(long start) {
+		long ms = Math.max(1, System.currentTimeMillis() - start);
+		long rows = getTotalRows();
+		System.out.println("[Scale] ----> " + rows + " rows (" + (rows * 1000 / ms) + " rows/s, "
+				+ rowsWritten.get("charges").sum() + " charges, " + rowsWritten.get("payments").sum() + " payments)");
+	}
+}
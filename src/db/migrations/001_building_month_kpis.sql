@@ -0,0 +1,45 @@
+-- Apartment Manager schema migration 001
+-- Monthly KPI summary table read by the admin dashboard.
+-- Fill it with main.java.db.BuildingMonthKpis (rebuild) after applying.
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `building_month_kpis`
+-- One row per building and month (`month` is the last day of the month)
+--
+
+CREATE TABLE `building_month_kpis` (
+  `building` varchar(255) NOT NULL,
+  `month` date NOT NULL,
+  `units` int(11) NOT NULL DEFAULT 0,
+  `occupied` int(11) NOT NULL DEFAULT 0,
+  `rent_charged` int(11) NOT NULL DEFAULT 0,
+  `area_rented` int(11) NOT NULL DEFAULT 0,
+  `revenue` double NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `building_month_kpi_refresh`
+-- Date each month of `building_month_kpis` was last computed
+--
+
+CREATE TABLE `building_month_kpi_refresh` (
+  `month` date NOT NULL,
+  `refreshed` date NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+--
+-- Indexes for table `building_month_kpis`
+--
+ALTER TABLE `building_month_kpis`
+  ADD PRIMARY KEY (`building`,`month`),
+  ADD KEY `kpi_month` (`month`);
+
+--
+-- Indexes for table `building_month_kpi_refresh`
+--
+ALTER TABLE `building_month_kpi_refresh`
+  ADD PRIMARY KEY (`month`);
@@ -0,0 +1,11 @@
+-- Apartment Manager schema migration 002
+-- Indexes for the paged complaint log (newest first, keyset on `log_date`, `id`).
+
+-- --------------------------------------------------------
+
+--
+-- Indexes for table `complaints`
+--
+ALTER TABLE `complaints`
+  ADD KEY `complaint_log` (`log_date`,`id`),
+  ADD KEY `complaint_user_log` (`userid`,`log_date`,`id`);
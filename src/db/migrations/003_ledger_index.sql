@@ -0,0 +1,16 @@
+-- Apartment Manager schema migration 003
+-- Indexes for the paged resident ledger (newest months first, by `userid`, `date`).
+
+-- --------------------------------------------------------
+
+--
+-- Indexes for table `charges`
+--
+ALTER TABLE `charges`
+  ADD KEY `charge_user_date` (`userid`,`date`);
+
+--
+-- Indexes for table `payments`
+--
+ALTER TABLE `payments`
+  ADD KEY `payment_user_date` (`userid`,`date`);
@@ -0,0 +1,35 @@
+-- Apartment Manager schema migration 004
+-- Per-resident balance table read by the resident and unit pages.
+-- Filled from the existing charges and payments below. Check it against the ledger
+-- with main.java.db.AccountBalances (verify and repair) after loading data by hand.
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `account_balances`
+-- Sum of each resident's charges dated up to `posted_through` and of all their payments
+--
+
+CREATE TABLE `account_balances` (
+  `userid` int(11) NOT NULL,
+  `charges` double NOT NULL DEFAULT 0,
+  `payments` double NOT NULL DEFAULT 0,
+  `posted_through` date NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+--
+-- Indexes for table `account_balances`
+--
+ALTER TABLE `account_balances`
+  ADD PRIMARY KEY (`userid`);
+
+--
+-- Data for table `account_balances`
+--
+INSERT INTO `account_balances` (`userid`, `charges`, `payments`, `posted_through`)
+SELECT `uid`, COALESCE(`sum_charges`, 0), COALESCE(`sum_payments`, 0), CURRENT_DATE()
+FROM `users`
+  LEFT JOIN (SELECT SUM(`amount`) AS sum_charges, `userid` FROM `charges` WHERE `date` <= CURRENT_DATE() GROUP BY `userid`) AS c
+  ON `users`.`uid` = c.`userid`
+  LEFT JOIN (SELECT SUM(`amount`) AS sum_payments, `userid` FROM `payments` GROUP BY `userid`) AS p
+  ON `users`.`uid` = p.`userid`;
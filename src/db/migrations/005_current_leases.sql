@@ -0,0 +1,33 @@
+-- Apartment Manager schema migration 005
+-- Current lease of each unit and resident (the lease with the latest `end`).
+-- Filled from the existing leases below. Rebuild it with main.java.db.CurrentLeases
+-- after loading leases by hand.
+
+-- --------------------------------------------------------
+
+--
+-- Columns for the current lease
+--
+ALTER TABLE `units`
+  ADD `current_lease_id` int(11) DEFAULT NULL;
+
+ALTER TABLE `users`
+  ADD `current_lease_id` int(11) DEFAULT NULL;
+
+--
+-- Indexes for table `leases`
+--
+ALTER TABLE `leases`
+  ADD KEY `lease_unit_end` (`unitid`,`end`),
+  ADD KEY `lease_user_end` (`userid`,`end`);
+
+--
+-- Data for the current lease
+--
+UPDATE `units` SET `current_lease_id` = (
+  SELECT `id` FROM `leases` WHERE `leases`.`unitid` = `units`.`id` ORDER BY `end` DESC, `id` DESC LIMIT 1
+);
+
+UPDATE `users` SET `current_lease_id` = (
+  SELECT `id` FROM `leases` WHERE `leases`.`userid` = `users`.`uid` ORDER BY `end` DESC, `id` DESC LIMIT 1
+);
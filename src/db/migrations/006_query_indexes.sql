@@ -0,0 +1,25 @@
+-- Apartment Manager schema migration 006
+-- Indexes for the remaining page queries (see main.java.db.SchemaMigrator verify).
+
+-- --------------------------------------------------------
+
+--
+-- Indexes for table `payments`
+-- Monthly revenue (payments in a date range)
+--
+ALTER TABLE `payments`
+  ADD KEY `payment_date` (`date`,`userid`,`amount`);
+
+--
+-- Indexes for table `units`
+-- Building lists and building filters of live units
+--
+ALTER TABLE `units`
+  ADD KEY `unit_building` (`building`,`deleted`);
+
+--
+-- Indexes for table `complaints`
+-- Open complaint counts and filters
+--
+ALTER TABLE `complaints`
+  ADD KEY `complaint_status` (`status`,`log_date`);
@@ -0,0 +1,65 @@
+-- Apartment Manager schema migration 007
+-- Yearly RANGE partitions on `charges` and `payments` by `date`, so date-bounded ledger
+-- and revenue queries only read the years they cover. Existing rows are moved into their
+-- partitions by the ALTER statements (the tables are rebuilt).
+-- Partitioned tables cannot have foreign keys, and the primary keys must include `date`.
+-- Add the partitions of later years with main.java.db.LedgerPartitions (rows after the
+-- last year are kept in `pmax` until then).
+
+-- --------------------------------------------------------
+
+--
+-- Partitions for table `charges`
+--
+ALTER TABLE `charges`
+  DROP FOREIGN KEY `charge_user`;
+
+ALTER TABLE `charges`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`,`date`);
+
+ALTER TABLE `charges`
+  PARTITION BY RANGE COLUMNS(`date`) (
+  PARTITION p2015 VALUES LESS THAN ('2016-01-01'),
+  PARTITION p2016 VALUES LESS THAN ('2017-01-01'),
+  PARTITION p2017 VALUES LESS THAN ('2018-01-01'),
+  PARTITION p2018 VALUES LESS THAN ('2019-01-01'),
+  PARTITION p2019 VALUES LESS THAN ('2020-01-01'),
+  PARTITION p2020 VALUES LESS THAN ('2021-01-01'),
+  PARTITION p2021 VALUES LESS THAN ('2022-01-01'),
+  PARTITION p2022 VALUES LESS THAN ('2023-01-01'),
+  PARTITION p2023 VALUES LESS THAN ('2024-01-01'),
+  PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+  PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+  PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+  );
+
+--
+-- Partitions for table `payments`
+--
+ALTER TABLE `payments`
+  DROP FOREIGN KEY `payment_user`;
+
+ALTER TABLE `payments`
+  DROP PRIMARY KEY,
+  ADD PRIMARY KEY (`id`,`date`);
+
+ALTER TABLE `payments`
+  PARTITION BY RANGE COLUMNS(`date`) (
+  PARTITION p2015 VALUES LESS THAN ('2016-01-01'),
+  PARTITION p2016 VALUES LESS THAN ('2017-01-01'),
+  PARTITION p2017 VALUES LESS THAN ('2018-01-01'),
+  PARTITION p2018 VALUES LESS THAN ('2019-01-01'),
+  PARTITION p2019 VALUES LESS THAN ('2020-01-01'),
+  PARTITION p2020 VALUES LESS THAN ('2021-01-01'),
+  PARTITION p2021 VALUES LESS THAN ('2022-01-01'),
+  PARTITION p2022 VALUES LESS THAN ('2023-01-01'),
+  PARTITION p2023 VALUES LESS THAN ('2024-01-01'),
+  PARTITION p2024 VALUES LESS THAN ('2025-01-01'),
+  PARTITION p2025 VALUES LESS THAN ('2026-01-01'),
+  PARTITION p2026 VALUES LESS THAN ('2027-01-01'),
+  PARTITION p2027 VALUES LESS THAN ('2028-01-01'),
+  PARTITION pmax VALUES LESS THAN (MAXVALUE)
+  );
@@ -0,0 +1,38 @@
+-- Apartment Manager schema migration 008
+-- Monthly billing runs. Rent and service fees are posted one month at a time by
+-- main.java.db.BillingEngine instead of for the whole lease term when the lease is created.
+-- The current month is recorded as billed below, and the charges already inserted for
+-- later months are removed (they are posted by the billing runs of their months).
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `billing_runs`
+-- One row per billed month (first day of the month), inserted in the transaction posting
+-- its charges. Months before the first row were billed when their leases were created.
+--
+
+CREATE TABLE `billing_runs` (
+  `period` date NOT NULL,
+  `started_at` datetime NOT NULL,
+  `finished_at` datetime DEFAULT NULL,
+  `charges` int(11) NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+--
+-- Indexes for table `billing_runs`
+--
+ALTER TABLE `billing_runs`
+  ADD PRIMARY KEY (`period`);
+
+--
+-- Data for table `billing_runs`
+--
+INSERT INTO `billing_runs` (`period`, `started_at`, `finished_at`, `charges`)
+VALUES (DATE_FORMAT(CURRENT_DATE(), '%Y-%m-01'), NOW(), NOW(), 0);
+
+--
+-- Charges of months not billed yet
+--
+DELETE FROM `charges`
+WHERE `date` > LAST_DAY(CURRENT_DATE());
@@ -1,4 +1,5 @@
 package main.java;
+import main.java.ui.EdtWatchdog;
 import main.java.ui.LoginWindow;
 
 /**
@@ -9,6 +10,7 @@ import main.java.ui.LoginWindow;
  */
 public class Launch {
 	public static void main(String[] args) {
+			EdtWatchdog.install();
 			new LoginWindow();
 	}
 }
@@ -424,6 +424,16 @@ public interface Page {
 	 * @return "firstName lastName"
 	 */
 	default public String combineNames(String firstName, String lastName) {
+		return joinNames(firstName, lastName);
+	}
+	
+	/**
+	 * Concatenate two names (for table models, which have no page)
+	 * @param firstName
+	 * @param lastName
+	 * @return "firstName lastName"
+	 */
+	static String joinNames(String firstName, String lastName) {
 		if (firstName == null && lastName == null) return "";
 		else if (firstName == null) return lastName;
 		else if (lastName == null) return firstName;
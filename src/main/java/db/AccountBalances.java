@@ -0,0 +1,275 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import main.java.Page;
+
+/**
+ * Maintains the account_balances table: one row per resident with the sum of their
+ * charges and payments, so pages read a balance instead of aggregating both ledgers.
+ * <p>
+ * Balances follow the pages' rule: charges count once their date is reached, payments
+ * always count. Charges can be dated after today (a lease starting later in a billed
+ * month), so each row records the date its charges are posted through and
+ * post(Connection), run by the daily billing job, adds the charges that came due since.
+ * Pages only read it. Writes to charges and payments update the row in the same
+ * transaction (skipped if the table has not been created yet). Run main() to verify the
+ * table against the ledgers and repair accounts that drifted.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class AccountBalances {
+
+	private static final int ER_NO_SUCH_TABLE = 1146;
+	private static final double TOLERANCE = 0.005;
+
+	// Ledger sums of every resident, aliased "l"
+	private static final String LEDGER_TOTALS = """
+			(SELECT `uid` AS userid, COALESCE(sum_charges, 0) AS charges, COALESCE(sum_payments, 0) AS payments
+			FROM users
+			    LEFT JOIN (SELECT SUM(amount) AS sum_charges, userid FROM charges WHERE date <= CURRENT_DATE() GROUP BY userid) AS c
+			    ON users.uid = c.userid
+			    LEFT JOIN (SELECT SUM(amount) AS sum_payments, userid FROM payments GROUP BY userid) AS p
+			    ON users.uid = p.userid
+			) AS l""";
+
+	private AccountBalances() {}
+
+	/*
+	 * Posting
+	 */
+
+	/**
+	 * Adds the charges that came due since the balances were last posted. Run daily by
+	 * BillingEngine, outside of the pages.
+	 * @param connect - Open connection
+	 * @return number of accounts posted
+	 * @throws SQLException if the update fails
+	 */
+	public static int post(Connection connect) throws SQLException {
+		try {
+			return postCharges(connect);
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+			return 0;
+		}
+	}
+
+	/*
+	 * Write
+	 */
+
+	/**
+	 * Adds a payment to the resident's balance. Call it in the transaction inserting
+	 * the payment.
+	 * @param connect - Open connection
+	 * @param userid - Resident paying
+	 * @param amount - Payment amount
+	 * @throws SQLException if the update fails
+	 */
+	public static void recordPayment(Connection connect, int userid, double amount) throws SQLException {
+		String sqlQuery = "INSERT INTO account_balances (userid, payments, posted_through) VALUES (?, ?, CURRENT_DATE()) "
+				+ "ON DUPLICATE KEY UPDATE payments = payments + VALUES(payments)";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setInt(1, userid);
+			statement.setDouble(2, amount);
+			statement.executeUpdate();
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+		}
+	}
+
+	/**
+	 * Recomputes one resident's balance from their charges and payments. Used after
+	 * inserting a batch of charges (e.g. the rent of a new lease) in the same transaction.
+	 * @param connect - Open connection
+	 * @param userid - Resident
+	 * @throws SQLException if the update fails
+	 */
+	public static void refreshAccount(Connection connect, int userid) throws SQLException {
+		String sqlQuery = """
+				INSERT INTO account_balances (userid, charges, payments, posted_through)
+				SELECT ?,
+				    COALESCE((SELECT SUM(amount) FROM charges WHERE userid = ? AND date <= CURRENT_DATE()), 0),
+				    COALESCE((SELECT SUM(amount) FROM payments WHERE userid = ?), 0),
+				    CURRENT_DATE()
+				ON DUPLICATE KEY UPDATE charges = VALUES(charges), payments = VALUES(payments),
+				    posted_through = VALUES(posted_through)
+				""";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setInt(1, userid);
+			statement.setInt(2, userid);
+			statement.setInt(3, userid);
+			statement.executeUpdate();
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+		}
+	}
+
+	/**
+	 * Recomputes the balance of every resident with a charge dated in the entered range.
+	 * Used after posting a month of charges (BillingEngine) in the same transaction.
+	 * @param connect - Open connection
+	 * @param from - First charge date
+	 * @param to - Last charge date
+	 * @throws SQLException if the update fails
+	 */
+	public static void refreshAccounts(Connection connect, LocalDate from, LocalDate to) throws SQLException {
+		String sqlQuery = """
+				INSERT INTO account_balances (userid, charges, payments, posted_through)
+				SELECT r.userid,
+				    COALESCE((SELECT SUM(amount) FROM charges c WHERE c.userid = r.userid AND c.date <= CURRENT_DATE()), 0),
+				    COALESCE((SELECT SUM(amount) FROM payments p WHERE p.userid = r.userid), 0),
+				    CURRENT_DATE()
+				FROM (SELECT DISTINCT userid FROM charges WHERE date >= ? AND date <= ?) AS r
+				ON DUPLICATE KEY UPDATE charges = VALUES(charges), payments = VALUES(payments),
+				    posted_through = VALUES(posted_through)
+				""";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setDate(1, Date.valueOf(from));
+			statement.setDate(2, Date.valueOf(to));
+			statement.executeUpdate();
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+		}
+	}
+
+	/**
+	 * Recomputes every balance from the charges and payments in one transaction.
+	 * @param connect - Open connection
+	 * @return number of accounts written
+	 * @throws SQLException if a query fails
+	 */
+	public static int rebuild(Connection connect) throws SQLException {
+		String sqlQuery = """
+				INSERT INTO account_balances (userid, charges, payments, posted_through)
+				SELECT userid, charges, payments, CURRENT_DATE()
+				"""
+				+ "FROM " + LEDGER_TOTALS;
+
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (Statement statement = connect.createStatement()) {
+			statement.executeUpdate("DELETE FROM account_balances");
+			int rows = statement.executeUpdate(sqlQuery);
+			connect.commit();
+			return rows;
+		} catch (SQLException err) {
+			connect.rollback();
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/*
+	 * Verify
+	 */
+
+	/**
+	 * Compares every balance with the sums of the resident's charges and payments.
+	 * Due charges are posted first so only real drift is reported.
+	 * @param connect - Open connection
+	 * @return ids of residents whose balance is missing or differs from the ledgers
+	 * @throws SQLException if a query fails
+	 */
+	public static List<Integer> verify(Connection connect) throws SQLException {
+		String sqlQuery = "SELECT l.userid FROM " + LEDGER_TOTALS + " "
+				+ """
+				LEFT JOIN account_balances b
+				ON l.userid = b.userid
+				WHERE (b.userid IS NULL AND (l.charges <> 0 OR l.payments <> 0))
+				OR ABS(l.charges - b.charges) > ?
+				OR ABS(l.payments - b.payments) > ?
+				""";
+
+		postCharges(connect);
+		List<Integer> drifted = new ArrayList<Integer>();
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setDouble(1, TOLERANCE);
+			statement.setDouble(2, TOLERANCE);
+			ResultSet result = statement.executeQuery();
+			while (result.next()) drifted.add(result.getInt("userid"));
+		}
+		return drifted;
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Adds the charges dated after each row's posted_through, up to today. Rows are
+	 * locked by the update, so two applications posting at once do not count twice.
+	 */
+	private static int postCharges(Connection connect) throws SQLException {
+		String sqlQuery = """
+				UPDATE account_balances b
+				SET b.charges = b.charges + COALESCE((
+				        SELECT SUM(c.amount) FROM charges c
+				        WHERE c.userid = b.userid AND c.date > b.posted_through AND c.date <= CURRENT_DATE()
+				    ), 0),
+				    b.posted_through = CURRENT_DATE()
+				WHERE b.posted_through < CURRENT_DATE()
+				""";
+
+		try (Statement statement = connect.createStatement()) {
+			return statement.executeUpdate(sqlQuery);
+		}
+	}
+
+	/*
+	 * True if the error is caused by account_balances not being created yet, in
+	 * which case writes skip maintaining it.
+	 */
+	private static boolean isMissingTable(SQLException err) {
+		return err.getErrorCode() == ER_NO_SUCH_TABLE;
+	}
+
+	/**
+	 * Verifies account_balances and recomputes the accounts that drifted, or the whole
+	 * table with "rebuild".
+	 * Arguments: database user and password of an account with all privileges.
+	 * @param args - user, password, [rebuild]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: AccountBalances <db user> <db password> [rebuild]");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			if (args.length > 2 && args[2].equalsIgnoreCase("rebuild")) {
+				int rows = rebuild(connect);
+				System.out.println("[Rebuild account_balances] --> SUCCESS (" + rows + " rows, "
+						+ (System.currentTimeMillis() - start) + " ms)");
+				return;
+			}
+
+			List<Integer> drifted = verify(connect);
+			System.out.println("[Verify account_balances] --> " + drifted.size() + " accounts differ from the ledgers");
+			for (int userid : drifted) {
+				refreshAccount(connect, userid);
+				System.out.println("[Verify account_balances] ----> Repaired account " + userid);
+			}
+			System.out.println("[Verify account_balances] --> SUCCESS ("
+					+ (System.currentTimeMillis() - start) + " ms)");
+		} catch (SQLException err) {
+			System.out.println("[Verify account_balances] --> FAILED");
+			err.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import main.java.Page;
+
+/**
+ * Posts the monthly rent and service fee charges of every lease active in a month, so the
+ * charges table only holds months that have been billed (see migration 008).
+ * <p>
+ * Each month is billed by one transaction that inserts its billing_runs row first: a month
+ * already billed fails on the primary key and is skipped, so reruns never bill twice.
+ * Months from the first billing run on that were missed are billed in catch-up mode.
+ * Leases created after a month was billed get its charges from LeaseService. Run main()
+ * every day (e.g. from cron) to bill each month when it starts and to post the charges
+ * that came due that day to the resident balances (AccountBalances.post).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class BillingEngine {
+
+	private static final int ER_DUP_ENTRY = 1062;
+
+	// Part of each lease in the billed month, aliased "t": ? = first day of the month (x3)
+	private static final String LEASE_TERMS = """
+			(SELECT userid, rent, term_start, DATEDIFF(term_end, term_start) + 1 AS days, DAY(LAST_DAY(term_start)) AS month_days
+			FROM (SELECT userid, rent, GREATEST(start, ?) AS term_start, LEAST(end, LAST_DAY(?)) AS term_end
+			    FROM leases
+			    WHERE start <= LAST_DAY(?) AND end >= ?) AS l
+			) AS t""";
+
+	// Rent, prorated by day the way LeaseService.buildRentCharges() computes it
+	private static final String SQL_INSERT_RENT = """
+			INSERT INTO charges (`name`, `date`, `amount`, `userid`)
+			SELECT CONCAT('Rent (', DATE_FORMAT(term_start, '%m/%Y'), ')',
+			        IF(days <> month_days, CONCAT(' - (', days, '/', month_days, ' days)'), '')),
+			    term_start, FLOOR(CAST(days AS DOUBLE) / month_days * rent), userid
+			""" + "FROM " + LEASE_TERMS;
+
+	private static final String SQL_INSERT_SERVICE_FEE = """
+			INSERT INTO charges (`name`, `date`, `amount`, `userid`)
+			SELECT CONCAT('Service Fee (', DATE_FORMAT(term_start, '%m/%Y'), ')'), term_start, ?, userid
+			""" + "FROM " + LEASE_TERMS;
+
+	private BillingEngine() {}
+
+	/**
+	 * Posts the charges of one month for every lease active in it.
+	 * @param connect - Open connection with all privileges
+	 * @param period - Month to bill
+	 * @return number of charges posted, -1 if the month was already billed
+	 * @throws SQLException if an insert fails (nothing is posted)
+	 */
+	public static int billPeriod(Connection connect, YearMonth period) throws SQLException {
+		Date periodStart = Date.valueOf(period.atDay(1));
+
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (PreparedStatement run = connect.prepareStatement(
+					"INSERT INTO billing_runs (period, started_at) VALUES (?, NOW())");
+				PreparedStatement rent = connect.prepareStatement(SQL_INSERT_RENT);
+				PreparedStatement serviceFee = connect.prepareStatement(SQL_INSERT_SERVICE_FEE);
+				PreparedStatement finish = connect.prepareStatement(
+					"UPDATE billing_runs SET finished_at = NOW(), charges = ? WHERE period = ?")) {
+
+			// Claim the month (locks it until commit)
+			run.setDate(1, periodStart);
+			run.executeUpdate();
+
+			// Charges
+			for (int i = 1; i <= 4; i++) rent.setDate(i, periodStart);
+			int charges = rent.executeUpdate();
+			serviceFee.setDouble(1, LeaseService.SERVICE_FEE);
+			for (int i = 2; i <= 5; i++) serviceFee.setDate(i, periodStart);
+			charges += serviceFee.executeUpdate();
+
+			// Balances (charges dated before an account's posted_through are not posted again)
+			AccountBalances.refreshAccounts(connect, period.atDay(1), period.atEndOfMonth());
+
+			finish.setInt(1, charges);
+			finish.setDate(2, periodStart);
+			finish.executeUpdate();
+			connect.commit();
+			return charges;
+		} catch (SQLException err) {
+			connect.rollback();
+			if (err.getErrorCode() == ER_DUP_ENTRY) return -1;
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Bills every month from the first billing run through the entered one that has
+	 * not been billed, oldest first.
+	 * @param connect - Open connection with all privileges
+	 * @param through - Last month to bill
+	 * @return months billed
+	 * @throws SQLException if a query fails, or if billing_runs has no baseline yet
+	 */
+	public static List<YearMonth> catchUp(Connection connect, YearMonth through) throws SQLException {
+		List<YearMonth> billed = new ArrayList<YearMonth>();
+		for (YearMonth period : getMissedPeriods(connect, through)) {
+			if (billPeriod(connect, period) >= 0) billed.add(period);
+		}
+		return billed;
+	}
+
+	/**
+	 * Returns the months from the first billing run through the entered one that have
+	 * not been billed.
+	 * @param connect - Open connection
+	 * @param through - Last month to check
+	 * @return months missed, oldest first
+	 * @throws SQLException if the query fails, or if billing_runs has no baseline yet
+	 */
+	public static List<YearMonth> getMissedPeriods(Connection connect, YearMonth through) throws SQLException {
+		List<YearMonth> missed = new ArrayList<YearMonth>();
+		List<YearMonth> runs = new ArrayList<YearMonth>();
+		try (Statement statement = connect.createStatement()) {
+			ResultSet result = statement.executeQuery("SELECT period FROM billing_runs ORDER BY period");
+			while (result.next()) runs.add(YearMonth.from(result.getDate("period").toLocalDate()));
+		}
+		if (runs.isEmpty()) throw new SQLException("billing_runs has no baseline: apply migration 008");
+
+		for (YearMonth period = runs.get(0); !period.isAfter(through); period = period.plusMonths(1)) {
+			if (!runs.contains(period)) missed.add(period);
+		}
+		return missed;
+	}
+
+	/**
+	 * Records the entered month as the first billing run, for a ledger whose charges were
+	 * inserted through that month outside the engine (e.g. by the demo data generator).
+	 * Previous runs are removed.
+	 * @param connect - Open connection with all privileges
+	 * @param period - Last month already in the charges table
+	 * @throws SQLException if a query fails
+	 */
+	public static void baseline(Connection connect, YearMonth period) throws SQLException {
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (Statement statement = connect.createStatement();
+				PreparedStatement insert = connect.prepareStatement(
+					"INSERT INTO billing_runs (period, started_at, finished_at) VALUES (?, NOW(), NOW())")) {
+			statement.executeUpdate("DELETE FROM billing_runs");
+			insert.setDate(1, Date.valueOf(period.atDay(1)));
+			insert.executeUpdate();
+			connect.commit();
+		} catch (SQLException err) {
+			connect.rollback();
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Bills the current month, or every missed month through the current one with "catchup",
+	 * then posts the charges due today to the resident balances.
+	 * Arguments: database user and password of an account with all privileges.
+	 * @param args - user, password, [catchup]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: BillingEngine <db user> <db password> [catchup]");
+			return;
+		}
+		YearMonth current = YearMonth.from(LocalDate.now());
+		long start = System.currentTimeMillis();
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			if (args.length > 2 && args[2].equalsIgnoreCase("catchup")) {
+				List<YearMonth> billed = catchUp(connect, current);
+				for (YearMonth period : billed) System.out.println("[Billing] ----> Billed " + period);
+				System.out.println("[Billing catch-up] --> SUCCESS (" + billed.size() + " months, "
+						+ (System.currentTimeMillis() - start) + " ms)");
+				postBalances(connect);
+				return;
+			}
+
+			List<YearMonth> missed = getMissedPeriods(connect, current.minusMonths(1));
+			if (!missed.isEmpty()) {
+				System.out.println("[Billing] --> " + missed.size() + " earlier months were not billed, "
+						+ "run with \"catchup\" to bill them");
+			}
+			int charges = billPeriod(connect, current);
+			System.out.println("[Billing " + current + "] --> "
+					+ (charges < 0 ? "SKIPPED (already billed)" : "SUCCESS (" + charges + " charges, "
+					+ (System.currentTimeMillis() - start) + " ms)"));
+			postBalances(connect);
+		} catch (SQLException err) {
+			System.out.println("[Billing] --> FAILED");
+			err.printStackTrace();
+		}
+	}
+
+	/*
+	 * Posts the charges that came due to the resident balances, so pages read them as is.
+	 */
+	private static void postBalances(Connection connect) throws SQLException {
+		int accounts = AccountBalances.post(connect);
+		System.out.println("[Billing balances] --> SUCCESS (" + accounts + " accounts posted)");
+	}
+}
@@ -0,0 +1,436 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import main.java.Page;
+
+/**
+ * Maintains the building_month_kpis summary table: one row per building and month
+ * (last day of the month) with the MonthlyMetrics values, so the dashboard reads 24 rows
+ * instead of scanning leases, payments and units.
+ * <p>
+ * building_month_kpi_refresh records when each month was last computed. A month is up to
+ * date once it has been computed after it ended (the open month depends on the current
+ * date and is recomputed once a day). Stale months are recomputed by one session at a
+ * time, under a database lock, so parallel dashboard loads refresh them once. Writes to
+ * leases, payments and units update the affected rows through the record and refresh
+ * methods (skipped if the tables have not been created yet). Run main() to rebuild the
+ * whole table.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class BuildingMonthKpis {
+
+	private static final int ER_NO_SUCH_TABLE = 1146;
+	private static final int REBUILD_CHUNK_MONTHS = 12;
+	private static final String REFRESH_LOCK = "building_month_kpis.refresh";
+	private static final int REFRESH_LOCK_TIMEOUT_SECONDS = 60;
+
+	// Months of the matching buildings (1: building pattern, 2: first month, 3: last month)
+	static final String SQL_LOAD = """
+			SELECT `month`, SUM(units) AS units, SUM(occupied) AS occupied, SUM(rent_charged) AS rent_charged,
+			    SUM(area_rented) AS area_rented, ROUND(SUM(revenue), 2) AS revenue
+			FROM building_month_kpis
+			WHERE building LIKE ? AND `month` >= ? AND `month` <= ?
+			GROUP BY `month`
+			""";
+
+	// Months computed after they ended or today (1: first month, 2: last month)
+	static final String SQL_FRESH_MONTHS = "SELECT `month` FROM building_month_kpi_refresh "
+			+ "WHERE `month` >= ? AND `month` <= ? "
+			+ "AND (refreshed > `month` OR refreshed >= CURRENT_DATE())";
+
+	private BuildingMonthKpis() {}
+
+	/*
+	 * Read
+	 */
+
+	/**
+	 * Returns the metrics of every month for the buildings matching the entered building
+	 * (LIKE matching, "" for all), refreshing months that are missing or out of date first.
+	 * Falls back to computing them with MonthlyMetrics if the table has not been created.
+	 * @param connect - Open connection
+	 * @param building - Building name or part of it
+	 * @param periodEnds - Last day of each month, in order
+	 * @param token - Cancels the queries from another thread
+	 * @return metrics for each month, in the order of periodEnds
+	 * @throws SQLException if a query fails or is cancelled
+	 */
+	public static MonthlyMetrics[] load(Connection connect, String building, LocalDate[] periodEnds,
+			CancellationToken token) throws SQLException {
+		if (periodEnds.length == 0) return new MonthlyMetrics[0];
+		try {
+			ensureFresh(connect, periodEnds, token);
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+			return MonthlyMetrics.load(connect, building, periodEnds, token);
+		}
+
+		Map<LocalDate, MonthlyMetrics> byPeriod = new LinkedHashMap<LocalDate, MonthlyMetrics>();
+		for (LocalDate periodEnd : periodEnds) byPeriod.put(periodEnd, new MonthlyMetrics(periodEnd));
+
+		try (PreparedStatement statement = connect.prepareStatement(SQL_LOAD)) {
+			QueryStats.tag(statement, "BuildingMonthKpis.load");
+			statement.setString(1, "%" + building + "%");
+			statement.setDate(2, Date.valueOf(periodEnds[0]));
+			statement.setDate(3, Date.valueOf(periodEnds[periodEnds.length - 1]));
+			ResultSet result = execute(statement, token);
+			while (result.next()) {
+				LocalDate periodEnd = result.getDate("month").toLocalDate();
+				if (!byPeriod.containsKey(periodEnd)) continue;
+				byPeriod.put(periodEnd, new MonthlyMetrics(null, periodEnd, result.getInt("units"),
+						result.getInt("occupied"), result.getInt("rent_charged"), result.getInt("area_rented"),
+						result.getDouble("revenue")));
+			}
+		}
+		return byPeriod.values().toArray(new MonthlyMetrics[0]);
+	}
+
+	/*
+	 * Recomputes the requested months that were never computed or were computed before
+	 * they ended and not today. The check takes no lock; stale months are recomputed
+	 * under a database lock (GET_LOCK), so parallel loads, in this or another session,
+	 * wait for one refresh and then find the months fresh.
+	 */
+	private static void ensureFresh(Connection connect, LocalDate[] periodEnds, CancellationToken token)
+			throws SQLException {
+		if (getStaleMonths(connect, periodEnds, token).length == 0) return;
+
+		// Wait for the lock
+		try (PreparedStatement statement = connect.prepareStatement("SELECT GET_LOCK(?, ?) AS locked")) {
+			QueryStats.tag(statement, "BuildingMonthKpis.refreshLock");
+			statement.setString(1, REFRESH_LOCK);
+			statement.setInt(2, REFRESH_LOCK_TIMEOUT_SECONDS);
+			ResultSet result = execute(statement, token);
+			if (!result.next() || result.getInt("locked") != 1) {
+				throw new SQLException("Timed out waiting for the monthly summary refresh");
+			}
+		}
+
+		// Refresh what another session did not refresh while we waited
+		try {
+			LocalDate[] stale = getStaleMonths(connect, periodEnds, token);
+			if (stale.length > 0) refreshMonths(connect, stale, token);
+		} finally {
+			try (PreparedStatement statement = connect.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+				statement.setString(1, REFRESH_LOCK);
+				statement.executeQuery();
+			}
+		}
+	}
+
+	/*
+	 * Requested months that were never computed or are out of date.
+	 */
+	private static LocalDate[] getStaleMonths(Connection connect, LocalDate[] periodEnds, CancellationToken token)
+			throws SQLException {
+		Set<LocalDate> fresh = new HashSet<LocalDate>();
+		try (PreparedStatement statement = connect.prepareStatement(SQL_FRESH_MONTHS)) {
+			QueryStats.tag(statement, "BuildingMonthKpis.freshMonths");
+			statement.setDate(1, Date.valueOf(periodEnds[0]));
+			statement.setDate(2, Date.valueOf(periodEnds[periodEnds.length - 1]));
+			ResultSet result = execute(statement, token);
+			while (result.next()) fresh.add(result.getDate("month").toLocalDate());
+		}
+
+		List<LocalDate> stale = new ArrayList<LocalDate>();
+		for (LocalDate periodEnd : periodEnds) {
+			if (!fresh.contains(periodEnd)) stale.add(periodEnd);
+		}
+		return stale.toArray(new LocalDate[0]);
+	}
+
+	/*
+	 * Write
+	 */
+
+	/**
+	 * Recomputes the entered months for every building in one transaction.
+	 * @param connect - Open connection
+	 * @param periodEnds - Last day of each month
+	 * @throws SQLException if a query fails
+	 */
+	public static void refreshMonths(Connection connect, LocalDate[] periodEnds) throws SQLException {
+		refreshMonths(connect, periodEnds, new CancellationToken());
+	}
+
+	/**
+	 * Recomputes the entered months for every building in one transaction, cancellable.
+	 * @param connect - Open connection
+	 * @param periodEnds - Last day of each month
+	 * @param token - Cancels the queries from another thread
+	 * @throws SQLException if a query fails or is cancelled
+	 */
+	public static void refreshMonths(Connection connect, LocalDate[] periodEnds, CancellationToken token)
+			throws SQLException {
+		List<MonthlyMetrics> months = MonthlyMetrics.loadByBuilding(connect, null, periodEnds, token);
+
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try {
+			try (PreparedStatement delete = connect.prepareStatement("DELETE FROM building_month_kpis WHERE `month` = ?");
+					PreparedStatement refreshed = connect.prepareStatement(
+							"INSERT INTO building_month_kpi_refresh (`month`, refreshed) VALUES (?, CURRENT_DATE()) "
+							+ "ON DUPLICATE KEY UPDATE refreshed = CURRENT_DATE()")) {
+				QueryStats.tag(delete, "BuildingMonthKpis.deleteMonths");
+				QueryStats.tag(refreshed, "BuildingMonthKpis.markRefreshed");
+				for (LocalDate periodEnd : periodEnds) {
+					delete.setDate(1, Date.valueOf(periodEnd));
+					delete.addBatch();
+					refreshed.setDate(1, Date.valueOf(periodEnd));
+					refreshed.addBatch();
+				}
+				executeBatch(delete, token);
+				insert(connect, months, token);
+				executeBatch(refreshed, token);
+			}
+			connect.commit();
+		} catch (SQLException err) {
+			connect.rollback();
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Recomputes the months of one building between two dates (inclusive), capped at the
+	 * current month. Used after a lease is added or a unit is removed.
+	 * @param connect - Open connection
+	 * @param building - Exact building name
+	 * @param from - Any day of the first month
+	 * @param to - Any day of the last month
+	 * @throws SQLException if a query fails
+	 */
+	public static void refreshBuilding(Connection connect, String building, LocalDate from, LocalDate to)
+			throws SQLException {
+		if (building == null) return;
+		LocalDate currentMonth = monthEnd(LocalDate.now());
+		List<LocalDate> periodEnds = new ArrayList<LocalDate>();
+		for (LocalDate month = monthEnd(from); !month.isAfter(monthEnd(to)) && !month.isAfter(currentMonth);
+				month = monthEnd(month.plusDays(1))) {
+			periodEnds.add(month);
+		}
+		if (periodEnds.isEmpty()) return;
+
+		LocalDate[] periods = periodEnds.toArray(new LocalDate[0]);
+		List<MonthlyMetrics> months = MonthlyMetrics.loadByBuilding(connect, building, periods);
+
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (PreparedStatement delete = connect.prepareStatement(
+				"DELETE FROM building_month_kpis WHERE building = ? AND `month` >= ? AND `month` <= ?")) {
+			delete.setString(1, building);
+			delete.setDate(2, Date.valueOf(periods[0]));
+			delete.setDate(3, Date.valueOf(periods[periods.length - 1]));
+			delete.executeUpdate();
+			insert(connect, months, new CancellationToken());
+			connect.commit();
+		} catch (SQLException err) {
+			connect.rollback();
+			if (!isMissingTable(err)) throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Adds a payment made today to the revenue of the buildings the resident leases in.
+	 * @param connect - Open connection
+	 * @param userid - Resident paying
+	 * @param amount - Payment amount
+	 * @throws SQLException if the update fails
+	 */
+	public static void recordPayment(Connection connect, int userid, double amount) throws SQLException {
+		LocalDate periodEnd = monthEnd(LocalDate.now());
+		String sqlQuery = """
+				INSERT INTO building_month_kpis (building, `month`, revenue)
+				SELECT DISTINCT u.building, ?, ?
+				FROM leases l
+				JOIN units u
+				ON l.unitid = u.id
+				WHERE l.userid = ? AND l.start < ? AND l.end > ? AND u.building IS NOT NULL
+				ON DUPLICATE KEY UPDATE revenue = revenue + ?
+				""";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setDate(1, Date.valueOf(periodEnd));
+			statement.setDouble(2, amount);
+			statement.setInt(3, userid);
+			statement.setDate(4, Date.valueOf(periodEnd));
+			statement.setDate(5, Date.valueOf(periodEnd.withDayOfMonth(1)));
+			statement.setDouble(6, amount);
+			statement.executeUpdate();
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+		}
+	}
+
+	/**
+	 * Counts a unit created today in its building's current month.
+	 * @param connect - Open connection
+	 * @param building - Building of the new unit
+	 * @throws SQLException if the update fails
+	 */
+	public static void recordNewUnit(Connection connect, String building) throws SQLException {
+		String sqlQuery = "INSERT INTO building_month_kpis (building, `month`, units) VALUES (?, ?, 1) "
+				+ "ON DUPLICATE KEY UPDATE units = units + 1";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setString(1, building);
+			statement.setDate(2, Date.valueOf(monthEnd(LocalDate.now())));
+			statement.executeUpdate();
+		} catch (SQLException err) {
+			if (!isMissingTable(err)) throw err;
+		}
+	}
+
+	/**
+	 * Recomputes the table from the first month with any unit, lease or payment up to
+	 * the current month.
+	 * @param connect - Open connection
+	 * @return number of building-month rows written
+	 * @throws SQLException if a query fails
+	 */
+	public static int rebuild(Connection connect) throws SQLException {
+		String sqlQuery = """
+				SELECT LEAST(
+				    COALESCE((SELECT MIN(created) FROM units), CURRENT_DATE()),
+				    COALESCE((SELECT MIN(`start`) FROM leases), CURRENT_DATE()),
+				    COALESCE((SELECT MIN(`date`) FROM payments), CURRENT_DATE())
+				) AS first_date
+				""";
+
+		LocalDate first = LocalDate.now();
+		try (Statement statement = connect.createStatement()) {
+			ResultSet result = statement.executeQuery(sqlQuery);
+			while (result.next()) first = result.getDate("first_date").toLocalDate();
+			statement.executeUpdate("DELETE FROM building_month_kpi_refresh");
+			statement.executeUpdate("DELETE FROM building_month_kpis");
+		}
+
+		// Recompute in chunks of months to bound the size of each transaction
+		LocalDate currentMonth = monthEnd(LocalDate.now());
+		List<LocalDate> chunk = new ArrayList<LocalDate>();
+		for (LocalDate month = monthEnd(first); !month.isAfter(currentMonth); month = monthEnd(month.plusDays(1))) {
+			chunk.add(month);
+			if (chunk.size() == REBUILD_CHUNK_MONTHS || month.equals(currentMonth)) {
+				refreshMonths(connect, chunk.toArray(new LocalDate[0]));
+				chunk.clear();
+			}
+		}
+
+		try (Statement statement = connect.createStatement()) {
+			ResultSet result = statement.executeQuery("SELECT COUNT(*) AS row_count FROM building_month_kpis");
+			result.next();
+			return result.getInt("row_count");
+		}
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Inserts computed months in one batch.
+	 */
+	private static void insert(Connection connect, List<MonthlyMetrics> months, CancellationToken token)
+			throws SQLException {
+		String sqlQuery = "INSERT INTO building_month_kpis "
+				+ "(building, `month`, units, occupied, rent_charged, area_rented, revenue) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			QueryStats.tag(statement, "BuildingMonthKpis.insert");
+			for (MonthlyMetrics month : months) {
+				statement.setString(1, month.getBuilding());
+				statement.setDate(2, Date.valueOf(month.getPeriodEnd()));
+				statement.setInt(3, month.getUnits());
+				statement.setInt(4, month.getOccupied());
+				statement.setInt(5, month.getRentCharged());
+				statement.setInt(6, month.getAreaRented());
+				statement.setDouble(7, month.getRevenue());
+				statement.addBatch();
+			}
+			executeBatch(statement, token);
+		}
+	}
+
+	/*
+	 * Runs the query while registered with the token so it can be cancelled mid flight.
+	 */
+	private static ResultSet execute(PreparedStatement statement, CancellationToken token) throws SQLException {
+		token.register(statement);
+		try {
+			return statement.executeQuery();
+		} finally {
+			token.unregister(statement);
+			token.throwIfCancelled();
+		}
+	}
+
+	/*
+	 * Runs the batch while registered with the token so it can be cancelled mid flight.
+	 */
+	private static void executeBatch(PreparedStatement statement, CancellationToken token) throws SQLException {
+		token.register(statement);
+		try {
+			statement.executeBatch();
+		} finally {
+			token.unregister(statement);
+			token.throwIfCancelled();
+		}
+	}
+
+	/*
+	 * True if the error is caused by the summary tables not being created yet, in
+	 * which case writes skip maintaining them.
+	 */
+	private static boolean isMissingTable(SQLException err) {
+		return err.getErrorCode() == ER_NO_SUCH_TABLE;
+	}
+
+	/**
+	 * @param date - Any day
+	 * @return the last day of the month of the date
+	 */
+	public static LocalDate monthEnd(LocalDate date) {
+		return date.withDayOfMonth(date.lengthOfMonth());
+	}
+
+	/**
+	 * Rebuilds building_month_kpis.
+	 * Arguments: database user and password of an account with all privileges.
+	 * @param args - user, password
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: BuildingMonthKpis <db user> <db password>");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			int rows = rebuild(connect);
+			System.out.println("[Rebuild building_month_kpis] --> SUCCESS (" + rows + " rows, "
+					+ (System.currentTimeMillis() - start) + " ms)");
+		} catch (SQLException err) {
+			System.out.println("[Rebuild building_month_kpis] --> FAILED");
+			err.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package main.java.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lets another thread cancel a chain of queries. Queries register their Statement while
+ * they run; cancel() marks the token and calls Statement.cancel() on the one in flight.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;
+	private Statement inFlight;
+
+	/**
+	 * Marks the statement as the one running for this token.
+	 * @param statement - Statement about to execute
+	 * @throws SQLException if the token was already cancelled
+	 */
+	public synchronized void register(Statement statement) throws SQLException {
+		throwIfCancelled();
+		inFlight = statement;
+	}
+
+	/**
+	 * Clears the running statement once it has finished.
+	 * @param statement - Statement that finished executing
+	 */
+	public synchronized void unregister(Statement statement) {
+		if (inFlight == statement) inFlight = null;
+	}
+
+	/**
+	 * Cancels the token and the statement currently running for it, if any.
+	 */
+	public void cancel() {
+		cancelled = true;
+		Statement statement;
+		synchronized (this) {
+			statement = inFlight;
+			inFlight = null;
+		}
+		if (statement == null) return;
+		try {
+			statement.cancel();
+		} catch (SQLException err) {
+			// Statement already finished or closed
+		}
+	}
+
+	/**
+	 * @return true if cancel() has been called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @throws SQLException if the token has been cancelled
+	 */
+	public void throwIfCancelled() throws SQLException {
+		if (cancelled) throw new SQLException("Query cancelled");
+	}
+}
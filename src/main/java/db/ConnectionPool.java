@@ -0,0 +1,409 @@
+package main.java.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import main.java.Page;
+import main.java.Session;
+
+/**
+ * A shared pool of JDBC connections, one pool per set of database credentials.
+ * Connections handed out by {@link #getConnection(String, String, String)} are wrappers
+ * whose close() returns the physical connection to the pool (and closes any statements
+ * opened on it), so the usual try-with-resources blocks work unchanged. Their statements
+ * are recorded by {@link QueryStats}.
+ * <p>
+ * Sizing can be set with the system properties "pool.minIdle", "pool.maxSize",
+ * "pool.idleTimeout" (ms), "pool.validateAfter" (ms) and "pool.borrowTimeout" (ms).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class ConnectionPool {
+
+	// Configuration
+	private static int minIdle = Integer.getInteger("pool.minIdle", 2);
+	private static int maxSize = Integer.getInteger("pool.maxSize", 8);
+	private static long idleTimeout = Long.getLong("pool.idleTimeout", 5 * 60 * 1000L);
+	private static long validateAfter = Long.getLong("pool.validateAfter", 5 * 1000L);
+	private static long borrowTimeout = Long.getLong("pool.borrowTimeout", 30 * 1000L);
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	// Pools by credentials
+	private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService evictor;
+
+	// Pool state
+	private final String url;
+	private final String user;
+	private final String pass;
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private int openCount = 0;
+
+	/*
+	 * Physical connection and the time it was last returned to the pool.
+	 */
+	private static class PooledConnection {
+		private final Connection connection;
+		private long lastUsed;
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.lastUsed = System.currentTimeMillis();
+		}
+	}
+
+	private ConnectionPool(String url, String user, String pass) {
+		this.url = url;
+		this.user = user;
+		this.pass = pass;
+	}
+
+	/*
+	 * Static Access
+	 */
+
+	/**
+	 * Borrows a connection for the entered credentials. Drop in replacement for
+	 * DriverManager.getConnection(url, user, pass); closing the returned connection
+	 * gives it back to the pool.
+	 * @param url - Database url
+	 * @param user - Database user
+	 * @param pass - Database password
+	 * @return pooled connection
+	 * @throws SQLException if no connection could be opened or borrowed in time
+	 */
+	public static Connection getConnection(String url, String user, String pass) throws SQLException {
+		return getPool(url, user, pass).borrow();
+	}
+
+	/**
+	 * Opens the minimum number of idle connections for every set of credentials the
+	 * session will use, in the background so log in is not delayed.
+	 * @param session - Current log-in session
+	 */
+	public static void warmUp(Session session) {
+		Thread warmUp = new Thread(() -> {
+			try {
+				getPool(session.getDbUrl(), Page.dbUsername, Page.dbPassword).fill();
+				if (session.isAdmin()) {
+					getPool(session.getDbUrl(), session.getUser(), session.getAdminPass()).fill();
+				}
+			} catch (SQLException err) {
+				err.printStackTrace();
+			}
+		}, "connection-pool-warm-up");
+		warmUp.setDaemon(true);
+		warmUp.start();
+	}
+
+	/**
+	 * Sets the pool sizing. Applies to existing and future pools.
+	 * @param minIdleConnections - Idle connections kept open per pool
+	 * @param maxConnections - Maximum open connections per pool
+	 * @param idleTimeoutMillis - Time before an idle connection above the minimum is closed
+	 */
+	public static synchronized void configure(int minIdleConnections, int maxConnections, long idleTimeoutMillis) {
+		if (minIdleConnections < 0 || maxConnections < 1 || minIdleConnections > maxConnections) {
+			throw new IllegalArgumentException("Invalid pool size: " + minIdleConnections + "/" + maxConnections);
+		}
+		minIdle = minIdleConnections;
+		maxSize = maxConnections;
+		idleTimeout = idleTimeoutMillis;
+	}
+
+	/**
+	 * @return the maximum number of open connections per pool
+	 */
+	public static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Closes every idle connection and forgets all pools. Borrowed connections are closed
+	 * when they are returned.
+	 */
+	public static void shutdown() {
+		for (ConnectionPool pool : pools.values()) pool.closeIdle();
+		pools.clear();
+	}
+
+	/*
+	 * Returns the pool for the credentials, creating it (and the idle evictor) if needed.
+	 */
+	private static ConnectionPool getPool(String url, String user, String pass) {
+		String key = url + '\u0000' + user + '\u0000' + pass;
+		ConnectionPool pool = pools.get(key);
+		if (pool == null) {
+			pool = pools.computeIfAbsent(key, k -> new ConnectionPool(url, user, pass));
+			startEvictor();
+		}
+		return pool;
+	}
+
+	/*
+	 * Starts the daemon that closes connections left idle past the timeout.
+	 */
+	private static synchronized void startEvictor() {
+		if (evictor != null) return;
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(() -> {
+			for (ConnectionPool pool : pools.values()) pool.evictIdle();
+		}, 30, 30, TimeUnit.SECONDS);
+	}
+
+	/*
+	 * Pool Methods
+	 */
+
+	/*
+	 * Takes an idle connection (validating it if it sat idle for a while) or opens a new one.
+	 * Waits for a connection to be returned when the pool is at its maximum size.
+	 */
+	private Connection borrow() throws SQLException {
+		long deadline = System.currentTimeMillis() + borrowTimeout;
+		while (true) {
+			PooledConnection pooled = null;
+			boolean open = false;
+			synchronized (this) {
+				while (idle.isEmpty() && openCount >= maxSize) {
+					long wait = deadline - System.currentTimeMillis();
+					if (wait <= 0) {
+						throw new SQLException("Timed out waiting for a database connection (pool size " + maxSize + ")");
+					}
+					try {
+						wait(wait);
+					} catch (InterruptedException err) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted while waiting for a database connection", err);
+					}
+				}
+				if (!idle.isEmpty()) pooled = idle.pollFirst();
+				else {
+					openCount++;
+					open = true;
+				}
+			}
+
+			// New connection
+			if (open) {
+				try {
+					return wrap(new PooledConnection(connect()));
+				} catch (SQLException err) {
+					release();
+					throw err;
+				}
+			}
+
+			// Validate on borrow
+			if (System.currentTimeMillis() - pooled.lastUsed < validateAfter || isValid(pooled.connection)) {
+				return wrap(pooled);
+			}
+			discard(pooled);
+		}
+	}
+
+	/*
+	 * Returns a physical connection to the pool, resetting any state a caller may have left.
+	 */
+	private void giveBack(PooledConnection pooled) {
+		try {
+			if (pooled.connection.isClosed()) {
+				release();
+				return;
+			}
+			if (!pooled.connection.getAutoCommit()) {
+				pooled.connection.rollback();
+				pooled.connection.setAutoCommit(true);
+			}
+		} catch (SQLException err) {
+			discard(pooled);
+			return;
+		}
+		pooled.lastUsed = System.currentTimeMillis();
+		synchronized (this) {
+			if (pools.containsValue(this)) {
+				idle.addFirst(pooled);
+				notifyAll();
+				return;
+			}
+		}
+		discard(pooled);
+	}
+
+	/*
+	 * Opens a physical connection. Batched inserts are rewritten by the driver into
+	 * multi-row statements, so a batch is one round trip.
+	 */
+	private Connection connect() throws SQLException {
+		Properties properties = new Properties();
+		properties.setProperty("user", user);
+		properties.setProperty("password", pass);
+		properties.setProperty("rewriteBatchedStatements", "true");
+		return DriverManager.getConnection(url, properties);
+	}
+
+	/*
+	 * Opens connections until the minimum idle count is reached.
+	 */
+	private void fill() throws SQLException {
+		while (true) {
+			synchronized (this) {
+				if (idle.size() >= minIdle || openCount >= maxSize) return;
+				openCount++;
+			}
+			try {
+				PooledConnection pooled = new PooledConnection(connect());
+				synchronized (this) {
+					idle.addLast(pooled);
+					notifyAll();
+				}
+			} catch (SQLException err) {
+				release();
+				throw err;
+			}
+		}
+	}
+
+	/*
+	 * Closes connections idle past the timeout, keeping the minimum idle count open.
+	 */
+	private void evictIdle() {
+		List<PooledConnection> expired = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+			while (oldestFirst.hasNext() && idle.size() - expired.size() > minIdle) {
+				PooledConnection pooled = oldestFirst.next();
+				if (now - pooled.lastUsed < idleTimeout) break;
+				oldestFirst.remove();
+				expired.add(pooled);
+			}
+		}
+		for (PooledConnection pooled : expired) discard(pooled);
+	}
+
+	/*
+	 * Closes every idle connection.
+	 */
+	private void closeIdle() {
+		List<PooledConnection> all;
+		synchronized (this) {
+			all = new ArrayList<>(idle);
+			idle.clear();
+		}
+		for (PooledConnection pooled : all) discard(pooled);
+	}
+
+	/*
+	 * Closes a physical connection and frees its slot.
+	 */
+	private void discard(PooledConnection pooled) {
+		try {
+			pooled.connection.close();
+		} catch (SQLException err) {
+			// Already broken
+		}
+		release();
+	}
+
+	private synchronized void release() {
+		openCount--;
+		notifyAll();
+	}
+
+	private static boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException err) {
+			return false;
+		}
+	}
+
+	/*
+	 * Connection Wrapper
+	 */
+
+	/*
+	 * Wraps a physical connection so close() returns it to this pool. Statements created
+	 * through the wrapper are closed when it is returned, since callers rely on closing
+	 * the connection to clean them up. Statements are instrumented by {@link QueryStats}.
+	 */
+	private Connection wrap(PooledConnection pooled) {
+		InvocationHandler handler = new InvocationHandler() {
+			private final List<Statement> statements = new ArrayList<>();
+			private boolean closed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if (name.equals("close")) {
+					closeHandle();
+					return null;
+				}
+				if (name.equals("isClosed")) return closed;
+				if (name.equals("equals")) return proxy == args[0];
+				if (name.equals("hashCode")) return System.identityHashCode(proxy);
+				if (name.equals("toString")) return "Pooled" + pooled.connection;
+				if (closed) throw new SQLException("Connection has been returned to the pool");
+
+				try {
+					Object result = method.invoke(pooled.connection, args);
+					if (result instanceof Statement) {
+						if (QueryStats.isEnabled()) {
+							String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+							result = QueryStats.instrument((Statement) result, method.getReturnType(), sql);
+						}
+						synchronized (statements) {
+							statements.add((Statement) result);
+						}
+					}
+					return result;
+				} catch (InvocationTargetException err) {
+					throw err.getCause();
+				}
+			}
+
+			private void closeHandle() {
+				synchronized (this) {
+					if (closed) return;
+					closed = true;
+				}
+				synchronized (statements) {
+					for (Statement statement : statements) {
+						try {
+							statement.close();
+						} catch (SQLException err) {
+							// Connection will be validated on next borrow
+						}
+					}
+					statements.clear();
+				}
+				giveBack(pooled);
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+}
@@ -0,0 +1,134 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import main.java.Page;
+
+/**
+ * Maintains the current_lease_id columns of units and users: the lease with the latest
+ * end date (highest id on a tie), so pages find a unit's or resident's current lease
+ * with a primary key lookup instead of grouping the whole leases table.
+ * <p>
+ * Inserting a lease must call recordLease(Connection, int) in the same transaction
+ * (LeaseService does).
+ * Run main() to rebuild both columns after loading leases outside the application.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class CurrentLeases {
+
+	private CurrentLeases() {}
+
+	/**
+	 * Makes a new lease the current lease of its unit and resident, unless either
+	 * already has a lease ending later.
+	 * @param connect - Open connection
+	 * @param leaseId - Id of the inserted lease
+	 * @throws SQLException if an update fails
+	 */
+	public static void recordLease(Connection connect, int leaseId) throws SQLException {
+		recordLeases(connect, new int[] {leaseId});
+	}
+
+	/**
+	 * Makes new leases the current leases of their units and residents, as one batch
+	 * per table. Leases are applied in order, so a later lease of the same unit or
+	 * resident wins if it ends later.
+	 * @param connect - Open connection
+	 * @param leaseIds - Ids of the inserted leases
+	 * @throws SQLException if an update fails
+	 */
+	public static void recordLeases(Connection connect, int[] leaseIds) throws SQLException {
+		try (PreparedStatement unit = connect.prepareStatement(buildRecordQuery("units", "id", "unitid"));
+				PreparedStatement user = connect.prepareStatement(buildRecordQuery("users", "uid", "userid"))) {
+			for (int leaseId : leaseIds) {
+				unit.setInt(1, leaseId);
+				unit.addBatch();
+				user.setInt(1, leaseId);
+				user.addBatch();
+			}
+			unit.executeBatch();
+			user.executeBatch();
+		}
+	}
+
+	/**
+	 * Recomputes the current lease of every unit and resident in one transaction.
+	 * @param connect - Open connection
+	 * @return number of units and residents with a current lease
+	 * @throws SQLException if a query fails
+	 */
+	public static int rebuild(Connection connect) throws SQLException {
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (Statement statement = connect.createStatement()) {
+			statement.executeUpdate(buildRebuildQuery("units", "id", "unitid"));
+			statement.executeUpdate(buildRebuildQuery("users", "uid", "userid"));
+			connect.commit();
+
+			int rows = 0;
+			ResultSet result = statement.executeQuery("SELECT "
+					+ "(SELECT COUNT(*) FROM units WHERE current_lease_id IS NOT NULL) "
+					+ "+ (SELECT COUNT(*) FROM users WHERE current_lease_id IS NOT NULL) AS row_count");
+			while (result.next()) rows = result.getInt("row_count");
+			return rows;
+		} catch (SQLException err) {
+			connect.rollback();
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Points the owner row of a lease (unit or resident) at it if it ends after the
+	 * owner's current lease.
+	 */
+	private static String buildRecordQuery(String table, String key, String leaseColumn) {
+		return "UPDATE " + table + " AS o "
+				+ "JOIN leases AS l ON l.id = ? AND o." + key + " = l." + leaseColumn + " "
+				+ "LEFT JOIN leases AS cur ON cur.id = o.current_lease_id "
+				+ "SET o.current_lease_id = l.id "
+				+ "WHERE cur.id IS NULL OR l.end > cur.end OR (l.end = cur.end AND l.id > cur.id)";
+	}
+
+	/*
+	 * Sets every owner row (unit or resident) to its latest lease.
+	 */
+	private static String buildRebuildQuery(String table, String key, String leaseColumn) {
+		return "UPDATE " + table + " SET current_lease_id = ("
+				+ "SELECT id FROM leases WHERE leases." + leaseColumn + " = " + table + "." + key + " "
+				+ "ORDER BY end DESC, id DESC LIMIT 1)";
+	}
+
+	/**
+	 * Rebuilds the current_lease_id columns.
+	 * Arguments: database user and password of an account with all privileges.
+	 * @param args - user, password
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: CurrentLeases <db user> <db password>");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			int rows = rebuild(connect);
+			System.out.println("[Rebuild current_lease_id] --> SUCCESS (" + rows + " rows, "
+					+ (System.currentTimeMillis() - start) + " ms)");
+		} catch (SQLException err) {
+			System.out.println("[Rebuild current_lease_id] --> FAILED");
+			err.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,283 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates leases together with their rent and service fee charges. Every lease of a
+ * call and all of its charges are inserted in one transaction with batched prepared
+ * statements (rewritten into multi-row inserts by the driver), along with the current
+ * lease and balance of the units and residents involved.
+ * <p>
+ * Only the charges of months already billed are inserted; BillingEngine posts the later
+ * months when they start. The billing runs are read with a shared lock, so a lease created
+ * while a month is being billed is billed for it exactly once.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class LeaseService {
+
+	private static final int ER_NO_SUCH_TABLE = 1146;
+	public static final double SERVICE_FEE = 3.99;
+
+	private LeaseService() {}
+
+	/**
+	 * Lease to create.
+	 */
+	public static class LeaseRequest {
+		private final LocalDate start;
+		private final LocalDate end;
+		private final int rent;
+		private final int unitid;
+		private final int userid;
+
+		/**
+		 * @param start - First day of the lease
+		 * @param end - Last day of the lease
+		 * @param rent - Monthly rent
+		 * @param unitid - Leased unit
+		 * @param userid - Resident
+		 */
+		public LeaseRequest(LocalDate start, LocalDate end, int rent, int unitid, int userid) {
+			this.start = start;
+			this.end = end;
+			this.rent = rent;
+			this.unitid = unitid;
+			this.userid = userid;
+		}
+	}
+
+	/**
+	 * Lease created, with the generated ids.
+	 */
+	public static class CreatedLease {
+		private final int leaseId;
+		private final List<Integer> chargeIds = new ArrayList<Integer>();
+
+		private CreatedLease(int leaseId) {
+			this.leaseId = leaseId;
+		}
+
+		/**
+		 * @return the id of the lease
+		 */
+		public int getLeaseId() {
+			return leaseId;
+		}
+
+		/**
+		 * @return the ids of the lease's charges
+		 */
+		public List<Integer> getChargeIds() {
+			return chargeIds;
+		}
+	}
+
+	/**
+	 * One charge of a lease.
+	 */
+	public static class Charge {
+		private final String name;
+		private final LocalDate date;
+		private final double amount;
+
+		private Charge(String name, LocalDate date, double amount) {
+			this.name = name;
+			this.date = date;
+			this.amount = amount;
+		}
+
+		/**
+		 * @return the name shown in the resident's ledger
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the posting date
+		 */
+		public LocalDate getDate() {
+			return date;
+		}
+
+		/**
+		 * @return the amount charged
+		 */
+		public double getAmount() {
+			return amount;
+		}
+	}
+
+	/**
+	 * Creates a lease and its charges in one transaction.
+	 * @param connect - Open connection
+	 * @param request - Lease to create
+	 * @return the created lease
+	 * @throws SQLException if an insert fails (nothing is created)
+	 */
+	public static CreatedLease createLease(Connection connect, LeaseRequest request) throws SQLException {
+		return createLeases(connect, List.of(request)).get(0);
+	}
+
+	/**
+	 * Creates several leases and their charges in one transaction, e.g. when assigning
+	 * a building's units at once.
+	 * @param connect - Open connection
+	 * @param requests - Leases to create
+	 * @return the created leases, in the order of the requests
+	 * @throws SQLException if an insert fails (nothing is created)
+	 */
+	public static List<CreatedLease> createLeases(Connection connect, List<LeaseRequest> requests) throws SQLException {
+		List<CreatedLease> created = new ArrayList<CreatedLease>();
+		if (requests.isEmpty()) return created;
+
+		boolean autoCommit = connect.getAutoCommit();
+		connect.setAutoCommit(false);
+		try (PreparedStatement leases = connect.prepareStatement(
+					"INSERT INTO leases(start, end, rent, unitid, userid) VALUES (?, ?, ?, ?, ?)",
+					Statement.RETURN_GENERATED_KEYS);
+				PreparedStatement charges = connect.prepareStatement(
+					"INSERT INTO charges(`name`,`date`,`amount`,`userid`) VALUES (?, ?, ?, ?)",
+					Statement.RETURN_GENERATED_KEYS)) {
+
+			// Leases
+			for (LeaseRequest request : requests) {
+				leases.setDate(1, Date.valueOf(request.start));
+				leases.setDate(2, Date.valueOf(request.end));
+				leases.setInt(3, request.rent);
+				leases.setInt(4, request.unitid);
+				leases.setInt(5, request.userid);
+				leases.addBatch();
+			}
+			leases.executeBatch();
+			ResultSet leaseKeys = leases.getGeneratedKeys();
+			while (leaseKeys.next()) created.add(new CreatedLease(leaseKeys.getInt(1)));
+			if (created.size() != requests.size()) throw new SQLException("Missing generated lease ids");
+
+			// Charges of the months already billed
+			List<YearMonth> billingRuns = loadBillingRuns(connect);
+			List<CreatedLease> chargeOwners = new ArrayList<CreatedLease>();
+			for (int i = 0; i < requests.size(); i++) {
+				LeaseRequest request = requests.get(i);
+				for (Charge charge : buildRentCharges(request.start, request.end, request.rent)) {
+					if (!isBilled(billingRuns, YearMonth.from(charge.date))) continue;
+					charges.setString(1, charge.name);
+					charges.setDate(2, Date.valueOf(charge.date));
+					charges.setDouble(3, charge.amount);
+					charges.setInt(4, request.userid);
+					charges.addBatch();
+					chargeOwners.add(created.get(i));
+				}
+			}
+			if (!chargeOwners.isEmpty()) {
+				charges.executeBatch();
+				ResultSet chargeKeys = charges.getGeneratedKeys();
+				for (int i = 0; chargeKeys.next() && i < chargeOwners.size(); i++) {
+					chargeOwners.get(i).chargeIds.add(chargeKeys.getInt(1));
+				}
+			}
+
+			// Current leases and balances
+			int[] leaseIds = new int[created.size()];
+			for (int i = 0; i < leaseIds.length; i++) leaseIds[i] = created.get(i).leaseId;
+			CurrentLeases.recordLeases(connect, leaseIds);
+			Set<Integer> residents = new LinkedHashSet<Integer>();
+			for (LeaseRequest request : requests) residents.add(request.userid);
+			for (int userid : residents) AccountBalances.refreshAccount(connect, userid);
+
+			connect.commit();
+			return created;
+		} catch (SQLException err) {
+			connect.rollback();
+			throw err;
+		} finally {
+			connect.setAutoCommit(autoCommit);
+		}
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Months with a billing run, oldest first (shared lock until commit). Empty if billing
+	 * runs are not set up, in which case every month of a lease is charged.
+	 */
+	private static List<YearMonth> loadBillingRuns(Connection connect) throws SQLException {
+		List<YearMonth> runs = new ArrayList<YearMonth>();
+		try (Statement statement = connect.createStatement()) {
+			ResultSet result = statement.executeQuery(
+					"SELECT period FROM billing_runs ORDER BY period LOCK IN SHARE MODE");
+			while (result.next()) runs.add(YearMonth.from(result.getDate("period").toLocalDate()));
+		} catch (SQLException err) {
+			if (err.getErrorCode() != ER_NO_SUCH_TABLE) throw err;
+		}
+		return runs;
+	}
+
+	/*
+	 * True if the month was billed: before the first billing run (billed when the leases
+	 * were created), or with a run of its own. Missed months are left to the catch-up.
+	 */
+	private static boolean isBilled(List<YearMonth> runs, YearMonth month) {
+		if (runs.isEmpty()) return true;
+		if (month.isBefore(runs.get(0))) return true;
+		return runs.contains(month);
+	}
+
+	/**
+	 * Builds the monthly rent and service fee charges of a lease. Months the lease
+	 * only covers part of are prorated by day.
+	 * @param leaseStart - First day of the lease
+	 * @param leaseEnd - Last day of the lease
+	 * @param monthlyRent - Monthly rent
+	 * @return charges from the last month to the first
+	 */
+	public static List<Charge> buildRentCharges(LocalDate leaseStart, LocalDate leaseEnd, int monthlyRent) {
+		List<Charge> charges = new ArrayList<Charge>();
+
+		// Loop while the term end count is ahead of the lease start
+		LocalDate termEndCount = leaseEnd;
+		while (!termEndCount.isBefore(leaseStart)) {
+
+			// Sets start of term to first of the month (based on term end), or the lease start
+			LocalDate termStartCount = termEndCount.withDayOfMonth(1);
+			if (termStartCount.isBefore(leaseStart)) termStartCount = leaseStart;
+
+			// Rent, prorated for part of a month
+			int termLengthDays = termEndCount.getDayOfMonth() - (termStartCount.getDayOfMonth() - 1);
+			int rentAmount = (int) (((double) termLengthDays / (double) termEndCount.lengthOfMonth())
+					* (double) monthlyRent);
+
+			String chargeName = "Rent (" + termStartCount.format(DateTimeFormatter.ofPattern("MM/yyyy")) + ")";
+			if (termLengthDays != termEndCount.lengthOfMonth()) {
+				chargeName += " - (" + termLengthDays + "/" + termEndCount.lengthOfMonth() + " days)";
+			}
+			charges.add(new Charge(chargeName, termStartCount, rentAmount));
+
+			// Service fee
+			String serviceFeeName = "Service Fee ("
+					+ termStartCount.format(DateTimeFormatter.ofPattern("MM/yyyy")) + ")";
+			charges.add(new Charge(serviceFeeName, termStartCount, SERVICE_FEE));
+
+			// Previous month
+			termEndCount = termEndCount.minusMonths(1);
+			termEndCount = termEndCount.withDayOfMonth(termEndCount.lengthOfMonth());
+		}
+		return charges;
+	}
+}
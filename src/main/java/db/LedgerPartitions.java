@@ -0,0 +1,90 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import main.java.Page;
+
+/**
+ * Adds yearly partitions to the charges and payments tables (see migration 007).
+ * Each year gets a partition of its own, split out of the catch-all "pmax"
+ * partition, so queries bounded by date keep reading only the years they cover.
+ * Run main() at least once a year to cover the years ahead.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class LedgerPartitions {
+
+	private static final String[] TABLES = {"charges", "payments"};
+	private static final int YEARS_AHEAD = 3;
+
+	private LedgerPartitions() {}
+
+	/**
+	 * Adds a partition for every year up to the entered one that does not have one yet.
+	 * Tables that are not partitioned are skipped.
+	 * @param connect - Open connection with all privileges
+	 * @param throughYear - Last year to partition
+	 * @return number of partitions added
+	 * @throws SQLException if a statement fails
+	 */
+	public static int addYears(Connection connect, int throughYear) throws SQLException {
+		int added = 0;
+		for (String table : TABLES) {
+			int lastYear = getLastYear(connect, table);
+			if (lastYear == 0) continue;
+			for (int year = lastYear + 1; year <= throughYear; year++) {
+				String sqlQuery = "ALTER TABLE `" + table + "` REORGANIZE PARTITION pmax INTO ("
+						+ "PARTITION p" + year + " VALUES LESS THAN ('" + (year + 1) + "-01-01'), "
+						+ "PARTITION pmax VALUES LESS THAN (MAXVALUE))";
+				try (Statement statement = connect.createStatement()) {
+					statement.executeUpdate(sqlQuery);
+				}
+				added++;
+			}
+		}
+		return added;
+	}
+
+	/*
+	 * Last year with a partition of its own, 0 if the table is not partitioned.
+	 */
+	private static int getLastYear(Connection connect, String table) throws SQLException {
+		String sqlQuery = """
+				SELECT MAX(CAST(SUBSTRING(PARTITION_NAME, 2) AS UNSIGNED)) AS last_year, COUNT(*) AS partitions
+				FROM information_schema.PARTITIONS
+				WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME REGEXP '^p[0-9]{4}$'
+				""";
+
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setString(1, table);
+			ResultSet result = statement.executeQuery();
+			return (result.next() && result.getInt("partitions") > 0) ? result.getInt("last_year") : 0;
+		}
+	}
+
+	/**
+	 * Adds the partitions of the years ahead.
+	 * Arguments: database user and password of an account with all privileges.
+	 * @param args - user, password
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: LedgerPartitions <db user> <db password>");
+			return;
+		}
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			int added = addYears(connect, LocalDate.now().getYear() + YEARS_AHEAD);
+			System.out.println("[Partition charges, payments] --> SUCCESS (" + added + " partitions added)");
+		} catch (SQLException err) {
+			System.out.println("[Partition charges, payments] --> FAILED");
+			err.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package main.java.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Month bucketed building metrics (units, occupied units, rent charged, area rented and
+ * payment revenue). Each metric is one grouped query joined against a calendar of the
+ * requested months, instead of one query per metric per month.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class MonthlyMetrics {
+
+	// Months of the dashboard series
+	public static final int DASHBOARD_MONTHS = 24;
+
+	// Building conditions of the metric queries
+	static final String BUILDING_LIKE = "u.building LIKE ?";
+	static final String BUILDING_EQUALS = "u.building = ?";
+	static final String ANY_BUILDING = "u.building IS NOT NULL";
+
+	private final String building;
+	private final LocalDate periodEnd;
+	private int units;
+	private int occupied;
+	private int rentCharged;
+	private int areaRented;
+	private double revenue;
+
+	/**
+	 * Creates an empty month for a set of buildings.
+	 * @param periodEnd - Last day of the month
+	 */
+	public MonthlyMetrics(LocalDate periodEnd) {
+		this(null, periodEnd);
+	}
+
+	/**
+	 * Creates an empty month for one building.
+	 * @param building - Building name, null for a set of buildings
+	 * @param periodEnd - Last day of the month
+	 */
+	public MonthlyMetrics(String building, LocalDate periodEnd) {
+		this.building = building;
+		this.periodEnd = periodEnd;
+	}
+
+	/**
+	 * Creates a month with its values (read back from building_month_kpis).
+	 * @param building - Building name, null for a set of buildings
+	 * @param periodEnd - Last day of the month
+	 * @param units - Units created by the end of the month
+	 * @param occupied - Units leased during the month
+	 * @param rentCharged - Monthly rent of the leased units
+	 * @param areaRented - Square feet of the leased units
+	 * @param revenue - Payments received during the month
+	 */
+	public MonthlyMetrics(String building, LocalDate periodEnd, int units, int occupied, int rentCharged,
+			int areaRented, double revenue) {
+		this(building, periodEnd);
+		this.units = units;
+		this.occupied = occupied;
+		this.rentCharged = rentCharged;
+		this.areaRented = areaRented;
+		this.revenue = revenue;
+	}
+
+	/*
+	 * SQL Methods
+	 */
+
+	/**
+	 * Loads the metrics of every month for the units whose building matches the entered
+	 * building (same LIKE matching as the rest of the dashboard, "" for all buildings).
+	 * @param connect - Open connection
+	 * @param building - Building name or part of it
+	 * @param periodEnds - Last day of each month, in order
+	 * @param token - Cancels the queries from another thread
+	 * @return metrics for each month, in the order of periodEnds
+	 * @throws SQLException if a query fails or is cancelled
+	 */
+	public static MonthlyMetrics[] load(Connection connect, String building, LocalDate[] periodEnds,
+			CancellationToken token) throws SQLException {
+		Map<String, MonthlyMetrics> byKey = new LinkedHashMap<String, MonthlyMetrics>();
+		for (LocalDate periodEnd : periodEnds) byKey.put(key(null, periodEnd), new MonthlyMetrics(periodEnd));
+		if (periodEnds.length > 0) {
+			query(connect, false, BUILDING_LIKE, "%" + building + "%", periodEnds, token, byKey);
+		}
+		return byKey.values().toArray(new MonthlyMetrics[0]);
+	}
+
+	/**
+	 * Loads the metrics of every month separately for each building. Buildings with
+	 * nothing to count in a month have no entry for it.
+	 * @param connect - Open connection
+	 * @param building - Exact building name, null for every building
+	 * @param periodEnds - Last day of each month, in order
+	 * @return metrics for each building and month
+	 * @throws SQLException if a query fails
+	 */
+	public static List<MonthlyMetrics> loadByBuilding(Connection connect, String building, LocalDate[] periodEnds)
+			throws SQLException {
+		return loadByBuilding(connect, building, periodEnds, new CancellationToken());
+	}
+
+	/**
+	 * Loads the metrics of every month separately for each building, cancellable.
+	 * @param connect - Open connection
+	 * @param building - Exact building name, null for every building
+	 * @param periodEnds - Last day of each month, in order
+	 * @param token - Cancels the queries from another thread
+	 * @return metrics for each building and month
+	 * @throws SQLException if a query fails or is cancelled
+	 */
+	public static List<MonthlyMetrics> loadByBuilding(Connection connect, String building, LocalDate[] periodEnds,
+			CancellationToken token) throws SQLException {
+		Map<String, MonthlyMetrics> byKey = new LinkedHashMap<String, MonthlyMetrics>();
+		if (periodEnds.length > 0) {
+			query(connect, true, (building == null) ? ANY_BUILDING : BUILDING_EQUALS, building,
+					periodEnds, token, byKey);
+		}
+		return new ArrayList<MonthlyMetrics>(byKey.values());
+	}
+
+	/*
+	 * Runs the three metric queries and adds the results to the months in byKey, creating
+	 * the missing (building, month) entries when grouping by building.
+	 */
+	private static void query(Connection connect, boolean byBuilding, String buildingCondition, String buildingParam,
+			LocalDate[] periodEnds, CancellationToken token, Map<String, MonthlyMetrics> byKey) throws SQLException {
+		int monthCount = periodEnds.length;
+		String sqlGetRevenue = revenueSql(byBuilding, buildingCondition, monthCount);
+		String sqlGetLeased = leasedSql(byBuilding, buildingCondition, monthCount);
+		String sqlGetUnitAmount = unitCountSql(byBuilding, buildingCondition, monthCount);
+		String grouping = byBuilding ? "ByBuilding" : "";
+
+		try (PreparedStatement statement = prepare(connect, sqlGetRevenue, periodEnds, true, buildingParam)) {
+			QueryStats.tag(statement, "MonthlyMetrics.revenue" + grouping);
+			ResultSet result = execute(statement, token);
+			while (result.next()) {
+				MonthlyMetrics month = getMonth(result, byBuilding, byKey);
+				if (month != null) month.revenue = result.getDouble("revenue");
+			}
+		}
+
+		try (PreparedStatement statement = prepare(connect, sqlGetLeased, periodEnds, false, buildingParam)) {
+			QueryStats.tag(statement, "MonthlyMetrics.leased" + grouping);
+			ResultSet result = execute(statement, token);
+			while (result.next()) {
+				MonthlyMetrics month = getMonth(result, byBuilding, byKey);
+				if (month == null) continue;
+				month.rentCharged = result.getInt("rent_charged");
+				month.areaRented = result.getInt("area_rented");
+				month.occupied = result.getInt("occupied");
+			}
+		}
+
+		try (PreparedStatement statement = prepare(connect, sqlGetUnitAmount, periodEnds, false, buildingParam)) {
+			QueryStats.tag(statement, "MonthlyMetrics.unitCount" + grouping);
+			ResultSet result = execute(statement, token);
+			while (result.next()) {
+				MonthlyMetrics month = getMonth(result, byBuilding, byKey);
+				if (month != null) month.units = result.getInt("unit_count");
+			}
+		}
+	}
+
+	/*
+	 * Revenue per month (and building). Parameters: the calendar, the first and last day
+	 * of all months, then the building (if the condition has one).
+	 */
+	static String revenueSql(boolean byBuilding, String buildingCondition, int monthCount) {
+		String calendar = buildCalendar(monthCount);
+		String groupColumn = byBuilding ? "building, " : "";
+		String unitsGroupColumn = byBuilding ? "u.building AS building, " : "";
+
+		// Payments from residents with a lease in the building during the month (the
+		// constant date range lets the partitioned payments table skip other years)
+		return "SELECT " + groupColumn + "period_end, ROUND(SUM(amount), 2) AS revenue "
+				+ "FROM ( "
+				+ "    SELECT DISTINCT " + unitsGroupColumn + "m.period_end, p.id, p.amount "
+				+ "    FROM " + calendar + " "
+				+ """
+				    JOIN payments p
+				    ON p.date >= m.period_start AND p.date <= m.period_end
+				    AND p.date >= ? AND p.date <= ?
+				    JOIN leases l
+				    ON l.userid = p.userid
+				    AND l.start < m.period_end
+				    AND l.end > m.period_start
+				    JOIN units u
+				    ON l.unitid = u.id
+				"""
+				+ "    WHERE " + buildingCondition + " "
+				+ ") AS payments_in_period "
+				+ "GROUP BY " + groupColumn + "period_end";
+	}
+
+	/*
+	 * Leased units, rent and area per month (and building). Parameters: the calendar,
+	 * then the building (if the condition has one).
+	 */
+	static String leasedSql(boolean byBuilding, String buildingCondition, int monthCount) {
+		String calendar = buildCalendar(monthCount);
+		String groupColumn = byBuilding ? "building, " : "";
+		String unitsGroupColumn = byBuilding ? "u.building AS building, " : "";
+
+		// Leased units, one lease per unit and month
+		return "SELECT " + groupColumn + "period_end, "
+				+ "SUM(rent) AS rent_charged, SUM(sqft) AS area_rented, COUNT(unitid) AS occupied "
+				+ "FROM ( "
+				+ "    SELECT " + unitsGroupColumn + "m.period_end, l.unitid, MAX(l.rent) AS rent, MAX(u.sqft) AS sqft "
+				+ "    FROM " + calendar + " "
+				+ """
+				    JOIN leases l
+				    ON l.end > m.period_start
+				    AND l.start < m.period_end
+				    AND (l.end >= CURRENT_DATE() OR l.end > m.period_end)
+				    JOIN units u
+				    ON l.unitid = u.id
+				"""
+				+ "    WHERE " + buildingCondition + " "
+				+ "    AND u.created < m.period_end "
+				+ "    GROUP BY " + (byBuilding ? "u.building, " : "") + "m.period_end, l.unitid "
+				+ ") AS leases_in_count "
+				+ "GROUP BY " + groupColumn + "period_end";
+	}
+
+	/*
+	 * Units created by the end of each month (per building). Parameters: the calendar,
+	 * then the building (if the condition has one).
+	 */
+	static String unitCountSql(boolean byBuilding, String buildingCondition, int monthCount) {
+		String calendar = buildCalendar(monthCount);
+		String unitsGroupColumn = byBuilding ? "u.building AS building, " : "";
+
+		// Units created by the end of the month
+		return "SELECT " + unitsGroupColumn + "m.period_end, COUNT(u.id) AS unit_count "
+				+ "FROM " + calendar + " "
+				+ "LEFT JOIN units u "
+				+ "ON u.created <= m.period_end "
+				+ "AND " + buildingCondition + " "
+				+ "GROUP BY " + (byBuilding ? "u.building, " : "") + "m.period_end";
+	}
+
+	/*
+	 * Finds (or creates, when grouping by building) the month of a result row.
+	 */
+	private static MonthlyMetrics getMonth(ResultSet result, boolean byBuilding, Map<String, MonthlyMetrics> byKey)
+			throws SQLException {
+		LocalDate periodEnd = result.getDate("period_end").toLocalDate();
+		if (!byBuilding) return byKey.get(key(null, periodEnd));
+
+		String building = result.getString("building");
+		if (building == null) return null;
+		return byKey.computeIfAbsent(key(building, periodEnd), k -> new MonthlyMetrics(building, periodEnd));
+	}
+
+	private static String key(String building, LocalDate periodEnd) {
+		return (building == null) ? periodEnd.toString() : building + '\u0000' + periodEnd;
+	}
+
+	/*
+	 * Runs the query while registered with the token so it can be cancelled mid flight.
+	 */
+	private static ResultSet execute(PreparedStatement statement, CancellationToken token) throws SQLException {
+		token.register(statement);
+		try {
+			return statement.executeQuery();
+		} finally {
+			token.unregister(statement);
+			token.throwIfCancelled();
+		}
+	}
+
+	/*
+	 * Derived table with one (period_start, period_end) row per month, aliased "m".
+	 */
+	private static String buildCalendar(int monthCount) {
+		StringBuilder calendar = new StringBuilder("(");
+		for (int i = 0; i < monthCount; i++) {
+			if (i > 0) calendar.append(" UNION ALL ");
+			calendar.append("SELECT CAST(? AS DATE) AS period_start, CAST(? AS DATE) AS period_end");
+		}
+		return calendar.append(") AS m").toString();
+	}
+
+	private static PreparedStatement prepare(Connection connect, String sql, LocalDate[] periodEnds,
+			boolean dateRange, String buildingParam) throws SQLException {
+		PreparedStatement statement = connect.prepareStatement(sql);
+		bind(statement, periodEnds, dateRange, buildingParam);
+		return statement;
+	}
+
+	/*
+	 * Binds the calendar dates, then the first and last day of all months (if dateRange),
+	 * followed by the building parameter (if any).
+	 */
+	static void bind(PreparedStatement statement, LocalDate[] periodEnds, boolean dateRange, String buildingParam)
+			throws SQLException {
+		int index = 1;
+		LocalDate first = periodEnds[0].withDayOfMonth(1);
+		LocalDate last = periodEnds[0];
+		for (LocalDate periodEnd : periodEnds) {
+			statement.setDate(index++, Date.valueOf(periodEnd.withDayOfMonth(1)));
+			statement.setDate(index++, Date.valueOf(periodEnd));
+			if (periodEnd.withDayOfMonth(1).isBefore(first)) first = periodEnd.withDayOfMonth(1);
+			if (periodEnd.isAfter(last)) last = periodEnd;
+		}
+		if (dateRange) {
+			statement.setDate(index++, Date.valueOf(first));
+			statement.setDate(index++, Date.valueOf(last));
+		}
+		if (buildingParam != null) statement.setString(index, buildingParam);
+	}
+
+	/**
+	 * @return the building, or null if this month covers a set of buildings
+	 */
+	public String getBuilding() {
+		return building;
+	}
+
+	/**
+	 * @return the last day of the month
+	 */
+	public LocalDate getPeriodEnd() {
+		return periodEnd;
+	}
+
+	/**
+	 * @return the number of units created by the end of the month
+	 */
+	public int getUnits() {
+		return units;
+	}
+
+	/**
+	 * @return the number of units leased during the month
+	 */
+	public int getOccupied() {
+		return occupied;
+	}
+
+	/**
+	 * @return the monthly rent of the leased units
+	 */
+	public int getRentCharged() {
+		return rentCharged;
+	}
+
+	/**
+	 * @return the square feet of the leased units
+	 */
+	public int getAreaRented() {
+		return areaRented;
+	}
+
+	/**
+	 * @return the payments received during the month
+	 */
+	public double getRevenue() {
+		return revenue;
+	}
+}
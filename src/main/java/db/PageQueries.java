@@ -0,0 +1,250 @@
+package main.java.db;
+
+/**
+ * SQL of the queries the pages run to fill their tables and panels. The pages and
+ * SchemaMigrator's verify mode use the same text, so the query plans checked before a
+ * release are the plans of the queries the application issues.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public final class PageQueries {
+
+	// Rows per page of the complaint log and the resident ledger
+	public static final int COMPLAINT_PAGE_SIZE = 100;
+	public static final int LEDGER_PAGE_SIZE = 50;
+
+	private PageQueries() {}
+
+	/*
+	 * Dashboard
+	 */
+
+	/**
+	 * Buildings with at least one unit, for the View panel and the cache warm up.
+	 */
+	public static final String BUILDING_LIST = "SELECT building FROM units WHERE deleted = 0 GROUP BY units.building";
+
+	/**
+	 * Units, vacant units and area of the buildings matching a LIKE pattern (1: pattern).
+	 */
+	public static final String BUILDING_SUMMARY = """
+			SELECT
+				COUNT(unit) AS unit_count,
+				COUNT(IF(current_lease_end < CURRENT_DATE(), 1, NULL)) AS vacant,
+				SUM(sqft) AS area
+
+			FROM
+				(
+				SELECT building, unit, current_lease_end, rent, sqft
+				FROM
+					(SELECT id, building, floor, unit, sqft, current_lease_id FROM units WHERE deleted = 0) as units
+
+					LEFT JOIN (SELECT `id` AS lease_id, `end` AS 'current_lease_end', `rent` FROM `leases`) as l
+					ON units.current_lease_id = l.lease_id
+				) AS all_units
+			WHERE building LIKE ?
+			""";
+
+	/**
+	 * Open complaints of the buildings matching a LIKE pattern (1: pattern).
+	 */
+	public static final String BUILDING_OPEN_COMPLAINTS = """
+			SELECT COUNT(IF(complaint_count.status = 'open', 1, NULL)) as open_complaints
+			FROM (
+			    SELECT `status`, unitid, building
+			    FROM `complaints`
+			    JOIN units
+			    ON complaints.unitid = units.id
+			    WHERE `status` = 'open'
+			    AND building LIKE ?
+			) AS complaint_count
+			""";
+
+	/*
+	 * Complaints
+	 */
+
+	/**
+	 * Builds the query of one page of the complaint log, newest first. Parameters: the
+	 * resident (if resident), the log date, log date and id of the last complaint of the
+	 * previous page (if after), then the page size.
+	 * @param resident - Only the complaints of one resident
+	 * @param after - Keyset condition for the pages after the first
+	 * @return SQL of the page
+	 */
+	public static String complaintPage(boolean resident, boolean after) {
+		return """
+				SELECT `complaints`.`id`, `complaints`.`log_date`, `complaints`.`event_date`,
+				`complaints`.`subject`, `complaints`.`description`, `complaints`.`status`,
+				`complaints`.`userid`, `complaints`.`unitid`, `users`.`user`, `users`.`first_name`,
+				`users`.`last_name`,`users`.`email`, `users`.`phone`, `units`.`unit`, `units`.`building`
+				,`users`.`type`
+				FROM `complaints`
+
+				JOIN `users`
+				ON complaints.`userid` = `users`.`uid`
+
+				LEFT JOIN `units`
+				ON complaints.`unitid` = `units`.`id`
+
+				WHERE 1 = 1
+				"""
+				+ (resident ? "AND `complaints`.`userid` = ? " : "")
+				+ (after ? "AND (`complaints`.`log_date` < ? OR (`complaints`.`log_date` = ? AND `complaints`.`id` < ?)) " : "")
+				+ "ORDER BY `complaints`.`log_date` DESC, `complaints`.`id` DESC LIMIT ?";
+	}
+
+	/**
+	 * Builds the complaint count of the log (1: resident, if resident).
+	 * @param resident - Only the complaints of one resident
+	 * @return SQL of the count
+	 */
+	public static String complaintCount(boolean resident) {
+		return "SELECT COUNT(*) FROM `complaints`" + (resident ? " WHERE `userid` = ?" : "");
+	}
+
+	/*
+	 * Resident Dashboard
+	 */
+
+	/**
+	 * Lease, unit and balance of one resident (1: resident). The balance includes the
+	 * charges that came due since the billing job last posted the account, so it starts
+	 * the ledger at the same date as the first ledger page.
+	 */
+	public static final String RESIDENT_INFO = """
+			SELECT `uid`,`user`,`start`,`recent_lease_end`,`unit`,`building`,
+				ROUND(b.`charges` - b.`payments` + (
+					SELECT COALESCE(SUM(c.amount), 0) FROM charges AS c
+					WHERE c.userid = b.userid AND c.date > b.posted_through AND c.date <= CURRENT_DATE()
+				), 2) AS balance
+			FROM (SELECT * FROM `users` WHERE users.type = 'general' AND deleted = 0 AND uid = ?) AS u
+
+			    LEFT JOIN (SELECT `id` AS lease_id, `start`, `end` AS 'recent_lease_end', `unitid` FROM `leases`) AS l
+			    ON u.current_lease_id = l.lease_id
+
+			    LEFT JOIN (SELECT `id`,`unit`,`building` FROM `units`) AS u2
+			    ON l.unitid = u2.id
+
+			    LEFT JOIN account_balances AS b
+			    ON u.uid = b.userid
+			""";
+
+	/**
+	 * Oldest date and count of the next rows of a resident's ledger before a date
+	 * (1: resident, 2: before, 3: rows, 4: resident, 5: before, 6: rows, 7: rows).
+	 */
+	public static final String LEDGER_START = """
+			SELECT MIN(date) AS oldest, COUNT(*) AS row_count
+			FROM (
+				(SELECT date FROM charges WHERE userid = ? AND date < ? ORDER BY date DESC LIMIT ?)
+				UNION ALL
+				(SELECT date FROM payments WHERE userid = ? AND date < ? ORDER BY date DESC LIMIT ?)
+				ORDER BY date DESC LIMIT ?
+			) AS next_rows
+			""";
+
+	/**
+	 * Charges and payments of a resident between two dates, newest first
+	 * (1: resident, 2: start, 3: before, 4: resident, 5: start, 6: before).
+	 */
+	public static final String LEDGER_PAGE = """
+			(SELECT userid, 'charge' AS type, date, name, amount AS charge, 0 AS payment, id
+			FROM charges
+			WHERE userid = ? AND date >= ? AND date < ?)
+			UNION ALL
+			(SELECT userid, 'payment' AS type, date, name, 0 AS charge, amount AS payment, id
+			FROM payments
+			WHERE userid = ? AND date >= ? AND date < ?)
+			ORDER BY date DESC, charge
+			""";
+
+	/*
+	 * Resident Manager
+	 */
+
+	/**
+	 * Every resident with their most recent lease and balance, by username.
+	 */
+	public static final String RESIDENT_LIST = """
+			SELECT * FROM (
+			SELECT `uid`,`user`,`email`,`phone`,`first_name`,`last_name`,`start`,`recent_lease_end`,`unit`,`building`,b.`charges` AS sum_charges,b.`payments` AS sum_payments
+			FROM (SELECT * FROM `users` WHERE users.type = 'general' AND deleted = 0) AS u
+
+			    LEFT JOIN (SELECT `id` AS lease_id, `start`, `end` AS 'recent_lease_end', `unitid` FROM `leases`) AS l
+			    ON u.current_lease_id = l.lease_id
+
+			    LEFT JOIN (SELECT `id`,`unit`,`building` FROM `units`) AS u2
+			    ON l.unitid = u2.id
+
+			    LEFT JOIN account_balances AS b
+			    ON u.uid = b.userid
+
+			) AS resident_manager
+			ORDER BY `resident_manager`.`user` ASC
+			""";
+
+	/*
+	 * Unit Manager
+	 */
+
+	/**
+	 * Every unit with its current lease, resident and balance, by building, floor and unit.
+	 */
+	public static final String UNIT_LIST = """
+			SELECT list_unitid, building, floor, unit,
+			IF(last_name IS NULL,first_name,CONCAT(first_name, ' ', last_name)) AS name,
+			current_lease_end, rent,
+			IF(b.userid IS NULL,0,ROUND(b.charges - b.payments, 2)) AS balance
+			FROM
+				(SELECT id AS list_unitid, building, floor, unit, current_lease_id FROM units WHERE deleted = 0) as units
+
+				LEFT JOIN (SELECT `id` AS lease_id, `end` AS 'current_lease_end', `rent`, `userid` FROM `leases`) as l
+			    ON units.current_lease_id = l.lease_id
+
+				LEFT JOIN users
+			    ON l.userid = users.uid
+
+				LEFT JOIN account_balances AS b
+			    ON l.userid = b.userid
+
+			ORDER BY building, floor, unit
+			""";
+
+	/**
+	 * Units, vacant units, units with a balance and leases ending in two months.
+	 */
+	public static final String UNIT_SUMMARY = """
+			SELECT
+			COUNT(unit) AS unit_count,
+			COUNT(IF(current_lease_end < CURRENT_DATE(), 1, NULL)) AS vacant,
+			COUNT(IF(balance > 0, 1, NULL)) AS outstanding,
+			COUNT(IF(current_lease_end >= CURRENT_DATE() AND current_lease_end < DATE_ADD(NOW(), INTERVAL 2 MONTH), 1, NULL)) AS ending
+
+			FROM (SELECT building, floor, unit, CONCAT(first_name, ' ', last_name) AS name, current_lease_end, rent, ROUND(b.charges - b.payments, 2) AS balance
+			FROM
+			(SELECT id, building, floor, unit, current_lease_id FROM units WHERE deleted = 0) as units
+
+			LEFT JOIN (SELECT `id` AS lease_id, `end` AS 'current_lease_end', `rent`, `userid` FROM `leases`) as l
+			ON units.current_lease_id = l.lease_id
+
+			LEFT JOIN users
+			ON l.userid = users.uid
+
+			LEFT JOIN account_balances AS b
+			ON l.userid = b.userid
+			) AS all_units
+			""";
+
+	/**
+	 * Residents with no unit or in a unit, for assigning the unit (1: unit).
+	 */
+	public static final String UNASSIGNED_RESIDENTS = """
+			SELECT uid, user, IF(users.last_name IS NULL, users.first_name, CONCAT(users.first_name, ' ',users.last_name)) AS name, unitid
+			FROM users
+			LEFT JOIN (SELECT `id` AS lease_id, `unitid` FROM `leases`) AS l
+			ON users.current_lease_id = l.lease_id
+			WHERE (unitid = ? OR unitid IS NULL) AND users.type = 'general' ORDER BY user
+			""";
+}
@@ -0,0 +1,352 @@
+package main.java.db;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, row and byte statistics of the SQL statements run through the connection pool,
+ * grouped by a logical query name. Queries are named with tag(Statement, String) before
+ * they are executed (for example "MonthlyMetrics.revenue"); untagged statements are named
+ * after the class and method that created them (for example "AccountPage.buildPage").
+ * Statements slower than a threshold are appended to a slow query log.
+ * <p>
+ * Set with the system properties "query.stats" (true/false, default true),
+ * "query.slowMillis" (default 250) and "query.slowLog" (file, default slow-queries.log).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class QueryStats {
+
+	// Configuration
+	private static final boolean enabled = Boolean.parseBoolean(System.getProperty("query.stats", "true"));
+	private static volatile long slowMillis = Long.getLong("query.slowMillis", 250);
+	private static final Path slowLog = Path.of(System.getProperty("query.slowLog", "slow-queries.log"));
+
+	// Statistics by query name
+	private static final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+	private static final StackWalker walker = StackWalker.getInstance();
+
+	// Query statistics
+	private final String name;
+	private final Histogram latency = new Histogram();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	private QueryStats(String name) {
+		this.name = name;
+	}
+
+	/*
+	 * Static Access
+	 */
+
+	/**
+	 * @return true if statements are instrumented
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets the time above which a statement is written to the slow query log.
+	 * @param millis - Threshold in milliseconds
+	 */
+	public static void setSlowQueryThreshold(long millis) {
+		slowMillis = millis;
+	}
+
+	/**
+	 * Wraps a statement so its executions and the result sets it returns are recorded,
+	 * under the name of the calling class and method until the statement is tagged.
+	 * @param statement - Statement to instrument
+	 * @param type - Statement interface to expose (Statement, PreparedStatement or CallableStatement)
+	 * @param sql - SQL the statement was prepared with, or null
+	 * @return the instrumented statement
+	 */
+	public static Statement instrument(Statement statement, Class<?> type, String sql) {
+		QueryStats query = stats.computeIfAbsent(callerName(), QueryStats::new);
+		return (Statement) Proxy.newProxyInstance(QueryStats.class.getClassLoader(), new Class<?>[] { type },
+				new StatementHandler(statement, query, sql));
+	}
+
+	/**
+	 * Names the executions of a statement that follow. A statement reused for another
+	 * query is tagged again before it is executed. Does nothing for statements that are
+	 * not instrumented.
+	 * @param statement - Statement created through the connection pool
+	 * @param name - Query name, as "Class.query"
+	 */
+	public static void tag(Statement statement, String name) {
+		if (!Proxy.isProxyClass(statement.getClass())) return;
+		InvocationHandler handler = Proxy.getInvocationHandler(statement);
+		if (handler instanceof StatementHandler) {
+			((StatementHandler) handler).query = stats.computeIfAbsent(name, QueryStats::new);
+		}
+	}
+
+	/**
+	 * Forgets every recorded statistic.
+	 */
+	public static void reset() {
+		stats.clear();
+	}
+
+	/**
+	 * Prints the statistics of every query name, slowest total first: executions, total
+	 * time, p50/p95/p99/max latency, rows and kilobytes fetched, and errors.
+	 * @param out - Stream to print to
+	 */
+	public static void dump(PrintStream out) {
+		List<QueryStats> all = new ArrayList<>(stats.values());
+		if (all.isEmpty()) return;
+		all.sort(Comparator.comparingLong((QueryStats query) -> query.latency.getTotal()).reversed());
+		out.println(String.format("%-50s %8s %10s %9s %9s %9s %9s %10s %10s %6s", "Query", "Count", "Total ms",
+				"p50 ms", "p95 ms", "p99 ms", "Max ms", "Rows", "KB", "Errors"));
+		for (QueryStats query : all) {
+			Histogram histogram = query.latency;
+			out.println(String.format("%-50s %8d %10.1f %9.2f %9.2f %9.2f %9.2f %10d %10.1f %6d", query.name,
+					histogram.getCount(), histogram.getTotal() / 1e3, histogram.getPercentile(50) / 1e3,
+					histogram.getPercentile(95) / 1e3, histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3,
+					query.rows.sum(), query.bytes.sum() / 1024.0, query.errors.sum()));
+		}
+	}
+
+	/*
+	 * Name of an untagged statement: the class and method that created it, outside of the
+	 * pool and of this class. Nested classes and lambdas are named after their enclosing
+	 * class and method.
+	 */
+	private static String callerName() {
+		return walker.walk(frames -> frames
+				.filter(frame -> !frame.getClassName().equals(QueryStats.class.getName())
+						&& !frame.getClassName().startsWith(ConnectionPool.class.getName())
+						&& !frame.getClassName().startsWith("java.")
+						&& !frame.getClassName().startsWith("jdk.")
+						&& !frame.getClassName().startsWith("com.sun.proxy."))
+				.findFirst()
+				.map(frame -> {
+					String className = frame.getClassName();
+					className = className.substring(className.lastIndexOf('.') + 1);
+					if (className.indexOf('$') > 0) className = className.substring(0, className.indexOf('$'));
+					String methodName = frame.getMethodName();
+					if (methodName.startsWith("lambda$")) methodName = methodName.split("\\$")[1];
+					return className + "." + methodName;
+				})
+				.orElse("unknown"));
+	}
+
+	/*
+	 * Recording
+	 */
+
+	private void record(long nanos, String sql, long rowCount, boolean failed) {
+		long micros = nanos / 1000;
+		latency.record(micros);
+		if (rowCount > 0) rows.add(rowCount);
+		if (failed) errors.increment();
+		if (micros >= slowMillis * 1000) logSlowQuery(micros, sql, failed);
+	}
+
+	/*
+	 * Appends a line to the slow query log: time, query name, latency and SQL.
+	 */
+	private void logSlowQuery(long micros, String sql, boolean failed) {
+		String line = String.format("%s %s %.1f ms%s %s%n", LocalDateTime.now(), name, micros / 1e3,
+				failed ? " FAILED" : "", sql == null ? "" : sql.replaceAll("\\s+", " ").trim());
+		synchronized (QueryStats.class) {
+			try {
+				Files.writeString(slowLog, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+						StandardOpenOption.APPEND);
+			} catch (IOException err) {
+				err.printStackTrace();
+			}
+		}
+	}
+
+	/*
+	 * Approximate size of a value read from a result set.
+	 */
+	private static long sizeOf(Object value) {
+		if (value instanceof String) return ((String) value).length();
+		if (value instanceof byte[]) return ((byte[]) value).length;
+		if (value instanceof Number || value instanceof java.util.Date || value instanceof java.time.temporal.Temporal) {
+			return 8;
+		}
+		if (value instanceof Boolean) return 1;
+		return 0;
+	}
+
+	/*
+	 * Wrappers
+	 */
+
+	/*
+	 * Times the execute methods of a statement and wraps the result sets it returns, 
+	 * under the query name of the statement when it is executed.
+	 */
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement statement;
+		private volatile QueryStats query;
+		private QueryStats executedQuery;
+		private String sql;
+
+		private StatementHandler(Statement statement, QueryStats query, String sql) {
+			this.statement = statement;
+			this.query = query;
+			this.executedQuery = query;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.equals("equals")) return proxy == args[0];
+			if (name.equals("hashCode")) return System.identityHashCode(proxy);
+			if (name.equals("addBatch") && args != null && args.length > 0) sql = (String) args[0];
+
+			// Result sets fetched later (getResultSet) belong to the last execution
+			if (!name.startsWith("execute")) {
+				Object result = invoke(method, args);
+				return (result instanceof ResultSet) ? wrap((ResultSet) result, executedQuery) : result;
+			}
+
+			QueryStats query = this.query;
+			executedQuery = query;
+			String executed = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : sql;
+			long start = System.nanoTime();
+			try {
+				Object result = invoke(method, args);
+				long rowCount = 0;
+				if (result instanceof Integer || result instanceof Long) rowCount = ((Number) result).longValue();
+				else if (result instanceof int[]) for (int count : (int[]) result) rowCount += Math.max(0, count);
+				query.record(System.nanoTime() - start, executed, rowCount, false);
+				return (result instanceof ResultSet) ? wrap((ResultSet) result, query) : result;
+			} catch (SQLException err) {
+				query.record(System.nanoTime() - start, executed, 0, true);
+				throw err;
+			}
+		}
+
+		private Object invoke(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(statement, args);
+			} catch (InvocationTargetException err) {
+				throw err.getCause();
+			}
+		}
+
+		/*
+		 * Counts the rows and bytes read from a result set under the query that returned it.
+		 */
+		private ResultSet wrap(ResultSet resultSet, QueryStats query) {
+			return (ResultSet) Proxy.newProxyInstance(QueryStats.class.getClassLoader(),
+					new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+						String name = method.getName();
+						if (name.equals("equals")) return proxy == args[0];
+						if (name.equals("hashCode")) return System.identityHashCode(proxy);
+						Object result;
+						try {
+							result = method.invoke(resultSet, args);
+						} catch (InvocationTargetException err) {
+							throw err.getCause();
+						}
+						if (name.equals("next")) {
+							if ((boolean) result) query.rows.increment();
+						} else if (name.startsWith("get")) {
+							long size = sizeOf(result);
+							if (size > 0) query.bytes.add(size);
+						}
+						return result;
+					});
+		}
+	}
+
+	/*
+	 * Histogram
+	 */
+
+	/*
+	 * Log-linear histogram of microsecond values, in the manner of HdrHistogram: 16
+	 * buckets per power of two, so a reported percentile is within 1/16 of the value
+	 * recorded. Recording is lock free.
+	 */
+	private static class Histogram {
+		private static final int SUB_BUCKET_BITS = 4;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+		private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		private void record(long value) {
+			value = Math.max(0, value);
+			counts.incrementAndGet(indexOf(value));
+			count.increment();
+			total.add(value);
+			max.accumulate(value);
+		}
+
+		private static int indexOf(long value) {
+			if (value < SUB_BUCKETS) return (int) value;
+			int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+			return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+		}
+
+		/*
+		 * Highest value counted in a bucket.
+		 */
+		private static long highestValueOf(int index) {
+			if (index < SUB_BUCKETS) return index;
+			int shift = index / SUB_BUCKETS - 1;
+			long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+			return lowest + (1L << shift) - 1;
+		}
+
+		private long getCount() {
+			return count.sum();
+		}
+
+		private long getTotal() {
+			return total.sum();
+		}
+
+		private long getMax() {
+			return max.get();
+		}
+
+		/*
+		 * Value at the percentile (0 to 100), capped by the maximum recorded.
+		 */
+		private long getPercentile(double percentile) {
+			long target = (long) Math.ceil(percentile / 100 * getCount());
+			long seen = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= Math.max(1, target)) return Math.min(highestValueOf(i), getMax());
+			}
+			return getMax();
+		}
+	}
+}
@@ -0,0 +1,455 @@
+package main.java.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import main.java.Page;
+
+/**
+ * Applies the scripts in src/db/migrations in numerical order and records each one in
+ * the schema_version table, so a database is only migrated once per script. Each
+ * statement of a script is recorded in schema_version_step once it succeeds, so a script
+ * that failed part way resumes after its last statement instead of repeating the ones
+ * that already changed the schema.
+ * <p>
+ * The verify mode runs EXPLAIN on the queries the pages issue (the SQL of PageQueries,
+ * MonthlyMetrics and BuildingMonthKpis, bound like the pages bind it for the resident
+ * with the most ledger rows) and fails if any reads a whole table that the query does
+ * not list all rows of by design. Run it on a database filled by PseudoDataGenerator;
+ * the optimizer scans small tables whatever the indexes.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class SchemaMigrator {
+
+	private static final String MIGRATIONS_DIR = System.getProperty("migrations.dir", "src/db/migrations");
+	private static final int PERIODS = MonthlyMetrics.DASHBOARD_MONTHS;
+
+	/*
+	 * Page query to verify, how to bind it, and the tables it is allowed to scan.
+	 */
+	private static class Check {
+		private final String name;
+		private final String sql;
+		private final Binder binder;
+		private final Set<String> scans;
+
+		private Check(String name, String sql, Binder binder, String... scans) {
+			this.name = name;
+			this.sql = sql;
+			this.binder = binder;
+			this.scans = Set.of(scans);
+		}
+	}
+
+	/*
+	 * Binds the parameters of a query with the sample values.
+	 */
+	private interface Binder {
+		void bind(PreparedStatement statement, Sample sample) throws SQLException;
+	}
+
+	/*
+	 * Values the pages would bind for the sample resident: their unit and building, the
+	 * dashboard months, the last complaint of the first log page and the first ledger page.
+	 */
+	private static class Sample {
+		private int user;
+		private int unit;
+		private String building = "";
+		private LocalDate[] periodEnds;
+		private Date complaintDate = Date.valueOf(LocalDate.now());
+		private int complaintId = Integer.MAX_VALUE;
+		private LocalDate ledgerBefore = LocalDate.now();
+		private LocalDate ledgerStart = LocalDate.now().withDayOfMonth(1);
+
+		private String getBuildingPattern() {
+			return "%" + building + "%";
+		}
+	}
+
+	// Page queries
+	private static final Check[] CHECKS = {
+			new Check("Complaint log (admin)", PageQueries.complaintPage(false, false), (statement, sample) -> {
+				statement.setInt(1, PageQueries.COMPLAINT_PAGE_SIZE);
+			}),
+			new Check("Complaint log (admin, next page)", PageQueries.complaintPage(false, true), (statement, sample) -> {
+				bindComplaintAfter(statement, 1, sample);
+				statement.setInt(4, PageQueries.COMPLAINT_PAGE_SIZE);
+			}),
+			new Check("Complaint log (resident)", PageQueries.complaintPage(true, false), (statement, sample) -> {
+				statement.setInt(1, sample.user);
+				statement.setInt(2, PageQueries.COMPLAINT_PAGE_SIZE);
+			}),
+			new Check("Complaint log (resident, next page)", PageQueries.complaintPage(true, true), (statement, sample) -> {
+				statement.setInt(1, sample.user);
+				bindComplaintAfter(statement, 2, sample);
+				statement.setInt(5, PageQueries.COMPLAINT_PAGE_SIZE);
+			}),
+			new Check("Complaint count (resident)", PageQueries.complaintCount(true), (statement, sample) -> {
+				statement.setInt(1, sample.user);
+			}),
+			new Check("Resident dashboard", PageQueries.RESIDENT_INFO, (statement, sample) -> {
+				statement.setInt(1, sample.user);
+			}),
+			new Check("Ledger page start", PageQueries.LEDGER_START, SchemaMigrator::bindLedgerStart),
+			new Check("Ledger page", PageQueries.LEDGER_PAGE, (statement, sample) -> {
+				statement.setInt(1, sample.user);
+				statement.setDate(2, Date.valueOf(sample.ledgerStart));
+				statement.setDate(3, Date.valueOf(sample.ledgerBefore));
+				statement.setInt(4, sample.user);
+				statement.setDate(5, Date.valueOf(sample.ledgerStart));
+				statement.setDate(6, Date.valueOf(sample.ledgerBefore));
+			}),
+			new Check("Resident manager", PageQueries.RESIDENT_LIST, (statement, sample) -> {}, "users", "u"),
+			new Check("Unit manager", PageQueries.UNIT_LIST, (statement, sample) -> {}, "units"),
+			new Check("Unit summary", PageQueries.UNIT_SUMMARY, (statement, sample) -> {}, "units"),
+			new Check("Unassigned residents", PageQueries.UNASSIGNED_RESIDENTS, (statement, sample) -> {
+				statement.setInt(1, sample.unit);
+			}, "users"),
+			new Check("Building list", PageQueries.BUILDING_LIST, (statement, sample) -> {}),
+			new Check("Building summary", PageQueries.BUILDING_SUMMARY, (statement, sample) -> {
+				statement.setString(1, sample.getBuildingPattern());
+			}, "units"),
+			new Check("Open complaints", PageQueries.BUILDING_OPEN_COMPLAINTS, (statement, sample) -> {
+				statement.setString(1, sample.getBuildingPattern());
+			}),
+			new Check("Dashboard months", BuildingMonthKpis.SQL_LOAD, (statement, sample) -> {
+				statement.setString(1, sample.getBuildingPattern());
+				statement.setDate(2, Date.valueOf(sample.periodEnds[0]));
+				statement.setDate(3, Date.valueOf(sample.periodEnds[sample.periodEnds.length - 1]));
+			}),
+			new Check("Dashboard fresh months", BuildingMonthKpis.SQL_FRESH_MONTHS, (statement, sample) -> {
+				statement.setDate(1, Date.valueOf(sample.periodEnds[0]));
+				statement.setDate(2, Date.valueOf(sample.periodEnds[sample.periodEnds.length - 1]));
+			}),
+
+			// Dashboard without the summary table (MonthlyMetrics.load)
+			new Check("Monthly revenue", MonthlyMetrics.revenueSql(false, MonthlyMetrics.BUILDING_LIKE, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, true, sample.getBuildingPattern())),
+			new Check("Monthly leased units", MonthlyMetrics.leasedSql(false, MonthlyMetrics.BUILDING_LIKE, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, false, sample.getBuildingPattern())),
+			new Check("Monthly unit count", MonthlyMetrics.unitCountSql(false, MonthlyMetrics.BUILDING_LIKE, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, false, sample.getBuildingPattern()),
+					"u"),
+
+			// Summary table refresh of every building (BuildingMonthKpis.refreshMonths)
+			new Check("Refresh revenue", MonthlyMetrics.revenueSql(true, MonthlyMetrics.ANY_BUILDING, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, true, null)),
+			new Check("Refresh leased units", MonthlyMetrics.leasedSql(true, MonthlyMetrics.ANY_BUILDING, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, false, null)),
+			new Check("Refresh unit count", MonthlyMetrics.unitCountSql(true, MonthlyMetrics.ANY_BUILDING, PERIODS),
+					(statement, sample) -> MonthlyMetrics.bind(statement, sample.periodEnds, false, null), "u"),
+	};
+
+	private SchemaMigrator() {}
+
+	/*
+	 * Migrate
+	 */
+
+	/**
+	 * Applies every migration newer than the last one recorded in schema_version.
+	 * @param connect - Open connection with all privileges
+	 * @param directory - Folder of NNN_name.sql scripts
+	 * @return number of migrations applied
+	 * @throws SQLException if a statement fails (the statements before it are recorded, and
+	 * later migrations are not applied)
+	 * @throws IOException if a script cannot be read
+	 */
+	public static int migrate(Connection connect, File directory) throws SQLException, IOException {
+		int current = getVersion(connect);
+		int applied = 0;
+		for (File script : listMigrations(directory)) {
+			int version = getVersion(script);
+			if (version <= current) continue;
+
+			// Statements that succeeded in an earlier, failed run are not repeated
+			List<String> statements = splitStatements(Files.readAllLines(script.toPath()));
+			Set<Integer> done = getSteps(connect, version);
+			System.out.println("[Migrate] " + (done.isEmpty() ? "Applying " : "Resuming ") + script.getName() + "...");
+			try (Statement statement = connect.createStatement()) {
+				for (int step = 1; step <= statements.size(); step++) {
+					if (done.contains(step)) continue;
+					statement.execute(statements.get(step - 1));
+					recordStep(connect, version, step);
+				}
+			}
+			record(connect, version, script.getName());
+			applied++;
+		}
+		return applied;
+	}
+
+	/**
+	 * Records migrations up to a version as applied without running them, for a database
+	 * whose scripts were imported by hand before schema_version existed.
+	 * @param connect - Open connection with all privileges
+	 * @param directory - Folder of NNN_name.sql scripts
+	 * @param version - Last migration already in the database
+	 * @throws SQLException if the insert fails
+	 */
+	public static void baseline(Connection connect, File directory, int version) throws SQLException {
+		getVersion(connect);
+		for (File script : listMigrations(directory)) {
+			if (getVersion(script) <= version) record(connect, getVersion(script), script.getName());
+		}
+	}
+
+	/**
+	 * Returns the last migration applied, creating schema_version and schema_version_step
+	 * if they are missing.
+	 * @param connect - Open connection
+	 * @return version number, 0 if none
+	 * @throws SQLException if a query fails
+	 */
+	public static int getVersion(Connection connect) throws SQLException {
+		String sqlCreate = """
+				CREATE TABLE IF NOT EXISTS `schema_version` (
+				  `version` int(11) NOT NULL,
+				  `name` varchar(255) NOT NULL,
+				  `applied` date NOT NULL DEFAULT current_timestamp(),
+				  PRIMARY KEY (`version`)
+				) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+				""";
+		String sqlCreateSteps = """
+				CREATE TABLE IF NOT EXISTS `schema_version_step` (
+				  `version` int(11) NOT NULL,
+				  `step` int(11) NOT NULL,
+				  PRIMARY KEY (`version`,`step`)
+				) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+				""";
+
+		try (Statement statement = connect.createStatement()) {
+			statement.execute(sqlCreate);
+			statement.execute(sqlCreateSteps);
+			ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(version), 0) AS version FROM schema_version");
+			result.next();
+			return result.getInt("version");
+		}
+	}
+
+	/*
+	 * Verify
+	 */
+
+	/**
+	 * Runs EXPLAIN on every page query and prints the tables read in full.
+	 * @param connect - Open connection
+	 * @return true if no query scans a table it is not allowed to
+	 * @throws SQLException if a query cannot be explained (e.g. a migration is missing)
+	 */
+	public static boolean verify(Connection connect) throws SQLException {
+		Sample sample = getSample(connect);
+
+		boolean passed = true;
+		for (Check check : CHECKS) {
+			List<String> scanned = new ArrayList<String>();
+			try (PreparedStatement statement = connect.prepareStatement("EXPLAIN " + check.sql)) {
+				check.binder.bind(statement, sample);
+				ResultSet result = statement.executeQuery();
+				while (result.next()) {
+					String table = result.getString("table");
+					if (!"ALL".equals(result.getString("type")) || table == null) continue;
+					if (table.startsWith("<") || check.scans.contains(table)) continue; // Derived tables, by design
+					scanned.add(table + " (" + result.getLong("rows") + " rows)");
+				}
+			}
+			if (scanned.isEmpty()) {
+				System.out.println("[Verify] --> PASS: " + check.name);
+			}
+			else {
+				System.out.println("[Verify] --> FAIL: " + check.name + " scans " + String.join(", ", scanned));
+				passed = false;
+			}
+		}
+		return passed;
+	}
+
+	/*
+	 * Picks the resident with the most ledger rows and looks up the values the pages
+	 * would bind for them.
+	 */
+	private static Sample getSample(Connection connect) throws SQLException {
+		Sample sample = new Sample();
+		sample.periodEnds = new LocalDate[PERIODS];
+		YearMonth month = YearMonth.now();
+		for (int i = PERIODS - 1; i >= 0; i--, month = month.minusMonths(1)) sample.periodEnds[i] = month.atEndOfMonth();
+
+		try (Statement statement = connect.createStatement()) {
+			ResultSet result = statement.executeQuery(
+					"SELECT userid FROM charges GROUP BY userid ORDER BY COUNT(*) DESC LIMIT 1");
+			while (result.next()) sample.user = result.getInt("userid");
+
+			// Last complaint of the first page of the log
+			result = statement.executeQuery("SELECT log_date, id FROM complaints ORDER BY log_date DESC, id DESC LIMIT 1 OFFSET "
+					+ (PageQueries.COMPLAINT_PAGE_SIZE - 1));
+			while (result.next()) {
+				sample.complaintDate = result.getDate("log_date");
+				sample.complaintId = result.getInt("id");
+			}
+		}
+
+		String sqlUnit = """
+				SELECT u.id, u.building
+				FROM users
+				JOIN leases l ON users.current_lease_id = l.id
+				JOIN units u ON l.unitid = u.id
+				WHERE users.uid = ?
+				""";
+		try (PreparedStatement statement = connect.prepareStatement(sqlUnit)) {
+			statement.setInt(1, sample.user);
+			ResultSet result = statement.executeQuery();
+			while (result.next()) {
+				sample.unit = result.getInt("id");
+				if (result.getString("building") != null) sample.building = result.getString("building");
+			}
+		}
+
+		// First ledger page, as ResidentDashboardPage finds it
+		try (PreparedStatement statement = connect.prepareStatement(PageQueries.LEDGER_START)) {
+			bindLedgerStart(statement, sample);
+			ResultSet result = statement.executeQuery();
+			if (result.next() && result.getDate("oldest") != null) {
+				sample.ledgerStart = result.getDate("oldest").toLocalDate().withDayOfMonth(1);
+			}
+		}
+		return sample;
+	}
+
+	private static void bindLedgerStart(PreparedStatement statement, Sample sample) throws SQLException {
+		statement.setInt(1, sample.user);
+		statement.setDate(2, Date.valueOf(sample.ledgerBefore));
+		statement.setInt(3, PageQueries.LEDGER_PAGE_SIZE);
+		statement.setInt(4, sample.user);
+		statement.setDate(5, Date.valueOf(sample.ledgerBefore));
+		statement.setInt(6, PageQueries.LEDGER_PAGE_SIZE);
+		statement.setInt(7, PageQueries.LEDGER_PAGE_SIZE);
+	}
+
+	private static void bindComplaintAfter(PreparedStatement statement, int index, Sample sample) throws SQLException {
+		statement.setDate(index, sample.complaintDate);
+		statement.setDate(index + 1, sample.complaintDate);
+		statement.setInt(index + 2, sample.complaintId);
+	}
+
+	/*
+	 * Helper Methods
+	 */
+
+	/*
+	 * Scripts named NNN_name.sql, in numerical order.
+	 */
+	private static List<File> listMigrations(File directory) {
+		File[] scripts = directory.listFiles((dir, name) -> name.matches("\\d+_.*\\.sql"));
+		if (scripts == null) return new ArrayList<File>();
+		Arrays.sort(scripts, (a, b) -> Integer.compare(getVersion(a), getVersion(b)));
+		return Arrays.asList(scripts);
+	}
+
+	private static int getVersion(File script) {
+		return Integer.parseInt(script.getName().substring(0, script.getName().indexOf('_')));
+	}
+
+	/*
+	 * Splits a script into statements. Statements end with ";" at the end of a line and
+	 * lines starting with "--" are comments.
+	 */
+	private static List<String> splitStatements(List<String> lines) {
+		List<String> statements = new ArrayList<String>();
+		StringBuilder sql = new StringBuilder();
+		for (String line : lines) {
+			String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+			sql.append(line).append('\n');
+			if (trimmed.endsWith(";")) {
+				statements.add(sql.substring(0, sql.lastIndexOf(";")));
+				sql.setLength(0);
+			}
+		}
+		if (sql.toString().trim().length() > 0) statements.add(sql.toString());
+		return statements;
+	}
+
+	/*
+	 * Statements of a migration that already succeeded.
+	 */
+	private static Set<Integer> getSteps(Connection connect, int version) throws SQLException {
+		Set<Integer> steps = new HashSet<Integer>();
+		try (PreparedStatement statement = connect.prepareStatement("SELECT step FROM schema_version_step WHERE version = ?")) {
+			statement.setInt(1, version);
+			ResultSet result = statement.executeQuery();
+			while (result.next()) steps.add(result.getInt("step"));
+		}
+		return steps;
+	}
+
+	private static void recordStep(Connection connect, int version, int step) throws SQLException {
+		String sqlQuery = "INSERT IGNORE INTO schema_version_step (version, step) VALUES (?, ?)";
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setInt(1, version);
+			statement.setInt(2, step);
+			statement.executeUpdate();
+		}
+	}
+
+	private static void record(Connection connect, int version, String name) throws SQLException {
+		String sqlQuery = "INSERT IGNORE INTO schema_version (version, name) VALUES (?, ?)";
+		try (PreparedStatement statement = connect.prepareStatement(sqlQuery)) {
+			statement.setInt(1, version);
+			statement.setString(2, name);
+			statement.executeUpdate();
+		}
+	}
+
+	/**
+	 * Migrates the database, records a baseline or verifies the page queries.
+	 * Arguments: database user and password of an account with all privileges, then
+	 * "migrate" (default), "baseline &lt;version&gt;" or "verify".
+	 * @param args - user, password, [migrate | baseline version | verify]
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: SchemaMigrator <db user> <db password> [migrate | baseline <version> | verify]");
+			return;
+		}
+		String mode = (args.length > 2) ? args[2] : "migrate";
+		File directory = new File(MIGRATIONS_DIR);
+		boolean passed = true;
+		try (Connection connect = DriverManager.getConnection(Page.dbUrl, args[0], args[1])) {
+			if (mode.equalsIgnoreCase("verify")) {
+				passed = verify(connect);
+				System.out.println("[Verify] --> " + (passed ? "SUCCESS" : "FAILED: add indexes for the queries above"));
+			}
+			else if (mode.equalsIgnoreCase("baseline") && args.length > 3) {
+				baseline(connect, directory, Integer.parseInt(args[3]));
+				System.out.println("[Baseline] --> SUCCESS (version " + getVersion(connect) + ")");
+			}
+			else {
+				int applied = migrate(connect, directory);
+				System.out.println("[Migrate] --> SUCCESS (" + applied + " applied, version " + getVersion(connect) + ")");
+			}
+		} catch (SQLException | IOException err) {
+			System.out.println("[SchemaMigrator] --> FAILED");
+			err.printStackTrace();
+			passed = false;
+		}
+		if (!passed) System.exit(1);
+	}
+}
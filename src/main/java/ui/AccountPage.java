@@ -15,7 +15,6 @@ import java.awt.event.ActionListener;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -30,6 +29,7 @@ import javax.swing.border.EmptyBorder;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.ConnectionPool;
 
 /**
  * A class that creates a JPanel with a settings page.
@@ -171,7 +171,7 @@ public class AccountPage extends JPanel implements Page { //TODO Password reset
 		String email = "";
 		
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 
 			// Prepare query
 			String sqlQuery = "SELECT `email`,`phone` FROM users WHERE uid = " 
@@ -399,7 +399,7 @@ public class AccountPage extends JPanel implements Page { //TODO Password reset
 							//Switch theme
 							
 							// Connect to database
-							try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+							try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 								Statement statement = connect.createStatement();
 								
 								// Prepare query
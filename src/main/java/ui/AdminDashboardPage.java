@@ -18,7 +18,6 @@ import java.awt.event.ActionListener;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -28,15 +27,26 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.CancellationToken;
+import main.java.db.ConnectionPool;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
 
 /**
  * A class that creates an Admin Dashboard page consisting of 
@@ -52,6 +62,9 @@ public class AdminDashboardPage extends JPanel implements Page {
 	// Data
 	private Session currentSession;
 	private DashboardData displayData;
+	private DashboardLoader dashboardLoader;
+	private boolean loading = true;
+	private static final long WAIT_STEP_MILLIS = 100;
 	
 	// Setup
 	private String title = "Dashboard";
@@ -78,15 +91,14 @@ public class AdminDashboardPage extends JPanel implements Page {
 	
 	/**
 	 * Creates an Admin Dashboard page. 
-	 * Creates a DashboardData object to access statistical information 
-	 * regarding the list of buildings.
+	 * Loads a DashboardData object in the background to access statistical 
+	 * information regarding the list of buildings.
 	 * @param session - Current session
 	 */
 	public AdminDashboardPage(Session session) {
 		
 		// Data
 		currentSession = session;
-		if (displayData == null) displayData = new DashboardData("", currentSession);
 	
 		// Setup
 		this.setLayout(new BorderLayout());
@@ -185,6 +197,105 @@ public class AdminDashboardPage extends JPanel implements Page {
         c.gridwidth = 1;
         c.insets = new Insets(0,0,0,0);
         tabContent.add(secondRowPanels, c); 
+        
+        // Data
+        loadDashboard("");
+	}
+	
+	/*
+	 * Data Loading
+	 */
+	
+	/**
+	 * Loads the DashboardData of the entered building off the event dispatch thread.
+	 * The Rents, Cash Flow and Vacancy panels show a loading state until it is ready.
+	 * A load that is still running is cancelled, including its query in flight.
+	 * Data in the DashboardCache is displayed right away.
+	 * @param building - Building name, "" for all buildings
+	 */
+	private void loadDashboard(String building) {
+		if (dashboardLoader != null) dashboardLoader.stop();
+		dashboardLoader = null;
+		
+		// Cached
+		DashboardData cached = DashboardCache.get(building, DashboardData.getPeriodNumber());
+		if (cached != null) {
+			displayData = cached;
+			loading = false;
+			refreshAll();
+			return;
+		}
+		
+		// Loading state
+		loading = true;
+		refreshRent(rentInfoPanel, rentInfoContent);
+		refreshRevenue(revenuePanel, revenueContent);
+		refreshVecancyRate(vacancyRatePanel, vacancyContent);
+		
+		dashboardLoader = new DashboardLoader(building);
+		dashboardLoader.execute();
+	}
+	
+	/**
+	 * Background task that builds a DashboardData object and displays it 
+	 * if it has not been superseded by another selection.
+	 */
+	private class DashboardLoader extends SwingWorker<DashboardData, Void> {
+		private final String building;
+		private final CancellationToken token = new CancellationToken();
+		private final long cacheGeneration = DashboardCache.getGeneration();
+		
+		private DashboardLoader(String building) {
+			this.building = building;
+		}
+		
+		@Override
+		protected DashboardData doInBackground() {
+			
+			// Building is being loaded by the log in warm up (waited for in steps, so 
+			// a newer selection or a log out can stop the wait)
+			Future<DashboardData> pending = DashboardCache.getPending(building);
+			if (pending != null) {
+				while (true) {
+					try {
+						return pending.get(WAIT_STEP_MILLIS, TimeUnit.MILLISECONDS);
+					} catch (TimeoutException err) {
+						if (isCancelled() || token.isCancelled()) return null;
+					} catch (InterruptedException err) {
+						return null;
+					} catch (ExecutionException | CancellationException err) {
+						break; // Load it here instead
+					}
+				}
+			}
+			
+			DashboardData data = new DashboardData(building, currentSession, token);
+			if (!token.isCancelled()) DashboardCache.put(data, cacheGeneration);
+			return data;
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled() || dashboardLoader != this) return;
+			try {
+				displayData = get();
+			} catch (InterruptedException | ExecutionException err) {
+				err.printStackTrace();
+				return;
+			}
+			loading = false;
+			refreshAll();
+		}
+		
+		/**
+		 * Cancels the task (interrupting a wait on the warm up) and its running query. 
+		 * Statement.cancel() opens a connection of its own, so it is sent from a 
+		 * background thread.
+		 */
+		private void stop() {
+			cancel(true);
+			CompletableFuture.runAsync(token::cancel);
+		}
 	}
 	
 	/*
@@ -234,9 +345,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 			
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				displayData = new DashboardData("", currentSession); // Get DashboardData on all buildings
-				
-				refreshAll();
+				loadDashboard(""); // Get DashboardData on all buildings
 			}
 			
         });
@@ -256,15 +365,13 @@ public class AdminDashboardPage extends JPanel implements Page {
 		
 		ArrayList<String> buildingList = new ArrayList<String>();
 		
-		// Prepare query
-		String sqlQuery = "SELECT building FROM units WHERE deleted = 0 GROUP BY units.building ";
-
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 			Statement statement = connect.createStatement();
+			QueryStats.tag(statement, "AdminDashboardPage.buildingList");
 
 			// Query
-			ResultSet result = statement.executeQuery(sqlQuery);
+			ResultSet result = statement.executeQuery(PageQueries.BUILDING_LIST);
 			while (result.next()) buildingList.add(result.getString("building"));
 
 			// Close connection
@@ -290,9 +397,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 				
 				@Override
 				public void actionPerformed(ActionEvent e) {
-					displayData = new DashboardData(building, currentSession);
-					refreshAll();
-					
+					loadDashboard(building);
 				}
 				
 	        });
@@ -390,7 +495,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 
 		//View Name
 		JLabel viewNameLabel = new JLabel(
-				(displayData.getTitle() == "" ? "ALL": displayData.getTitle()), SwingConstants.LEFT);
+				((displayData == null || displayData.getTitle() == "") ? "ALL": displayData.getTitle()), SwingConstants.LEFT);
 		viewNameLabel.setFont(new Font("Arial", Font.PLAIN, 30));
 		viewNameLabel.setForeground(textColorTitle);
 		viewNameLabel.setMinimumSize(MIN_SIZE);
@@ -424,7 +529,7 @@ public class AdminDashboardPage extends JPanel implements Page {
         c.weightx = 0.1;
 		c.weighty = 1.0;
 		c.gridwidth = 1;
-		viewContent.add(buildLabelValueDisplay("Total Units", Integer.toString(displayData.getTotalUnits())), c);
+		viewContent.add(buildLabelValueDisplay("Total Units", (displayData == null) ? "-" : Integer.toString(displayData.getTotalUnits())), c);
 		
 		// Occupied
 		c.fill = GridBagConstraints.BOTH;
@@ -433,7 +538,7 @@ public class AdminDashboardPage extends JPanel implements Page {
         c.weightx = 0.1;
 		c.weighty = 1.0;
 		c.gridwidth = 1;
-		viewContent.add(buildLabelValueDisplay("Occupied", Integer.toString(displayData.getOccupied())), c);
+		viewContent.add(buildLabelValueDisplay("Occupied", (displayData == null) ? "-" : Integer.toString(displayData.getOccupied())), c);
 
 		// Area
 		c.fill = GridBagConstraints.BOTH;
@@ -442,7 +547,7 @@ public class AdminDashboardPage extends JPanel implements Page {
         c.weightx = 0;
 		c.weighty = 1.0;
 		c.gridwidth = 1;
-		viewContent.add(buildLabelValueDisplay("Rentable Area", (NumberFormat.getNumberInstance(Locale.US).format(displayData.getRentableArea())), "sqft"), c);
+		viewContent.add(buildLabelValueDisplay("Rentable Area", (displayData == null) ? "-" : (NumberFormat.getNumberInstance(Locale.US).format(displayData.getRentableArea())), "sqft"), c);
 		
 		// Complaints
 		c.fill = GridBagConstraints.BOTH;
@@ -451,7 +556,7 @@ public class AdminDashboardPage extends JPanel implements Page {
         c.weightx = 0;
 		c.weighty = 1.0;
 		c.gridwidth = 1;
-		viewContent.add(buildLabelValueDisplay("Open Complaints", Integer.toString(displayData.getOpenComplaints())), c);
+		viewContent.add(buildLabelValueDisplay("Open Complaints", (displayData == null) ? "-" : Integer.toString(displayData.getOpenComplaints())), c);
 		
 		/*
          * Add all content container to panel
@@ -478,6 +583,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 		rentInfoContent.setOpaque(true);
 		rentInfoContent.setBackground(paneColor);
 		GridBagConstraints c = new GridBagConstraints();
+		if (loading) return buildLoadingPanel(panel, rentInfoContent);
         
 		/*
 		 * Frame
@@ -728,6 +834,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 		revenueContent.setOpaque(true);
 		revenueContent.setBackground(paneColor);
 		GridBagConstraints c = new GridBagConstraints();
+		if (loading) return buildLoadingPanel(panel, revenueContent);
         
 		/*
 		 * Frame
@@ -1011,6 +1118,7 @@ public class AdminDashboardPage extends JPanel implements Page {
 		vacancyContent.setOpaque(true);
 		vacancyContent.setBackground(paneColor);
 		GridBagConstraints c = new GridBagConstraints();
+		if (loading) return buildLoadingPanel(panel, vacancyContent);
         
 		/*
 		 * Frame
@@ -1290,6 +1398,26 @@ public class AdminDashboardPage extends JPanel implements Page {
 		return vacancyGraph;
 	}
 	
+	/*
+	 * Loading Panel
+	 */
+	
+	/**
+	 * Fills a panel with a loading message. Used while dashboard data is loading.
+	 * @param panel - Empty theme panel
+	 * @param content - Empty content container
+	 * @return A panel with a loading message
+	 */
+	private JPanel buildLoadingPanel(JPanel panel, JPanel content) {
+		JLabel loadingLabel = new JLabel("Loading...", SwingConstants.CENTER);
+		loadingLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+		loadingLabel.setForeground(textColor);
+		content.add(loadingLabel);
+		
+		panel.add(content);
+		return panel;
+	}
+	
 	/*
 	 * Refresh Methods
 	 */
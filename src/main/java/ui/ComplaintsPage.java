@@ -14,14 +14,16 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.BoundedRangeModel;
 import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -29,10 +31,15 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.ConnectionPool;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
 
 /**
  * A class that creates a Complaints page consisting of a panel with a log of complaints and 
@@ -53,9 +60,12 @@ public class ComplaintsPage extends JPanel implements Page {
 	private JPanel addComplaintPanel;
 	
 	// Table
-	private JPanel complaintTable;
+	private static final int PAGE_SIZE = PageQueries.COMPLAINT_PAGE_SIZE;
 	private JPanel logPanelContent;
 	private JScrollPane logScroll;
+	private JLabel complaintCount;
+	private ComplaintLogModel complaintModel;
+	private ComplaintPageLoader pageLoader;
 	
 	// Add complaint
 	private JTextField subject;
@@ -73,7 +83,6 @@ public class ComplaintsPage extends JPanel implements Page {
 	// Colors
 	private Color backgroundColor = Theme.baseColor;
 	private Color paneColor = Theme.paneColor;
-	private Color paneLightColor = Theme.paneLightColor;
 	private Color textColor = Theme.textSecondaryColor;
 	private Color textColorTitle = Theme.textPrimaryColor;
 	private Color fieldColor = Theme.fieldColor;
@@ -161,565 +170,406 @@ public class ComplaintsPage extends JPanel implements Page {
 		return panel;
 	}
 	
+	/**
+	 * Creates the complaint table over a model, with its columns and renderers but no 
+	 * actions (also used by TableBenchmark).
+	 * @param model - Complaint rows
+	 * @return the table
+	 */
+	public static ThemedTable createComplaintTable(ComplaintLogModel model) {
+		ThemedTable complaintTable = new ThemedTable(model);
+		
+		// Columns
+		complaintTable.setColumn(ComplaintLogModel.LOG_DATE, 100, null);
+		complaintTable.setColumn(ComplaintLogModel.EVENT_DATE, 100, null);
+		complaintTable.setColumn(ComplaintLogModel.STATUS, 80, new ThemedTable.FlagRenderer());
+		complaintTable.setColumn(ComplaintLogModel.CLOSE, 62, 
+				new ThemedTable.ButtonRenderer("Close", new Dimension(50,16)));
+		complaintTable.setColumn(ComplaintLogModel.SUBJECT, 0, null);
+		complaintTable.setColumn(ComplaintLogModel.DESCRIPTION, 82, 
+				new ThemedTable.ButtonRenderer("Description", new Dimension(70,16)));
+		complaintTable.setColumn(ComplaintLogModel.UNIT, 0, new ThemedTable.TwoNameRenderer());
+		complaintTable.setColumn(ComplaintLogModel.CONTACT, 62, 
+				new ThemedTable.ButtonRenderer("Contact", new Dimension(50,16)));
+		
+		return complaintTable;
+	}
+	
 	/**
 	 * Fills the input panel with a complaint table.
-	 * Creates a scroll table with complaint details.
+	 * Creates a scroll table with complaint details. The newest page of complaints is 
+	 * loaded first and older pages are fetched as the table is scrolled to the bottom.
 	 * @param panel - Panel to build the complaint table on
 	 */
 	private void buildComplaintTable(JPanel panel) {
 		panel.setBackground(paneColor);
 		
-		//Container
-		complaintTable = new JPanel();
-	    complaintTable.setLayout(new GridBagLayout());
-	    complaintTable.setOpaque(true);
-	    complaintTable.setBackground(paneColor);
-	    complaintTable.setAlignmentX(Component.LEFT_ALIGNMENT);
-	    GridBagConstraints c = new GridBagConstraints();
+		complaintModel = new ComplaintLogModel();
+		ThemedTable complaintTable = createComplaintTable(complaintModel);
+		
+		// Actions
+		complaintTable.setCellAction(ComplaintLogModel.CLOSE, row -> {
+			if (complaintModel.getValueAt(row, ComplaintLogModel.CLOSE) != null) closeComplaint(row);
+		});
+		complaintTable.setCellAction(ComplaintLogModel.DESCRIPTION, row -> {
+			Object[] complaint = complaintModel.getComplaint(row);
+			
+			// Bring up pop up
+			new PopupWindow(new ActionListener() {
+
+				@Override
+				public void actionPerformed(ActionEvent e) {
+
+				}
+				
+			}, buildDescriptionPopup((String) complaint[4]), "ok");
+		});
+		complaintTable.setCellAction(ComplaintLogModel.CONTACT, row -> {
+			if (complaintModel.getValueAt(row, ComplaintLogModel.CONTACT) == null) return;
+			Object[] complaint = complaintModel.getComplaint(row);
+			
+			// Bring up pop up
+			new PopupWindow(buildAccountContactDisplay(
+					combineNames((String) complaint[9], (String) complaint[10]),
+					(String) complaint[8], (String) complaint[11], (String) complaint[12]
+					), "ok");
+		});
 	    
-	    // Left space
-	    JPanel leftSpacer = new JPanel();
-	    leftSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0.1;
-		c.weighty = 0.0;
+	    // Table Scroll
+	    GridBagConstraints c = new GridBagConstraints();
+	    logScroll = complaintTable.buildScrollPane();
+	    logScroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+	    	BoundedRangeModel scroll = logScroll.getVerticalScrollBar().getModel();
+	    	
+	    	// Fetch the next page a few screens before the bottom
+	    	if (scroll.getMaximum() - (scroll.getValue() + scroll.getExtent()) < scroll.getExtent() * 2) {
+	    		loadNextPage();
+	    	}
+	    });
+	    c.insets = new Insets(4,0,0,0);
+        c.fill = GridBagConstraints.BOTH;
         c.gridx = 0;
-        c.gridy = 0;
-        complaintTable.add(leftSpacer, c);
-        
-        // Right Space
-	    JPanel rightSpacer = new JPanel();
-	    rightSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0.1;
-		c.weighty = 0.0;
-        c.gridx = 9;
-        c.gridy = 0;
-        complaintTable.add(rightSpacer, c);
-	    
-	    /*
-	     * Table Header
-	     */
-	    
-        // Log Date
-	    JLabel columnSize0 = new JLabel("Log Date", SwingConstants.LEFT);
-		columnSize0.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize0.setForeground(textColor);
-		columnSize0.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 1;
-        c.gridy = 0;
-        c.weightx = 0.1;
-		c.weighty = 0.0;
+        c.gridy = 1;
+        c.weightx = 1.0;
+		c.weighty = 1.0;
 		c.gridwidth = 1;
-		complaintTable.add(columnSize0, c);
-		
-		//EventDate
-		JLabel columnSize1 = new JLabel("Event Date", SwingConstants.LEFT);
-		columnSize1.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize1.setForeground(textColor);
-		columnSize1.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.1;
-        c.gridx = 2;
-        c.gridy = 0;
-        complaintTable.add(columnSize1, c);
+		panel.add(logScroll, c);
 		
-        // Status
-		JLabel columnSize2 = new JLabel("Status", SwingConstants.LEFT);
-		columnSize2.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize2.setForeground(textColor);
-		columnSize2.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.2;
-        c.gridx = 3;
-        c.gridy = 0;
-        c.gridwidth = 2;
-        complaintTable.add(columnSize2, c);
+		// Number of complaints
+		complaintCount = new JLabel("", SwingConstants.RIGHT);
+		complaintCount.setFont(new Font("Arial", Font.PLAIN, 12));
+		complaintCount.setForeground(textColor);
+		complaintCount.setBorder(new EmptyBorder(2, 4, 0, 4));
+		c.insets = new Insets(0,0,0,0);
+		c.gridy = 2;
+		c.weighty = 0.0;
+		panel.add(complaintCount, c);
 		
-        // Subject
-		JLabel columnSize3 = new JLabel("Subject", SwingConstants.LEFT);
-		columnSize3.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize3.setForeground(textColor);
-		columnSize3.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.gridwidth = 2;
-		c.weightx = 0.5;
-        c.gridx = 5;
-        c.gridy = 0;
-        complaintTable.add(columnSize3, c);
+		loadFirstPage();
+	}
+	
+	/*
+	 * Complaint Log Paging
+	 */
+	
+	/**
+	 * Reloads the newest page of complaints and the total count, dropping the 
+	 * pages loaded so far.
+	 */
+	private void loadFirstPage() {
+		if (pageLoader != null) pageLoader.cancel(false);
+		pageLoader = null;
 		
-        // Unit
-		JLabel columnSize4 = new JLabel("Unit", SwingConstants.LEFT);
-		columnSize4.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize4.setForeground(textColor);
-		columnSize4.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.gridwidth = 2;
-        c.gridx = 7;
-        c.gridy = 0;
-        c.weightx = 0.1;
-        complaintTable.add(columnSize4, c);
-        
-        // Line
-        JPanel headerLine = new JPanel();
-        headerLine.setBackground(textColor);
-        headerLine.setPreferredSize(new Dimension(100, 1));
-        c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.0;
-		c.gridwidth = 8;
-        c.gridx = 1;
-        c.gridy = 1;
-        complaintTable.add(headerLine, c);
-
-        /*
-         * Table Rows
-         */
-        
-        ArrayList<Object[]> complaints = new ArrayList<Object[]>();
-        
-        // Get data
-        String logInUser = dbUsername;
-        String logInPass = dbPassword;
-        
-        if (currentSession.isAdmin()) {
-        	logInUser = currentSession.getUser();
-        	logInPass = currentSession.getAdminPass();
-        }
-        		
-        // Connect to database
-        try (Connection connect = DriverManager.getConnection(dbUrl, logInUser, logInPass)) {
-        	Statement statement = connect.createStatement();
-
-			// Prepare query
-			String sqlQuery = "";
-			
-			// If admin
-			if (currentSession.isAdmin()) sqlQuery = """
-					SELECT `complaints`.`id`, `complaints`.`log_date`, `complaints`.`event_date`, 
-					`complaints`.`subject`, `complaints`.`description`, `complaints`.`status`, 
-					`complaints`.`userid`, `complaints`.`unitid`, `users`.`user`, `users`.`first_name`,
-					`users`.`last_name`,`users`.`email`, `users`.`phone`, `units`.`unit`, `units`.`building`
-					,`users`.`type`
-					FROM `complaints`
-					
-					JOIN `users` 
-					ON complaints.`userid` = `users`.`uid`
-					
-					LEFT JOIN `units`
-					ON complaints.`unitid` = `units`.`id`
-					
-					ORDER BY `log_date` DESC;
-					""";
-					
-			// If not admin
-			else sqlQuery = """
-					SELECT `complaints`.`id`, `complaints`.`log_date`, `complaints`.`event_date`, 
-					`complaints`.`subject`, `complaints`.`description`, `complaints`.`status`, 
-					`complaints`.`userid`, `complaints`.`unitid`, `users`.`user`, `users`.`first_name`,
-					`users`.`last_name`,`users`.`email`, `users`.`phone`, `units`.`unit`, `units`.`building`
-					,`users`.`type`
-					FROM `complaints`
-					
-					JOIN `users` 
-					ON complaints.`userid` = `users`.`uid`
-					
-					LEFT JOIN `units`
-					ON complaints.`unitid` = `units`.`id` 
-					"""
-					+ "WHERE `complaints`.`userid` = '" + currentSession.getUserId()
-					+ "' ORDER BY `log_date` DESC;";
-				
-			// Query
-			try {
-				ResultSet results = statement.executeQuery(sqlQuery);
-				complaints = sqlToArray(results);
-			} catch (SQLException err) {
-				err.printStackTrace();
-			}
-			
-		// Close connection
-		connect.close();
+		try (Connection connect = connectLog()) {
+			complaintModel.setFirstPage(loadComplaintPage(connect, null), countComplaints(connect));
 		} catch (SQLException err) {
 			err.printStackTrace();
 		}
-        
-	    // Loop
-	    int currentRow = 2;
-	    for (Object[] complaint : complaints) {
-	    
-	    	// Log Date
-	    	JLabel tableColumn0 = new JLabel(((Date) complaint[1]).toLocalDate().format(
-	    			DateTimeFormatter.ofPattern("MM/dd/yyyy")), SwingConstants.LEFT);
-	    	tableColumn0.setFont(new Font("Arial", Font.PLAIN, 14));
-	    	tableColumn0.setForeground(textColorTitle);
-	    	tableColumn0.setBorder(new EmptyBorder(0, 4, 0, 4));
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn0.setOpaque(true);
-	    		tableColumn0.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 1;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(tableColumn0, c);
-	    	
-			// Complaint Date
-	    	JLabel tableColumn1 = new JLabel(((Date) complaint[2]).toLocalDate().format(
-	    			DateTimeFormatter.ofPattern("MM/dd/yyyy")), SwingConstants.LEFT);
-	    	tableColumn1.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn1.setForeground(textColorTitle);
-			tableColumn1.setBorder(new EmptyBorder(0, 4, 0, 4));
-			if (currentRow % 2 == 1) {
-				tableColumn1.setOpaque(true);
-				tableColumn1.setBackground(paneLightColor);
-	    	}
-	        c.gridx = 2;
-	        c.gridy = currentRow;
-			complaintTable.add(tableColumn1, c);
-			
-			/*
-        	 * Account Status
-        	 */
-        	
-        	// Container
-			JPanel tableColumn = new JPanel();
-			tableColumn.setLayout(new GridBagLayout());
-			tableColumn.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn.setOpaque(true);
-	    		tableColumn.setBackground(paneLightColor);
-	    	}
-			
-			// Flag
-			JLabel tableColumnFlag = new JLabel("CLOSED", SwingConstants.LEFT);
-	    	tableColumnFlag.setFont(new Font("Arial", Font.BOLD, 11));
-	    	tableColumnFlag.setForeground(Theme.flagText);
-	    	tableColumnFlag.setBorder(new EmptyBorder(0, 4, 0, 4));
-	    	tableColumnFlag.setBackground(greenColor);
-	    	tableColumnFlag.setOpaque(true);
-			if (((String) complaint[5]).equalsIgnoreCase("closed")) {
-				tableColumnFlag.setText("CLOSED");
-				tableColumnFlag.setBackground(textColor);
-			}
-			else if (((String) complaint[5]).equalsIgnoreCase("open")) {
-				tableColumnFlag.setText("OPEN");
-				tableColumnFlag.setBackground(greenColor);
+		updateComplaintCount();
+	}
+	
+	/**
+	 * Fetches the page after the last loaded complaint in the background, unless 
+	 * one is already being fetched or every complaint is loaded.
+	 */
+	private void loadNextPage() {
+		if (pageLoader != null || !complaintModel.hasMore()) return;
+		pageLoader = new ComplaintPageLoader(complaintModel.getLast());
+		pageLoader.execute();
+	}
+	
+	/**
+	 * Background task that loads the page of complaints after a given one.
+	 */
+	private class ComplaintPageLoader extends SwingWorker<ArrayList<Object[]>, Void> {
+		private final Object[] after;
+		
+		private ComplaintPageLoader(Object[] after) {
+			this.after = after;
+		}
+		
+		@Override
+		protected ArrayList<Object[]> doInBackground() throws SQLException {
+			try (Connection connect = connectLog()) {
+				return loadComplaintPage(connect, after);
 			}
-			c.fill = GridBagConstraints.NONE;
-	        c.gridx = 0;
-	        c.gridy = 0;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			tableColumn.add(tableColumnFlag);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 3;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(tableColumn, c);
-			
-			/*
-			 * Close Button
-			 */
-			
-			// Container
-			JPanel closeButtonContainer = new JPanel();
-			closeButtonContainer.setLayout(new GridBagLayout());
-			closeButtonContainer.setOpaque(false);
-			if (currentRow % 2 == 1) {
-				closeButtonContainer.setOpaque(true);
-				closeButtonContainer.setBackground(paneLightColor);
-	    	}
-			closeButtonContainer.setBorder(new EmptyBorder(0, 4, 0, 4));
-			
-			//Button
-			CustomButton closeAction = new CustomButton("Close", Theme.buttonColor, 
-					Theme.hoverColor, Theme.pressedColor);
-			closeAction.setFont(new Font("Arial", Font.BOLD, 10));
-			closeAction.setBorderPainted(false);
-			closeAction.setForeground(textColorTitle);
-			closeAction.setFocusPainted(false);
-			closeAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-			closeAction.setPreferredSize(new Dimension(50,16));
-			closeAction.addActionListener(new ActionListener() {
-				
-				@Override
-				public void actionPerformed(ActionEvent e) {
-						// Bring up pop up
-						new PopupWindow(new ActionListener() {
-
-							@Override
-							public void actionPerformed(ActionEvent e) {
-								if (e.getActionCommand().equalsIgnoreCase("yes")) {
-									
-									try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
-										Statement statement = connect.createStatement();
-
-										String sqlQuery = "UPDATE complaints "
-												+ "SET status = 'closed' WHERE complaints.id = '" + complaint[0] + "'";
-										
-										statement.executeUpdate(sqlQuery);
-									} catch (SQLException err) {
-										err.printStackTrace();
-									}
-									
-									refreshAll();
-								}
-								
-							}
-							
-						},"Are you sure you want to close this complaint?", "yesno");
-				}
-	        });
-			if (((String)complaint[5]).equalsIgnoreCase("open")) {
-				closeButtonContainer.add(closeAction);
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled() || pageLoader != this) return;
+			pageLoader = null;
+			try {
+				complaintModel.appendPage(get());
+			} catch (InterruptedException | ExecutionException err) {
+				err.printStackTrace();
+				return;
 			}
-
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 4;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(closeButtonContainer, c);
-			
-			/*
-			 * Subject
-			 */
+			updateComplaintCount();
+		}
+	}
+	
+	/**
+	 * Loads one page of complaints, newest first. Pages are keyed on the (log_date, id) 
+	 * of the last complaint of the previous page, so each page is an index range scan 
+	 * no matter how deep into the history it is.
+	 * @param connect - Open connection
+	 * @param after - Last complaint of the previous page, null for the first page
+	 * @return up to PAGE_SIZE complaints
+	 * @throws SQLException if the query fails
+	 */
+	private ArrayList<Object[]> loadComplaintPage(Connection connect, Object[] after) throws SQLException {
 		
-			// Container
-			JPanel tableColumn5Container = new JPanel();
-			tableColumn5Container.setLayout(new GridBagLayout());
-			tableColumn5Container.setAlignmentX(Component.LEFT_ALIGNMENT);			
-			tableColumn5Container.setOpaque(false);
-			if (currentRow % 2 == 1) {
-				tableColumn5Container.setOpaque(true);
-				tableColumn5Container.setBackground(paneLightColor);
-	    	}
-			
-			// Subject
-			JTextArea tableColumn5 = new JTextArea(1,1);
-			tableColumn5.setText((String) complaint[3]);
-			tableColumn5.setEditable(false);
-			tableColumn5.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn5.setForeground(textColorTitle);
-			tableColumn5.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn5.setOpaque(true);
-			tableColumn5.setBackground(paneColor);
-			if (currentRow % 2 == 1) {
-				tableColumn5.setOpaque(true);
-				tableColumn5.setBackground(paneLightColor);
-	    	}
-			
-			JScrollPane subjectDisplayScroll = new JScrollPane(tableColumn5);
-			subjectDisplayScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_NEVER);
-			subjectDisplayScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-			subjectDisplayScroll.setBorder(new EmptyBorder(0,0,0,0));
-			subjectDisplayScroll.setOpaque(false);
-			subjectDisplayScroll.setBackground(paneColor);
-			if (currentRow % 2 == 1) {
-				subjectDisplayScroll.setOpaque(true);
-				subjectDisplayScroll.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 1;
-	        c.gridy = 0;
-	        c.weightx = 0.001;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			tableColumn5Container.add(subjectDisplayScroll, c);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 5;
-	        c.gridy = currentRow;
-	        c.weightx = 0.3;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(tableColumn5Container, c);
-			
-			/*
-			 * Description Button
-			 */
-			
-			// Button Container
-			JPanel descriptionButtonContainer = new JPanel();
-			descriptionButtonContainer.setLayout(new GridBagLayout());
-			descriptionButtonContainer.setOpaque(false);
-			if (currentRow % 2 == 1) {
-				descriptionButtonContainer.setOpaque(true);
-				descriptionButtonContainer.setBackground(paneLightColor);
-	    	}
-			descriptionButtonContainer.setBorder(new EmptyBorder(0, 4, 0, 4));
-			
-			// Description Panel
-			JPanel descriptionPopupContainer = new JPanel();
-			descriptionPopupContainer.setLayout(new GridBagLayout());
-			descriptionPopupContainer.setPreferredSize(new Dimension(200,100));
-			
-			// Description Content
-			JTextArea descriptionPopup = new JTextArea(2, 1);
-			descriptionPopup.setFont(new Font("Arial", Font.PLAIN, 14));
-			descriptionPopup.setBackground(fieldColor);
-			descriptionPopup.setForeground(fieldText);
-			descriptionPopup.setCaretColor(fieldText);
-			descriptionPopup.setBorder(new EmptyBorder(4, 4, 4, 4));
-			descriptionPopup.setMinimumSize(MIN_SIZE);
-			descriptionPopup.setLineWrap(true);
-			descriptionPopup.setText((String) complaint[4]);
-			descriptionPopup.setEditable(false);
-			
-			JScrollPane descriptionEntryScroll = new JScrollPane(descriptionPopup);
-			descriptionEntryScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-			descriptionEntryScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-			descriptionEntryScroll.setBorder(new EmptyBorder(0,0,0,0));
-			descriptionEntryScroll.getVerticalScrollBar().setUnitIncrement(7);
-			descriptionEntryScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
-			descriptionEntryScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
-			c.fill = GridBagConstraints.BOTH;
-			c.weightx = 1.0;
-			c.weighty = 1;
-	        c.gridx = 0;
-	        c.gridy = 0;
-	        descriptionPopupContainer.add(descriptionEntryScroll, c);
+		// Prepare query
+		String sqlQuery = PageQueries.complaintPage(!currentSession.isAdmin(), after != null);
+		
+		PreparedStatement statement = connect.prepareStatement(sqlQuery);
+		QueryStats.tag(statement, "ComplaintsPage.complaintPage");
+		int index = 1;
+		if (!currentSession.isAdmin()) statement.setInt(index++, currentSession.getUserId());
+		if (after != null) {
+			statement.setDate(index++, (Date) after[1]);
+			statement.setDate(index++, (Date) after[1]);
+			statement.setInt(index++, (int) after[0]);
+		}
+		statement.setInt(index, PAGE_SIZE);
+		
+		// Query
+		return sqlToArray(statement.executeQuery());
+	}
 	
-			//Button
-			CustomButton descriptionAction = new CustomButton("Description", Theme.buttonColor, 
-					Theme.hoverColor, Theme.pressedColor);
-			descriptionAction.setFont(new Font("Arial", Font.BOLD, 10));
-			descriptionAction.setBorderPainted(false);
-			descriptionAction.setForeground(textColorTitle);
-			descriptionAction.setFocusPainted(false);
-			descriptionAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-			descriptionAction.setPreferredSize(new Dimension(70,16));
-			descriptionAction.addActionListener(new ActionListener() {
-				
-				@Override
-				public void actionPerformed(ActionEvent e) {
-						// Bring up pop up
-						new PopupWindow(new ActionListener() {
-
-							@Override
-							public void actionPerformed(ActionEvent e) {
+	/**
+	 * Counts the complaints in the log without joining their details.
+	 * @param connect - Open connection
+	 * @return number of complaints visible to the current user
+	 * @throws SQLException if the query fails
+	 */
+	private int countComplaints(Connection connect) throws SQLException {
+		String sqlQuery = PageQueries.complaintCount(!currentSession.isAdmin());
+		PreparedStatement statement = connect.prepareStatement(sqlQuery);
+		QueryStats.tag(statement, "ComplaintsPage.complaintCount");
+		if (!currentSession.isAdmin()) statement.setInt(1, currentSession.getUserId());
+		ResultSet result = statement.executeQuery();
+		return result.next() ? result.getInt(1) : 0;
+	}
+	
+	/**
+	 * Opens a connection with the admin's credentials, or the page account for residents.
+	 * @return pooled connection
+	 * @throws SQLException if no connection could be opened
+	 */
+	private Connection connectLog() throws SQLException {
+		if (currentSession.isAdmin()) {
+			return ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass());
+		}
+		return ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword);
+	}
+	
+	private void updateComplaintCount() {
+		complaintCount.setText(String.format("Showing %,d of %,d", 
+				complaintModel.getRowCount(), Math.max(complaintModel.getRowCount(), complaintModel.getTotal())));
+	}
+	
+	/**
+	 * Asks for confirmation, then closes a complaint. The loaded row is updated in 
+	 * place so the pages already fetched are kept.
+	 * @param row - Table row
+	 */
+	private void closeComplaint(int row) {
+		Object[] complaint = complaintModel.getComplaint(row);
+		new PopupWindow(new ActionListener() {
 
-							}
-							
-						}, descriptionPopupContainer, "ok");
-				}	
-	        });
-			descriptionButtonContainer.add(descriptionAction);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 6;
-	        c.gridy = currentRow;
-	        c.weightx = 0.01;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(descriptionButtonContainer, c);
-			
-			// Complaint's unit
-			JPanel tableColumn7 = buildTwoNameDisplay("-", "-");
-			tableColumn7.setBorder(new EmptyBorder(4, 4, 4, 4));
-			if (!((String) complaint[15]).equals("admin")) {
-				tableColumn7 = buildTwoNameDisplay(
-						(String) complaint[13],
-						(String) complaint[14]);
-			}
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn7.setOpaque(true);
-	    		tableColumn7.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.HORIZONTAL;
-	        c.gridx = 7;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(tableColumn7, c);
-				
-			//Contact button container
-			JPanel tableColumn8 = new JPanel();
-			tableColumn8.setLayout(new GridBagLayout());
-			tableColumn8.setOpaque(false);
-			if (currentRow % 2 == 1) {
-				tableColumn8.setOpaque(true);
-				tableColumn8.setBackground(paneLightColor);
-	    	}
-			tableColumn8.setBorder(new EmptyBorder(0, 4, 0, 4));
-				
-			if (!((String) complaint[15]).equals("admin")) {
-				
-				//Button
-				CustomButton contactAction = new CustomButton("Contact", Theme.buttonColor, 
-						Theme.hoverColor, Theme.pressedColor);
-				contactAction.setFont(new Font("Arial", Font.BOLD, 10));
-				contactAction.setBorderPainted(false);
-				contactAction.setForeground(textColorTitle);
-				contactAction.setFocusPainted(false);
-				contactAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-				contactAction.setPreferredSize(new Dimension(50,16));
-				contactAction.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (e.getActionCommand().equalsIgnoreCase("yes")) {
 					
-					@Override
-					public void actionPerformed(ActionEvent e) {
-							// Bring up pop up
-							new PopupWindow(buildAccountContactDisplay(
-									combineNames((String) complaint[9], (String) complaint[10]),
-									(String) complaint[8], (String) complaint[11], (String) complaint[12]
-									), "ok");
+					try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+						Statement statement = connect.createStatement();
+
+						String sqlQuery = "UPDATE complaints "
+								+ "SET status = 'closed' WHERE complaints.id = '" + complaint[0] + "'";
+						
+						statement.executeUpdate(sqlQuery);
+						complaint[5] = "closed";
+					} catch (SQLException err) {
+						err.printStackTrace();
 					}
 					
-		        });
-				tableColumn8.add(contactAction);
+					complaintModel.fireTableRowsUpdated(row, row);
+				}
+				
 			}
 			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 8;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			complaintTable.add(tableColumn8, c);
-			
-		    currentRow++;
-	    }
-	    
-	    // Push table to top
-    	JPanel tableBottomSpacer = new JPanel();
-    	tableBottomSpacer.setOpaque(false);
-        c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0;
+		},"Are you sure you want to close this complaint?", "yesno");
+	}
+	
+	/**
+	 * Builds the pop-up content showing a complaint's description.
+	 * @param text - Complaint description
+	 * @return A panel with a read only description
+	 */
+	private JPanel buildDescriptionPopup(String text) {
+		GridBagConstraints c = new GridBagConstraints();
+		
+		// Description Panel
+		JPanel descriptionPopupContainer = new JPanel();
+		descriptionPopupContainer.setLayout(new GridBagLayout());
+		descriptionPopupContainer.setPreferredSize(new Dimension(200,100));
+		
+		// Description Content
+		JTextArea descriptionPopup = new JTextArea(2, 1);
+		descriptionPopup.setFont(new Font("Arial", Font.PLAIN, 14));
+		descriptionPopup.setBackground(fieldColor);
+		descriptionPopup.setForeground(fieldText);
+		descriptionPopup.setCaretColor(fieldText);
+		descriptionPopup.setBorder(new EmptyBorder(4, 4, 4, 4));
+		descriptionPopup.setMinimumSize(MIN_SIZE);
+		descriptionPopup.setLineWrap(true);
+		descriptionPopup.setText(text);
+		descriptionPopup.setEditable(false);
+		
+		JScrollPane descriptionEntryScroll = new JScrollPane(descriptionPopup);
+		descriptionEntryScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+		descriptionEntryScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+		descriptionEntryScroll.setBorder(new EmptyBorder(0,0,0,0));
+		descriptionEntryScroll.getVerticalScrollBar().setUnitIncrement(7);
+		descriptionEntryScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
+		descriptionEntryScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
+		c.fill = GridBagConstraints.BOTH;
+		c.weightx = 1.0;
 		c.weighty = 1;
-		c.gridwidth = 1;
         c.gridx = 0;
-        c.gridy = currentRow;
-        complaintTable.add(tableBottomSpacer, c);
-	    
-	    // Table Scroll
-	    logScroll = new JScrollPane(complaintTable);
-	    logScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-	    logScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-	    logScroll.setBorder(new EmptyBorder(0,0,0,0));   
-	    logScroll.getVerticalScrollBar().setUnitIncrement(10);
-	    logScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
-	    logScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
-	    c.insets = new Insets(4,0,0,0);
-        c.fill = GridBagConstraints.BOTH;
-        c.gridx = 0;
-        c.gridy = 1;
-        c.weightx = 1.0;
-		c.weighty = 1.0;
-		c.gridwidth = 1;
-		panel.add(logScroll, c);
+        c.gridy = 0;
+        descriptionPopupContainer.add(descriptionEntryScroll, c);
+        
+        return descriptionPopupContainer;
+	}
+	
+	/**
+	 * Table model over the loaded pages of complaints, newest first.
+	 */
+	public static class ComplaintLogModel extends AbstractTableModel {
+		private static final int LOG_DATE = 0;
+		private static final int EVENT_DATE = 1;
+		private static final int STATUS = 2;
+		private static final int CLOSE = 3;
+		private static final int SUBJECT = 4;
+		private static final int DESCRIPTION = 5;
+		private static final int UNIT = 6;
+		private static final int CONTACT = 7;
+		private final String[] columnNames = {"Log Date", "Event Date", "Status", "", "Subject", "", "Unit", ""};
+		private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+		private final ArrayList<Object[]> complaints = new ArrayList<Object[]>();
+		private int total = 0;
+		private boolean more = false;
+		
+		/**
+		 * Replaces the loaded complaints with the first page.
+		 * @param page - Newest complaints (rows of PageQueries.complaintPage)
+		 * @param total - Number of complaints in the log
+		 */
+		public void setFirstPage(ArrayList<Object[]> page, int total) {
+			complaints.clear();
+			complaints.addAll(page);
+			this.total = total;
+			more = (page.size() == PAGE_SIZE);
+			fireTableDataChanged();
+		}
+		
+		/**
+		 * Adds the next page after the loaded complaints.
+		 * @param page - Complaints older than the last loaded one
+		 */
+		private void appendPage(ArrayList<Object[]> page) {
+			if (page.isEmpty()) {
+				more = false;
+				return;
+			}
+			int first = complaints.size();
+			complaints.addAll(page);
+			more = (page.size() == PAGE_SIZE);
+			fireTableRowsInserted(first, complaints.size() - 1);
+		}
+		
+		private boolean hasMore() {
+			return more;
+		}
+		
+		private Object[] getLast() {
+			return complaints.get(complaints.size() - 1);
+		}
+		
+		private Object[] getComplaint(int row) {
+			return complaints.get(row);
+		}
+		
+		private int getTotal() {
+			return total;
+		}
+		
+		@Override
+		public int getRowCount() {
+			return complaints.size();
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return columnNames.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return columnNames[column];
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			Object[] complaint = complaints.get(row);
+			boolean isOpen = ((String) complaint[5]).equalsIgnoreCase("open");
+			boolean byAdmin = ((String) complaint[15]).equals("admin");
+			
+			switch (column) {
+			case LOG_DATE:
+				return ((Date) complaint[1]).toLocalDate().format(dateFormat);
+			case EVENT_DATE:
+				return (complaint[2] == null) ? null : ((Date) complaint[2]).toLocalDate().format(dateFormat);
+			case STATUS:
+				return isOpen ? new ThemedTable.Flag("OPEN", Theme.greenColor) : new ThemedTable.Flag("CLOSED", Theme.textSecondaryColor);
+			case CLOSE:
+				return isOpen ? "Close" : null;
+			case SUBJECT:
+				return complaint[3];
+			case DESCRIPTION:
+				return "Description";
+			case UNIT:
+				if (byAdmin) return new String[] {"-", "-"};
+				return new String[] {(String) complaint[13], (String) complaint[14]};
+			case CONTACT:
+				return byAdmin ? null : "Contact";
+			default:
+				return null;
+			}
+		}
 	}
 	
 	/*
@@ -956,16 +806,18 @@ public class ComplaintsPage extends JPanel implements Page {
 									if (e.getActionCommand().equals("Yes")) {
 									
 										// Load Data
-										try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+										try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 											Statement statement = connect.createStatement();
 											
 											// Get unit if not admin
 											String currentUserUnit = "NULL";
 											if (!currentSession.isAdmin()) {
 												String sqlCurrentUserUnit = """
-														SELECT `unitid`, MAX(`start`) AS 'most_recent_start' 
-														FROM `leases` 
-														WHERE leases.userid = 
+														SELECT `unitid` 
+														FROM `users` 
+														JOIN `leases` 
+														ON users.current_lease_id = leases.id 
+														WHERE users.uid = 
 														""" + currentSession.getUserId() +";";
 												
 												// Query
@@ -1113,18 +965,7 @@ public class ComplaintsPage extends JPanel implements Page {
 	
 	@Override
 	public void refreshAll() {
-		refreshTable(logPanelContent, logScroll);
+		loadFirstPage();
 	}
-	
-	/**
-	 * Removes the complaint table from the container and rebuilds it.
-	 * @param panel - Content container
-	 * @param table - Complaint table
-	 */
-	private void refreshTable(JPanel panel, Component table) {
-		panel.remove(table);
-		buildComplaintTable(panel);
-		panel.validate();
-	}	
 }
 
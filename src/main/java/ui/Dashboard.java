@@ -17,7 +17,6 @@ import java.awt.geom.Area;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -32,6 +31,8 @@ import javax.swing.border.EmptyBorder;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.ConnectionPool;
+import main.java.db.QueryStats;
 
 /**
  * This class uses Swing GUI Components to build the main platform for this application. 
@@ -88,7 +89,7 @@ public class Dashboard extends JFrame {
 		String sqlQuery = "SELECT `theme` FROM users WHERE uid = " + currentSession.getUserId();
 
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 			Statement statement = connect.createStatement();
 			
 			// Query
@@ -581,6 +582,11 @@ public class Dashboard extends JFrame {
 	public void logOut() {
 		setVisible(false);
 		dispose();
+		System.out.println(DashboardCache.getStats());
+		DashboardCache.shutdown();
+		ConnectionPool.shutdown();
+		QueryStats.dump(System.out);
+		EdtWatchdog.dump(System.out);
 	}
 }
 
@@ -0,0 +1,292 @@
+package main.java.ui;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import main.java.Page;
+import main.java.Session;
+import main.java.db.CancellationToken;
+import main.java.db.ConnectionPool;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
+
+/**
+ * In-memory cache of DashboardData objects keyed by building and number of periods.
+ * Entries are evicted least recently used once the cache is full, and expire after a
+ * time to live so changes made from other sessions are eventually picked up.
+ * Pages that change units, leases, payments or residents invalidate the buildings involved.
+ * At admin log in, every building is loaded ahead of time by warmUp(Session).
+ * <p>
+ * Sizing can be set with the system properties "dashboardCache.maxEntries" and
+ * "dashboardCache.ttl" (ms).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class DashboardCache {
+
+	private static final int MAX_ENTRIES = Integer.getInteger("dashboardCache.maxEntries", 64);
+	private static final long TIME_TO_LIVE = Long.getLong("dashboardCache.ttl", 10 * 60 * 1000L);
+
+	private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	// Counters
+	private static long hits = 0;
+	private static long misses = 0;
+	private static long generation = 0;
+	
+	// Warm up
+	private static final Map<String, Future<DashboardData>> pending = new ConcurrentHashMap<String, Future<DashboardData>>();
+	private static final List<CancellationToken> warmUpTokens = new ArrayList<CancellationToken>();
+	private static ExecutorService warmUpExecutor;
+	private static long warmUpSession = 0;
+
+	/*
+	 * Cached data and the time it was stored.
+	 */
+	private static class Entry {
+		private final DashboardData data;
+		private final long created;
+
+		private Entry(DashboardData data) {
+			this.data = data;
+			this.created = System.currentTimeMillis();
+		}
+	}
+
+	private DashboardCache() {}
+
+	/**
+	 * Returns the cached data for the building, or null if it is missing or expired.
+	 * @param building - Building name, "" for all buildings
+	 * @param periods - Number of month periods in the data
+	 * @return cached DashboardData or null
+	 */
+	public static synchronized DashboardData get(String building, int periods) {
+		String key = key(building, periods);
+		Entry entry = entries.get(key);
+		if (entry != null && System.currentTimeMillis() - entry.created > TIME_TO_LIVE) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.data;
+	}
+
+	/**
+	 * Stores data loaded for its building. Data whose load started before the last
+	 * invalidation is dropped, since it may not include the change.
+	 * @param data - Loaded DashboardData
+	 * @param loadGeneration - Value of getGeneration() when the load started
+	 */
+	public static synchronized void put(DashboardData data, long loadGeneration) {
+		if (loadGeneration != generation || !data.isComplete()) return;
+		entries.put(key(data.getTitle(), DashboardData.getPeriodNumber()), new Entry(data));
+	}
+
+	/**
+	 * Removes every entry whose data includes the entered building: the building
+	 * itself, "" (all buildings) and any name the building matches as a search.
+	 * @param building - Building that changed, null to clear everything
+	 */
+	public static synchronized void invalidate(String building) {
+		generation++;
+		if (building == null) {
+			entries.clear();
+			return;
+		}
+		String changed = building.toLowerCase();
+		Iterator<String> keys = entries.keySet().iterator();
+		while (keys.hasNext()) {
+			String cachedBuilding = keys.next();
+			cachedBuilding = cachedBuilding.substring(0, cachedBuilding.lastIndexOf('|'));
+			if (changed.contains(cachedBuilding.toLowerCase())) keys.remove();
+		}
+	}
+
+	/**
+	 * Removes every entry.
+	 */
+	public static void invalidateAll() {
+		invalidate(null);
+	}
+	
+	/*
+	 * Warm Up
+	 */
+	
+	/**
+	 * Loads the DashboardData of every building in the background so the first click 
+	 * on each building is served from the cache. Loads run in parallel on an executor 
+	 * sized to the connection pool, leaving one connection free for the pages.
+	 * @param session - Admin log-in session
+	 */
+	public static void warmUp(Session session) {
+		Thread warmUp = new Thread(() -> {
+			
+			// Get buildings (same list as the dashboard View panel)
+			ArrayList<String> buildingList = new ArrayList<String>();
+			try (Connection connect = ConnectionPool.getConnection(session.getDbUrl(), Page.dbUsername, Page.dbPassword)) {
+				Statement statement = connect.createStatement();
+				QueryStats.tag(statement, "DashboardCache.buildingList");
+				ResultSet result = statement.executeQuery(PageQueries.BUILDING_LIST);
+				while (result.next()) buildingList.add(result.getString("building"));
+			} catch (SQLException err) {
+				err.printStackTrace();
+				return;
+			}
+			
+			// Load every building
+			ExecutorService executor;
+			long loadSession;
+			synchronized (DashboardCache.class) {
+				stopExecutor();
+				loadSession = ++warmUpSession;
+				AtomicInteger threadNumber = new AtomicInteger();
+				warmUpExecutor = Executors.newFixedThreadPool(Math.max(1, ConnectionPool.getMaxSize() - 1), runnable -> {
+					Thread thread = new Thread(runnable, "dashboard-warm-up-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+				executor = warmUpExecutor;
+			}
+			for (String building : buildingList) {
+				if (building == null) continue;
+				CancellationToken token = new CancellationToken();
+				FutureTask<DashboardData> task = new FutureTask<DashboardData>(() -> {
+					long loadGeneration = getGeneration();
+					DashboardData data = new DashboardData(building, session, token);
+					if (!token.isCancelled()) put(data, loadGeneration);
+					return data;
+				}) {
+					
+					// Runs when the load ends or is cancelled, and only removes this load
+					@Override
+					protected void done() {
+						pending.remove(building, this);
+						synchronized (warmUpTokens) {
+							warmUpTokens.remove(token);
+						}
+					}
+				};
+				
+				// Published and submitted under the lock shutdown() takes, so a log out 
+				// cannot leave a load in pending that will never run
+				synchronized (DashboardCache.class) {
+					if (warmUpSession != loadSession) break;
+					if (pending.putIfAbsent(building, task) != null) continue;
+					synchronized (warmUpTokens) {
+						warmUpTokens.add(token);
+					}
+					try {
+						executor.execute(task);
+					} catch (RejectedExecutionException err) {
+						task.cancel(false);
+						break;
+					}
+				}
+			}
+			executor.shutdown();
+		}, "dashboard-warm-up");
+		warmUp.setDaemon(true);
+		warmUp.start();
+	}
+	
+	/**
+	 * Returns the warm up load of the building if it is queued or running, so a page
+	 * can wait for it instead of loading the same data again.
+	 * @param building - Building name
+	 * @return the pending load or null
+	 */
+	public static Future<DashboardData> getPending(String building) {
+		return pending.get(building);
+	}
+	
+	/**
+	 * Stops the warm up (including queries in flight) and clears the cache. Used on log out.
+	 */
+	public static void shutdown() {
+		synchronized (DashboardCache.class) {
+			warmUpSession++;
+			stopExecutor();
+			pending.clear();
+		}
+		synchronized (warmUpTokens) {
+			for (CancellationToken token : warmUpTokens) token.cancel();
+			warmUpTokens.clear();
+		}
+		invalidateAll();
+	}
+	
+	/*
+	 * Stops the warm up executor. Loads that never started are cancelled so nothing 
+	 * waits on them.
+	 */
+	private static void stopExecutor() {
+		if (warmUpExecutor == null) return;
+		for (Runnable queued : warmUpExecutor.shutdownNow()) ((Future<?>) queued).cancel(false);
+		warmUpExecutor = null;
+	}
+
+	/**
+	 * @return a counter that changes on every invalidation
+	 */
+	public static synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return the number of lookups that found data
+	 */
+	public static synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that had to load data
+	 */
+	public static synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return cache size and hit ratio, for diagnostics
+	 */
+	public static synchronized String getStats() {
+		long lookups = hits + misses;
+		return "DashboardCache: " + entries.size() + " entries, " + hits + " hits, " + misses + " misses"
+				+ ((lookups == 0) ? "" : String.format(" (%.1f%% hit)", 100.0 * hits / lookups));
+	}
+
+	/*
+	 * Helper method that builds the cache key.
+	 */
+	private static String key(String building, int periods) {
+		return building + "|" + periods;
+	}
+}
@@ -2,16 +2,21 @@ package main.java.ui;
 
 import java.math.RoundingMode;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 
 import main.java.Session;
+import main.java.db.BuildingMonthKpis;
+import main.java.db.CancellationToken;
+import main.java.db.ConnectionPool;
+import main.java.db.MonthlyMetrics;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
 
 /**
  * A class that collects, calculates, and parses data from the database.
@@ -22,10 +27,11 @@ import main.java.Session;
 public class DashboardData {
 	private Session currentSession;
 	
-	private static int periodNumber = 24;
+	private static int periodNumber = MonthlyMetrics.DASHBOARD_MONTHS;
 	
 	private String title;
 	private int totalUnits, occupied, openComplaints, rentableArea;
+	private boolean complete = true;
 	
 	// Average Rent / Square Feet
 	private ArrayList<Object[]> averageRentPerArea = new ArrayList<Object[]>();
@@ -42,6 +48,17 @@ public class DashboardData {
 	 * @param session
 	 */
 	public DashboardData(String building, Session session) {
+		this(building, session, new CancellationToken());
+	}
+	
+	/**
+	 * Creates a DashboardData object for the entered building. The queries stop 
+	 * (and the data is left incomplete) if the token is cancelled.
+	 * @param building
+	 * @param session
+	 * @param token - Cancels the queries from another thread
+	 */
+	public DashboardData(String building, Session session, CancellationToken token) {
 
 		this.currentSession = session;
 		this.title = building;
@@ -60,199 +77,108 @@ public class DashboardData {
 		openComplaints = 0;
 		rentableArea = 0;
 
-		// Prepare query
-		String sqlGetTotalUnits = """
-				SELECT 
-					COUNT(unit) AS unit_count,
-					COUNT(IF(current_lease_end < CURRENT_DATE(), 1, NULL)) AS vacant,
-                	SUM(sqft) AS area
-				
-				FROM 
-                	(
-                    SELECT building, unit, current_lease_end, rent, sqft
-					FROM
-						(SELECT `unitid`, MAX(`end`) AS 'current_lease_end', `rent`, `userid` FROM `leases` GROUP BY `unitid`) as l
-									
-						RIGHT JOIN (SELECT id, building, floor, unit, sqft FROM units WHERE deleted = 0) as units 
-						ON l.unitid = units.id
-					) AS all_units 
-				"""
-				+ "WHERE building LIKE '%" 
-				+ ((building.equals("")) ? "" : (building)) 
-				+ "%'";
-		
-		String sqlGetOpenComplaints = """
-				SELECT COUNT(IF(complaint_count.status = 'open', 1, NULL)) as open_complaints
-				FROM (
-				    SELECT `status`, unitid, building 
-				    FROM `complaints`
-				    JOIN units 
-				    ON complaints.unitid = units.id
-				"""
-				+ "WHERE building LIKE '%" 
-				+ ((building.equals("")) ? "" : (building)) 
-				+ "%') AS complaint_count";
-
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
-			Statement statement = connect.createStatement();
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+			PreparedStatement statement = connect.prepareStatement(PageQueries.BUILDING_SUMMARY);
+			QueryStats.tag(statement, "DashboardData.buildingSummary");
+			statement.setString(1, "%" + building + "%");
+			token.register(statement);
 
 			// Query
-			
-			ResultSet result = statement.executeQuery(sqlGetTotalUnits);
+			ResultSet result = statement.executeQuery();
 			while (result.next()) {
 				totalUnits = result.getInt("unit_count");
 				occupied = totalUnits - result.getInt("vacant");
 				rentableArea = result.getInt("area");
 			}
 			
-			result = statement.executeQuery(sqlGetOpenComplaints);
-			while (result.next()) openComplaints = result.getInt("open_complaints");
+			token.unregister(statement);
 			
+			statement = connect.prepareStatement(PageQueries.BUILDING_OPEN_COMPLAINTS);
+			QueryStats.tag(statement, "DashboardData.openComplaints");
+			statement.setString(1, "%" + building + "%");
+			token.register(statement);
+			result = statement.executeQuery();
+			while (result.next()) openComplaints = result.getInt("open_complaints");
+			token.unregister(statement);
 
 			// Close connection
 			connect.close();
 		} catch (SQLException err) {
-			err.printStackTrace();
+			complete = false;
+			if (!token.isCancelled()) err.printStackTrace();
 		}
 		
 		/*
-		 * Get Average Rent/sqft
+		 * Get monthly series
 		 */
 		
 		LocalDate[] periods = generateMonthPeriods(periodNumber);
+		MonthlyMetrics[] months = new MonthlyMetrics[periods.length];
+		for (int i = 0; i < periods.length; i++) months[i] = new MonthlyMetrics(periods[i]);
 		
+		// Connect to database
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+			token.throwIfCancelled();
+			months = BuildingMonthKpis.load(connect, building, periods, token);
+		} catch (SQLException err) {
+			complete = false;
+			if (!token.isCancelled()) err.printStackTrace();
+		}
+		
+		addMonths(months);
+	}
+	
+	/**
+	 * Creates a DashboardData object from monthly metrics already loaded, without the
+	 * summary counts (used by the benchmarks to exercise the series without a database).
+	 * @param building - Building name, "" for all buildings
+	 * @param months - Metrics of each month, in order
+	 */
+	public DashboardData(String building, MonthlyMetrics[] months) {
+		this.title = building;
+		addMonths(months);
+	}
+	
+	/*
+	 * Parses the monthly metrics into the series.
+	 */
+	private void addMonths(MonthlyMetrics[] months) {
 		// Each period
-		for (LocalDate periodEnd : periods) {
-			LocalDate periodStart = periodEnd.minus(periodEnd.lengthOfMonth() - 1, ChronoUnit.DAYS);
-			
-			// Rent Revenue
-			double paymentRevenue = 0;
-			
-			// Average Rent variables
-			int totalRentedArea = 0;
-			int totalRentCharged = 0;
-			
-			// Vacancy Rate variables
-			int totalOccupied = 0;
-			int unitAmount = 0;
-			
-			
-			// Prepare query
-			String sqlGetRevenue = """
-					SELECT ROUND(SUM(amount), 2) AS revenue 
-					FROM  payments
-					JOIN (
-					    SELECT uid, unitid, building
-					    FROM users
-					    LEFT JOIN (
-					        SELECT *
-					        FROM (
-					            SELECT MAX(`end`) AS `recent_end`, unitid, userid
-					            FROM leases """ 
-					        + " WHERE leases.start < '" + periodEnd + "' "
-					        + "AND leases.end > '" + periodStart + "' "
-					        + """
-					            GROUP BY userid
-					        ) AS recent_leases
-					        JOIN units ON recent_leases.unitid = units.id
-					    ) AS l
-					    ON users.uid = l.userid
-					) AS u
-					ON payments.userid = u.uid 
-					"""
-					+ "WHERE payments.date >= '" + periodStart + "' "
-					+ "AND payments.date <= '" + periodEnd + "' "
-					+ "AND building LIKE '%" + building + "%'";
-			
-			String sqlGetRentArea = """
-					SELECT SUM(rent) AS rent_charged, SUM(sqft) as area_rented FROM(
-					    SELECT unitid, unit, building, `start`, `end`, rent, sqft, deleted, created
-					    FROM (SELECT unitid, `start`, `end`, rent FROM leases) as l
-					    JOIN units
-					    ON l.unitid = units.id
-					"""
-					+ "WHERE l.end > '" + periodStart + "' " 
-					+ "AND l.start < '" + periodEnd + "' "
-					+ "AND building LIKE '%" + building + "%' "
-					+ "AND created < '" + periodEnd + "' "
-					+ "AND (l.end >= CURRENT_DATE() OR l.end > '" + periodEnd + "') "
-					+ """ 
-					    GROUP BY unitid
-					) AS leases_in_count
-					""";
-			
-			String sqlGetOccupied = """
-					SELECT COUNT(unitid) AS occupied FROM(
-					    SELECT unitid, unit, building, `start`, `end`, deleted, created
-					    FROM (SELECT unitid, `start`, `end` FROM leases) as l
-					    JOIN units
-					    ON l.unitid = units.id
-					"""
-					+ "WHERE l.end > '" + periodStart + "' " 
-					+ "AND l.start < '" + periodEnd + "' "
-					+ "AND building LIKE '%" + building + "%' "
-					+ "AND created < '" + periodEnd + "' "
-					+ "AND (l.end >= CURRENT_DATE() OR l.end > '" + periodEnd + "') "
-					+ """ 
-					    GROUP BY unitid
-					) AS leases_in_count
-					""";
-			
-			String sqlGetUnitAmount = "SELECT COUNT(IF(units.created <= '" 
-					+ periodEnd + "',1,NULL)) AS unit_count "
-					+ "FROM `units` "
-					+ "WHERE building LIKE '%" + building + "%'";
-
-			// Connect to database
-			try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
-				Statement statement = connect.createStatement();
-
-				// Query
-				ResultSet result = statement.executeQuery(sqlGetRevenue);
-				while (result.next()) {
-					paymentRevenue = result.getDouble("revenue"); // TODO Change label to "payment revenue"
-				}
-				
-				result = statement.executeQuery(sqlGetRentArea);
-				while (result.next()) {
-					totalRentCharged = result.getInt("rent_charged");
-					totalRentedArea = result.getInt("area_rented");
-				}
-				
-				result = statement.executeQuery(sqlGetOccupied);
-				while (result.next()) {
-					totalOccupied = result.getInt("occupied");
-				}
-				
-				result = statement.executeQuery(sqlGetUnitAmount);
-				while (result.next()) {
-					unitAmount = result.getInt("unit_count");
-				}
-
-				// Close connection
-				connect.close();
-			} catch (SQLException err) {
-				err.printStackTrace();
-			}
+		for (MonthlyMetrics month : months) {
+			LocalDate periodEnd = month.getPeriodEnd();
 
 			// Average Rent Parse
-			double averageRentPerSqft = ((double)totalRentCharged / (double)totalRentedArea);
-			if ((double)totalRentedArea == 0) averageRentPerSqft = 0;
+			double averageRentPerSqft = ((double)month.getRentCharged() / (double)month.getAreaRented());
+			if ((double)month.getAreaRented() == 0) averageRentPerSqft = 0;
 			
 			Object[] averageRentPoint = {periodEnd, averageRentPerSqft};
 			averageRentPerArea.add(averageRentPoint);
 			
 			// Vacancy Rate Parse
-			Object[] vacancyRatePoint = {periodEnd, ((double)(unitAmount - totalOccupied)/ (double)unitAmount)};
+			Object[] vacancyRatePoint = {periodEnd, ((double)(month.getUnits() - month.getOccupied())/ (double)month.getUnits())};
 			vacancyRate.add(vacancyRatePoint);
 			
 			// Rent Revenue
-			Object[] grossRentsPoint = {periodEnd, paymentRevenue};
+			Object[] grossRentsPoint = {periodEnd, month.getRevenue()};
 			rentalRevenue.add(grossRentsPoint);	
 		}
 	}
 	
+	/**
+	 * @return the number of month periods in every data set
+	 */
+	public static int getPeriodNumber() {
+		return periodNumber;
+	}
+	
+	/**
+	 * @return false if any query failed or was cancelled while loading
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+	
 	/**
 	 * @return title of this data set
 	 */
@@ -0,0 +1,337 @@
+package main.java.ui;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.EventQueue;
+import java.awt.KeyboardFocusManager;
+import java.awt.Point;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.AbstractButton;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+
+import main.java.Page;
+
+/**
+ * Watches the Event Dispatch Thread for events that run longer than a budget (usually
+ * database calls made from a listener). While an event is over budget, the EDT's stack
+ * is sampled; when it ends, the stall is logged and added to the offenders of its page
+ * and action, with the application frame seen most in the samples.
+ * <p>
+ * Mouse and key events are queued on the window, and button actions run inside them, so
+ * the page and action are taken from the component under the mouse or the focus owner
+ * when the event is dispatched. Other events are named after the listener seen in the
+ * samples, and so are the pages of popups, which every page opens.
+ * <p>
+ * Set with the system properties "edt.watchdog" (true/false, default true),
+ * "edt.budgetMillis" (default 100) and "edt.sampleMillis" (default 20).
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class EdtWatchdog extends EventQueue {
+
+	// Configuration
+	private static final boolean enabled = Boolean.parseBoolean(System.getProperty("edt.watchdog", "true"));
+	private static final long budgetMillis = Long.getLong("edt.budgetMillis", 100);
+	private static final long sampleMillis = Long.getLong("edt.sampleMillis", 20);
+
+	// Offenders by page and action
+	private static final Map<String, Offender> offenders = new ConcurrentHashMap<>();
+	private static boolean installed = false;
+
+	// Event being dispatched, null while the EDT waits for events
+	private volatile Dispatch current;
+
+	/*
+	 * Event being dispatched, the component it targets and the stack samples taken while
+	 * it is over budget.
+	 */
+	private static class Dispatch {
+		private final AWTEvent event;
+		private final Thread thread = Thread.currentThread();
+		private volatile long start = System.nanoTime();
+		private final Map<String, Integer> samples = new ConcurrentHashMap<>();
+		private final Map<String, Integer> listeners = new ConcurrentHashMap<>();
+
+		// Target of a mouse or key event, and the mouse point in its coordinates
+		private Component target;
+		private Point point;
+		private String page = "-";
+		private boolean inPopup = false;
+
+		private Dispatch(AWTEvent event) {
+			this.event = event;
+			resolveTarget();
+			for (Component component = target; component != null; component = component.getParent()) {
+				// Popups are shared by every page, which is found from the listener instead
+				if (component instanceof PopupWindow) {
+					page = "PopupWindow";
+					inPopup = true;
+					break;
+				}
+				if (component instanceof Page) {
+					page = simpleName(component.getClass().getName());
+					break;
+				}
+				// Outermost application window (menu of the Dashboard frame)
+				if (component.getClass().getName().startsWith(EdtWatchdog.class.getPackageName() + ".")) {
+					page = simpleName(component.getClass().getName());
+				}
+			}
+		}
+
+		/*
+		 * Finds the component under the mouse of a click, or the focus owner of a key.
+		 */
+		private void resolveTarget() {
+			int id = event.getID();
+			if (event instanceof MouseEvent && (id == MouseEvent.MOUSE_PRESSED || id == MouseEvent.MOUSE_RELEASED
+					|| id == MouseEvent.MOUSE_CLICKED) && event.getSource() instanceof Component) {
+				MouseEvent mouse = (MouseEvent) event;
+				Component source = (Component) mouse.getSource();
+				target = (source instanceof Container)
+						? SwingUtilities.getDeepestComponentAt(source, mouse.getX(), mouse.getY()) : source;
+				if (target != null) point = SwingUtilities.convertPoint(source, mouse.getPoint(), target);
+			} else if (event instanceof KeyEvent) {
+				target = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+			}
+		}
+	}
+
+	/*
+	 * Stalls of a page and action.
+	 */
+	private static class Offender {
+		private final String name;
+		private final LongAdder stalls = new LongAdder();
+		private final LongAdder totalMillis = new LongAdder();
+		private final AtomicLong maxMillis = new AtomicLong();
+		private final Map<String, Integer> samples = new ConcurrentHashMap<>();
+
+		private Offender(String name) {
+			this.name = name;
+		}
+
+		private String getHotFrame() {
+			return hottest(samples);
+		}
+	}
+
+	private EdtWatchdog() {}
+
+	/*
+	 * Static Access
+	 */
+
+	/**
+	 * Replaces the system event queue with the watchdog and starts sampling. Does
+	 * nothing if already installed or disabled.
+	 */
+	public static synchronized void install() {
+		if (!enabled || installed) return;
+		installed = true;
+		EdtWatchdog queue = new EdtWatchdog();
+		Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+
+		Thread sampler = new Thread(queue::sample, "edt-watchdog");
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	/**
+	 * Prints the stalls of every page and action, longest total first: number of stalls,
+	 * total and maximum time, and the application frame seen most while stalled.
+	 * @param out - Stream to print to
+	 */
+	public static void dump(PrintStream out) {
+		List<Offender> all = new ArrayList<>(offenders.values());
+		if (all.isEmpty()) return;
+		all.sort(Comparator.comparingLong((Offender offender) -> offender.totalMillis.sum()).reversed());
+		out.println(String.format("%-60s %7s %10s %9s  %s", "EDT stalls (page / action)", "Count", "Total ms",
+				"Max ms", "Hot frame"));
+		for (Offender offender : all) {
+			out.println(String.format("%-60s %7d %10d %9d  %s", offender.name, offender.stalls.sum(),
+					offender.totalMillis.sum(), offender.maxMillis.get(), offender.getHotFrame()));
+		}
+	}
+
+	/*
+	 * Event Queue
+	 */
+
+	@Override
+	protected void dispatchEvent(AWTEvent event) {
+		Dispatch previous = current;
+		Dispatch dispatch = new Dispatch(event);
+		current = dispatch;
+		try {
+			super.dispatchEvent(event);
+		} finally {
+			current = previous;
+			long millis = (System.nanoTime() - dispatch.start) / 1000000;
+			if (millis >= budgetMillis) report(dispatch, millis);
+		}
+	}
+
+	/*
+	 * A modal dialog pumps events inside the event that opened it, so the wait for the
+	 * next event is not counted against that event.
+	 */
+	@Override
+	public AWTEvent getNextEvent() throws InterruptedException {
+		Dispatch waiting = current;
+		current = null;
+		try {
+			return super.getNextEvent();
+		} finally {
+			if (waiting != null) {
+				waiting.start = System.nanoTime();
+				current = waiting;
+			}
+		}
+	}
+
+	/*
+	 * Sampling
+	 */
+
+	/*
+	 * Samples the EDT's stack while the current event is over budget.
+	 */
+	private void sample() {
+		while (true) {
+			try {
+				Thread.sleep(sampleMillis);
+			} catch (InterruptedException err) {
+				return;
+			}
+			Dispatch dispatch = current;
+			if (dispatch == null || (System.nanoTime() - dispatch.start) / 1000000 < budgetMillis) continue;
+			StackTraceElement[] stack = dispatch.thread.getStackTrace();
+			String frame = applicationFrame(stack);
+			if (frame != null) dispatch.samples.merge(frame, 1, Integer::sum);
+			String listener = listenerFrame(stack);
+			if (listener != null) dispatch.listeners.merge(listener, 1, Integer::sum);
+		}
+	}
+
+	/*
+	 * Top application frame of a stack, skipping the instrumentation classes.
+	 */
+	private static String applicationFrame(StackTraceElement[] stack) {
+		for (StackTraceElement element : stack) {
+			String className = element.getClassName();
+			if (!className.startsWith("main.java.") || className.startsWith(EdtWatchdog.class.getName())
+					|| className.startsWith("main.java.db.QueryStats") || className.startsWith("main.java.db.ConnectionPool")) {
+				continue;
+			}
+			return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName() + ":"
+					+ element.getLineNumber();
+		}
+		return null;
+	}
+
+	/*
+	 * Listener the event called into: the outermost application frame of a stack, named
+	 * after its class and the method that created it (for lambdas and nested classes).
+	 */
+	private static String listenerFrame(StackTraceElement[] stack) {
+		for (int i = stack.length - 1; i >= 0; i--) {
+			String className = stack[i].getClassName();
+			if (!className.startsWith("main.java.") || className.startsWith(EdtWatchdog.class.getName())
+					|| className.startsWith(PopupWindow.class.getName())) {
+				continue;
+			}
+			String methodName = stack[i].getMethodName();
+			if (methodName.startsWith("lambda$")) methodName = methodName.split("\\$")[1];
+			return simpleName(className) + "." + methodName;
+		}
+		return null;
+	}
+
+	private static String simpleName(String className) {
+		className = className.substring(className.lastIndexOf('.') + 1);
+		return (className.indexOf('$') > 0) ? className.substring(0, className.indexOf('$')) : className;
+	}
+
+	private static String hottest(Map<String, Integer> samples) {
+		return samples.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse("-");
+	}
+
+	/*
+	 * Reporting
+	 */
+
+	/*
+	 * Logs a stall and adds it to its offender. Runs on the EDT, after the event.
+	 */
+	private static void report(Dispatch dispatch, long millis) {
+		String page = dispatch.page;
+		if ((page.equals("-") || dispatch.inPopup) && !dispatch.listeners.isEmpty()) {
+			String listener = hottest(dispatch.listeners);
+			page = listener.substring(0, listener.indexOf('.'));
+		}
+		String name = page + " / " + actionOf(dispatch);
+		Offender offender = offenders.computeIfAbsent(name, Offender::new);
+		offender.stalls.increment();
+		offender.totalMillis.add(millis);
+		offender.maxMillis.accumulateAndGet(millis, Math::max);
+		dispatch.samples.forEach((frame, count) -> offender.samples.merge(frame, count, Integer::sum));
+		System.out.println("[EDT] --> Stall of " + millis + " ms in " + name + " at " + hottest(dispatch.samples));
+	}
+
+	/*
+	 * Description of the event: the button or table column it targets, else the listener
+	 * seen in the samples, else the event type.
+	 */
+	private static String actionOf(Dispatch dispatch) {
+		String action = describe(dispatch.target, dispatch.point);
+		if (action == null && !dispatch.listeners.isEmpty()) action = "Listener " + hottest(dispatch.listeners);
+		if (action == null) {
+			action = (dispatch.event instanceof InvocationEvent) ? "Invocation" : dispatch.event.paramString().split(",")[0];
+		}
+		if (dispatch.event instanceof KeyEvent) {
+			action = "Key \"" + KeyEvent.getKeyText(((KeyEvent) dispatch.event).getKeyCode()) + "\" on " + action;
+		}
+		return action;
+	}
+
+	/*
+	 * Names a button by its text or action command and a table by the column clicked (or
+	 * the button drawn in the cell). Other components are not descriptive.
+	 */
+	private static String describe(Component target, Point point) {
+		if (target instanceof AbstractButton) {
+			AbstractButton button = (AbstractButton) target;
+			String text = button.getText();
+			if (text == null || text.isEmpty()) text = button.getActionCommand();
+			return "Button \"" + text + "\"";
+		}
+		if (target instanceof JTable && point != null) {
+			JTable table = (JTable) target;
+			int row = table.rowAtPoint(point);
+			int column = table.columnAtPoint(point);
+			if (column < 0) return "Table";
+			String name = table.getColumnName(column);
+			if (name.isEmpty() && row >= 0 && table.getValueAt(row, column) instanceof String) {
+				name = (String) table.getValueAt(row, column);
+			}
+			return "Table \"" + name + "\"";
+		}
+		return null;
+	}
+}
@@ -9,7 +9,6 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -25,6 +24,7 @@ import javax.swing.SwingConstants;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.ConnectionPool;
 
 /**
  * 
@@ -194,7 +194,7 @@ public class LoginWindow extends JFrame implements ActionListener, Page {
 		char[] password = passwordText.getPassword();
 		String passwordString = new String(password);
 		
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 
 			// Prepare query
 			Statement statement = connect.createStatement();
@@ -211,7 +211,11 @@ public class LoginWindow extends JFrame implements ActionListener, Page {
 
 					try {
 						// Bring up dash board
-						new Dashboard(new Session(results, dbUrl));
+						Session session = new Session(results, dbUrl);
+						ConnectionPool.warmUp(session);
+						if (session.isAdmin()) DashboardCache.warmUp(session);
+
+						new Dashboard(session);
 						
 						// Close log in window
 						this.setVisible(false);
@@ -12,7 +12,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,17 +20,27 @@ import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.BoundedRangeModel;
 import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.AccountBalances;
+import main.java.db.BuildingMonthKpis;
+import main.java.db.ConnectionPool;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
+
 
 /**
  * A class that creates an Resident Dashboard page consisting of 
@@ -46,7 +55,6 @@ public class ResidentDashboardPage extends JPanel implements Page{
 	// Data
 	private Session currentSession;
 	Object[] userInfo = new Object[8];
-	ArrayList<Object[]> userActivity = new ArrayList<Object[]>();
 	
 	//Setup
 	private String title = "Dashboard";
@@ -62,6 +70,11 @@ public class ResidentDashboardPage extends JPanel implements Page{
 	// Refresh
 	private JScrollPane paymentsScroll;
 	
+	// Ledger
+	private static final int LEDGER_PAGE_SIZE = PageQueries.LEDGER_PAGE_SIZE;
+	private LedgerModel ledgerModel;
+	private LedgerLoader ledgerLoader;
+	
 	// Refresh
 	private JPanel balancePanelContent;
 	private JPanel allResidentsPanelContent;
@@ -69,7 +82,6 @@ public class ResidentDashboardPage extends JPanel implements Page{
 	// Colors
 	private Color backgroundColor = Theme.baseColor;
 	private Color paneColor = Theme.paneColor;
-	private Color paneLightColor = Theme.paneLightColor;
 	private Color textColor = Theme.textSecondaryColor;
 	private Color textColorTitle = Theme.textPrimaryColor;
 	private Color fieldColor = Theme.fieldColor; 
@@ -167,34 +179,14 @@ public class ResidentDashboardPage extends JPanel implements Page{
 		 * Get user data
 		 */
 		
-		// Prepare query
-		String sqlQuery = """
-				SELECT * FROM (
-				SELECT `uid`,`user`,`start`,`recent_lease_end`,`unit`,`building`, ROUND(`sum_charges` - `sum_payments`, 2) AS balance
-				FROM (SELECT * FROM `users` WHERE users.type = 'general' AND deleted = 0 """ + " AND uid = " + currentSession.getUserId() + ") AS u " +
-				
-				    """	
-				    LEFT JOIN (SELECT `start`, MAX(`end`) AS 'recent_lease_end', `unitid`, `userid` FROM `leases` GROUP BY `userid`) AS l
-				    ON u.uid = l.userid
-				    
-				    LEFT JOIN (SELECT `id`,`unit`,`building` FROM `units`) AS u2
-				    ON l.unitid = u2.id
-				    
-				    LEFT JOIN (SELECT SUM(`charges`.`amount`) as sum_charges, charges.userid FROM charges WHERE charges.date <= CURRENT_DATE GROUP BY `userid`) as c
-				    ON u.uid = c.userid
-				    
-				    LEFT JOIN (SELECT SUM(`payments`.`amount`) as sum_payments, payments.userid FROM payments GROUP BY `userid`) as p
-				    ON u.uid = p.userid
-				    
-				) AS resident_manager 
-				""";
-
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
-			Statement statement = connect.createStatement();
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+			PreparedStatement statement = connect.prepareStatement(PageQueries.RESIDENT_INFO);
+			QueryStats.tag(statement, "ResidentDashboardPage.residentInfo");
+			statement.setInt(1, currentSession.getUserId());
 			
 			// Query
-			ResultSet result = statement.executeQuery(sqlQuery);
+			ResultSet result = statement.executeQuery();
 			while (result.next()) {
 				Object[] currentUser = {
 						result.getInt("uid"),
@@ -512,378 +504,61 @@ public class ResidentDashboardPage extends JPanel implements Page{
 		return panel;
 	}
 	
+	/**
+	 * Creates the Charges table over a model, with its columns, renderers and month 
+	 * separators but no actions (also used by TableBenchmark).
+	 * @param model - Charge and payment rows
+	 * @return the table
+	 */
+	public static ThemedTable createChargesTable(LedgerModel model) {
+		ThemedTable chargesTable = new ThemedTable(model);
+		chargesTable.setRowHeight(TABLE_CELL_HEIGHT + 10);
+		
+		// Columns
+		chargesTable.setColumn(LedgerModel.MONTH, 0, 
+				new ThemedTable.TextRenderer(SwingConstants.LEFT, row -> Theme.textSecondaryColor)
+				.withFont(new Font("Arial", Font.PLAIN, 25)));
+		chargesTable.setColumn(LedgerModel.DATE, 0, null);
+		chargesTable.setColumn(LedgerModel.NAME, 0, null);
+		chargesTable.setColumn(LedgerModel.DETAILS, 28, 
+				new ThemedTable.ButtonRenderer("...", new Dimension(20,16), 10));
+		chargesTable.setColumn(LedgerModel.CHARGE, 0, new ThemedTable.TextRenderer(SwingConstants.RIGHT, 
+				row -> model.isPayment(row) ? Theme.textSecondaryColor : Theme.redColor));
+		chargesTable.setColumn(LedgerModel.PAYMENT, 0, new ThemedTable.TextRenderer(SwingConstants.RIGHT, 
+				row -> model.isPayment(row) ? Theme.greenColor : Theme.textSecondaryColor));
+		chargesTable.setColumn(LedgerModel.BALANCE, 0, new ThemedTable.TextRenderer(SwingConstants.RIGHT));
+		chargesTable.setRowSeparator(row -> model.isFirstOfMonth(row) && row > 0 ? Theme.textSecondaryColor : null);
+		
+		return chargesTable;
+	}
+	
 	/**
 	 * Builds a Charges table on the input panel.
-	 * Creates a scroll table with charge details and options.
+	 * Creates a scroll table with charge details and options. The most recent months 
+	 * are loaded first and older months are fetched as the table is scrolled to the bottom.
 	 * @param panel - Panel to build the Charges table on
 	 */
 	private void buildChargesTable(JPanel panel) {
-		// Container
-		JPanel chargesTable = new JPanel();
-	    chargesTable.setLayout(new GridBagLayout());
-	    chargesTable.setOpaque(true);
-	    chargesTable.setBackground(paneColor);
-	    chargesTable.setAlignmentX(Component.LEFT_ALIGNMENT);
-	    GridBagConstraints c = new GridBagConstraints();
-	    
-	    /*
-	     * Table header
-	     */
-	    
-	    // Month
-	    JLabel columnHeader0 = new JLabel("", SwingConstants.LEFT);
-		columnHeader0.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader0.setForeground(textColor);
-		columnHeader0.setBorder(new EmptyBorder(0, 4, 0, 6));
-		c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 1;
-        c.gridy = 0;
-        c.weightx = 0.10;
-		c.weighty = 0.0;
-		c.gridwidth = 1;
-		chargesTable.add(columnHeader0, c);
+		ledgerModel = new LedgerModel();
+		ThemedTable chargesTable = createChargesTable(ledgerModel);
 		
-		// Date
-		JLabel columnHeader1 = new JLabel("Date", SwingConstants.LEFT);
-		columnHeader1.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader1.setForeground(textColor);
-		columnHeader1.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.14;
-        c.gridx = 2;
-        c.gridy = 0;
-        c.gridwidth = 1;
-        chargesTable.add(columnHeader1, c);
-		
-        // Name
-		JLabel columnHeader2 = new JLabel("Charge/Payment", SwingConstants.LEFT);
-		columnHeader2.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader2.setForeground(textColor);
-		columnHeader2.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.14;
-        c.gridx = 3;
-        c.gridy = 0;
-        c.gridwidth = 1;
-        chargesTable.add(columnHeader2, c);
-        
-        // Charge
-        JLabel columnHeader3 = new JLabel("Charge", SwingConstants.RIGHT);
-		columnHeader3.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader3.setForeground(textColor);
-		columnHeader3.setPreferredSize(new Dimension(65, TABLE_CELL_HEIGHT));
-		columnHeader3.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.weightx = 0.14;
-		c.gridwidth = 1;
-        c.gridx = 5;
-        c.gridy = 0;
-        chargesTable.add(columnHeader3, c);
-        
-        // Payment
-        JLabel columnHeader4 = new JLabel("Payment", SwingConstants.RIGHT);
-		columnHeader4.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader4.setForeground(textColor);
-		columnHeader4.setPreferredSize(new Dimension(65, TABLE_CELL_HEIGHT));
-		columnHeader4.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.gridwidth = 1;
-        c.weightx = 0.14;
-        c.gridx = 6;
-	    c.gridy = 0;
-	    chargesTable.add(columnHeader4, c);
-	    
-	    // Balance
-        JLabel columnHeader5 = new JLabel("Balance", SwingConstants.RIGHT);
-		columnHeader5.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader5.setForeground(textColor);
-		columnHeader5.setPreferredSize(new Dimension(65, TABLE_CELL_HEIGHT));
-		columnHeader5.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.gridwidth = 1;
-        c.weightx = 0.14;
-        c.gridx = 7;
-	    c.gridy = 0;
-	    chargesTable.add(columnHeader5, c);
-		
-        // Header underline
-        JPanel headerLine = new JPanel();
-        headerLine.setBackground(textColor);
-        headerLine.setPreferredSize(new Dimension(100, 1));
-        c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.0;
-		c.gridwidth = 7;
-        c.gridx = 1;
-        c.gridy = 1;
-        chargesTable.add(headerLine, c);
-     
-        /*
-         * Table Rows
-         */
-        
-        // Prepare query
-        String sqlQuery = """
-        		(SELECT userid, 'charge' AS type, date, name, amount AS charge, 0 AS payment, id
-				FROM charges
-				WHERE userid = ? AND date <= CURRENT_DATE())
-				UNION
-				(SELECT userid, 'payment' AS type, date, name, 0 AS charge, amount AS payment, id
-				FROM payments
-				WHERE userid = ? AND date <= CURRENT_DATE())
-				ORDER BY date DESC, charge
-        		""";
-
-        // Connect to database
-        try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
-        	PreparedStatement statement = connect.prepareStatement(sqlQuery);
-
-        	// Query
-        	statement.setInt(1, currentSession.getUserId());
-        	statement.setInt(2, currentSession.getUserId());
-        	ResultSet result = statement.executeQuery();
-        	userActivity = sqlToArray(result);
-        	statement.close();
-
-        	// Close connection
-        	connect.close();
-        } catch (SQLException err) {
-        	err.printStackTrace();
-        }
-        
-        // Loop
-        int currentRow = 2;
-        Color rowColor = paneColor;
-        Object[] previous = new Object[7];
-		double currentBalance = ((double)userInfo[6]);
-        for (Object[] activity : userActivity) {
-        	
-        	// If current month or year different from previous
-        	if (previous[0] != null) {
-        		if (((Date)activity[2]).toLocalDate().getMonthValue() != ((Date)previous[2]).toLocalDate().getMonthValue() 
-        			|| ((Date)activity[2]).toLocalDate().getYear() != ((Date)previous[2]).toLocalDate().getYear()) {
-        		
-	        		JPanel buildingLine = new JPanel();
-		        	buildingLine.setBackground(textColor);
-		        	buildingLine.setPreferredSize(new Dimension(100, 1));
-		            c.fill = GridBagConstraints.HORIZONTAL;
-		    		c.weightx = 0.0;
-		    		c.gridwidth = 7;
-		            c.gridx = 1;
-		            c.gridy = currentRow;
-		            chargesTable.add(buildingLine, c);
-		            currentRow++;
-		            currentRow++;
-		            
-		            // Month
-					JLabel tableColumn0 = new JLabel(((Date)activity[2]).toLocalDate().format(
-							DateTimeFormatter.ofPattern("MMMM")), SwingConstants.LEFT);
-					tableColumn0.setFont(new Font("Arial", Font.PLAIN, 25));
-			    	tableColumn0.setForeground(textColor);
-			    	tableColumn0.setBorder(new EmptyBorder(0, 4, 0, 4));
-			    	tableColumn0.setOpaque(true);
-			    	tableColumn0.setBackground(rowColor);
-					c.fill = GridBagConstraints.BOTH;
-			        c.gridx = 1;
-			        c.gridy = currentRow;
-			        c.weightx = 0.0;
-					c.weighty = 0.0;
-					c.gridwidth = 1;
-					c.gridheight = 1;
-					chargesTable.add(tableColumn0, c);
-        		}
-        		else {
-    				JPanel tableColumn0 = new JPanel();
-    				tableColumn0.setOpaque(false);
-    				if (currentRow % 2 == 1) {
-    		    		tableColumn0.setOpaque(true);
-    		    		tableColumn0.setBackground(paneLightColor);
-    		    	}
-    				c.fill = GridBagConstraints.BOTH;
-    		        c.gridx = 1;
-    		        c.gridy = currentRow;
-    		        c.weightx = 0.0;
-    				c.weighty = 0.0;
-    				c.gridwidth = 1;
-    				chargesTable.add(tableColumn0, c);
-    			}
-        	}
-        	else {
-        		 // Month
-				JLabel tableColumn0 = new JLabel(((Date)activity[2]).toLocalDate().format(
-						DateTimeFormatter.ofPattern("MMMM")), SwingConstants.LEFT);
-				tableColumn0.setFont(new Font("Arial", Font.PLAIN, 25));
-		    	tableColumn0.setForeground(textColor);
-		    	tableColumn0.setBorder(new EmptyBorder(0, 4, 0, 4));
-		    	tableColumn0.setOpaque(true);
-		    	tableColumn0.setBackground(rowColor);
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 1;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				c.gridheight = 1;
-				chargesTable.add(tableColumn0, c);
-        	}
-        	
-        	// Move temp
-        	previous = activity;
-        
-			// Date
-			JLabel tableColumn1 = new JLabel(((Date)activity[2]).toLocalDate().format(
-					DateTimeFormatter.ofPattern("MM/dd/yyyy")), SwingConstants.LEFT);
-			tableColumn1.setFont(new Font("Arial", Font.PLAIN, 14));
-	    	tableColumn1.setForeground(textColorTitle);
-	    	tableColumn1.setBorder(new EmptyBorder(7, 4, 7, 4));
-	    	tableColumn1.setOpaque(true);
-	    	tableColumn1.setBackground(rowColor);
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 2;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			c.gridheight = 1;
-			chargesTable.add(tableColumn1, c);
-			
-
-			// Name
-			JLabel tableColumn2 = new JLabel(((String)activity[3]), SwingConstants.LEFT);
-			tableColumn2.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn2.setForeground(textColorTitle);
-			tableColumn2.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn2.setOpaque(true);
-	    	tableColumn2.setBackground(rowColor);
-	    	c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 3;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			chargesTable.add(tableColumn2, c);
-			
-			// More info button
-			if (((String)activity[1]).equals("payment")) {
-				JPanel moreInfoContainer = new JPanel();
-				moreInfoContainer.setLayout(new GridBagLayout());
-				moreInfoContainer.setBackground(rowColor);
-				
-				CustomButton moreInfoButton = new CustomButton("...", 
-						Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-				moreInfoButton.setFont(new Font("Arial", Font.BOLD, 10));
-				moreInfoButton.setForeground(textColorTitle);
-				moreInfoButton.setFocusPainted(false);
-				moreInfoButton.setBorder(new EmptyBorder(0, 4, 0, 4));
-				moreInfoButton.setPreferredSize(new Dimension(20,16));
-				moreInfoButton.addActionListener(new ActionListener() {
-	
-					@Override
-					public void actionPerformed(ActionEvent e) {
-						new PopupWindow(buildPaymentDetails((int)activity[6]), "ok");
-						
-					}
-					
-				});
-				moreInfoContainer.add(moreInfoButton, c);
-				
-				// Add container
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 4;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				c.gridheight = 1;
-				chargesTable.add(moreInfoContainer, c);
-			}
-			else {
-				JPanel moreInfoContainer = new JPanel();
-				moreInfoContainer.setLayout(new GridBagLayout());
-				moreInfoContainer.setBackground(rowColor);
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 4;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				c.gridheight = 1;
-				chargesTable.add(moreInfoContainer, c);
-			}
-			
-			// Charges
-			JLabel tableColumn3 = new JLabel(dollarFormat.format((double)activity[4]), SwingConstants.RIGHT);
-			tableColumn3.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn3.setForeground(textColor);
-			if (((String)activity[1]).equals("charge")) tableColumn3.setForeground(redColor);
-			tableColumn3.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn3.setOpaque(true);
-	    	tableColumn3.setBackground(rowColor);
-	    	c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 5;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			chargesTable.add(tableColumn3, c);
-			
-			// Payments
-			JLabel tableColumn4 = new JLabel(dollarFormat.format((double)activity[5]), SwingConstants.RIGHT);
-			tableColumn4.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn4.setForeground(textColor);
-			if (((String)activity[1]).equals("payment")) tableColumn4.setForeground(greenColor);
-			tableColumn4.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn4.setOpaque(true);
-	    	tableColumn4.setBackground(rowColor);
-	    	c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 6;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			chargesTable.add(tableColumn4, c);
-			
-			// Balance
-			JLabel tableColumn5 = new JLabel(dollarFormat.format(currentBalance), SwingConstants.RIGHT);
-			if (currentBalance <= 0.01) tableColumn5.setText(dollarFormat.format(0.0));
-			tableColumn5.setFont(new Font("Arial", Font.PLAIN, 14));
-			tableColumn5.setForeground(textColorTitle);
-			tableColumn5.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn5.setOpaque(true);
-	    	tableColumn5.setBackground(rowColor);
-	    	c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 7;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			chargesTable.add(tableColumn5, c);
-			
-			currentBalance += (double)activity[5];
-			currentBalance -= (double)activity[4];
-				
-			currentRow++;
-			
-			// Alternate row colors
-			if (rowColor == paneLightColor) rowColor = paneColor;
-        	else rowColor = paneLightColor;	
-        }
-        
-        // Push charges table up
-    	JPanel tableBottomSpacer = new JPanel();
-    	tableBottomSpacer.setOpaque(false);
-        c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0;
-		c.weighty = 1;
-		c.gridwidth = 1;
-        c.gridx = 0;
-        c.gridy = currentRow;
-        chargesTable.add(tableBottomSpacer, c);
+		// Actions
+		chargesTable.setCellAction(LedgerModel.DETAILS, row -> {
+			if (!ledgerModel.isPayment(row)) return;
+			new PopupWindow(buildPaymentDetails((int) ledgerModel.getActivity(row)[6]), "ok");
+		});
       
         // Charges table scroll
-	    paymentsScroll = new JScrollPane(chargesTable);
-	    paymentsScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-	    paymentsScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-	    paymentsScroll.setBorder(new EmptyBorder(0,0,0,0));
-	    paymentsScroll.getVerticalScrollBar().setUnitIncrement(10);
-	    paymentsScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
-	    paymentsScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
+		GridBagConstraints c = new GridBagConstraints();
+	    paymentsScroll = chargesTable.buildScrollPane();
+	    paymentsScroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+	    	BoundedRangeModel scroll = paymentsScroll.getVerticalScrollBar().getModel();
+	    	
+	    	// Fetch older months a few screens before the bottom
+	    	if (scroll.getMaximum() - (scroll.getValue() + scroll.getExtent()) < scroll.getExtent() * 2) {
+	    		loadOlderMonths();
+	    	}
+	    });
         c.fill = GridBagConstraints.BOTH;
         c.gridx = 0;
         c.gridy = 1;
@@ -891,6 +566,257 @@ public class ResidentDashboardPage extends JPanel implements Page{
 		c.weighty = 1.0;
 		c.gridwidth = 1;
 		panel.add(paymentsScroll, c);
+		
+		loadRecentMonths();
+	}
+	
+	/*
+	 * Ledger Paging
+	 */
+	
+	/**
+	 * Reloads the most recent months of activity, dropping the months loaded so far. 
+	 * The running balance starts from the user's balance as of today, the last date 
+	 * the first page loads.
+	 */
+	private void loadRecentMonths() {
+		if (ledgerLoader != null) ledgerLoader.cancel(false);
+		ledgerLoader = null;
+		
+		LedgerPage page = null;
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+			page = loadLedgerPage(connect, LocalDate.now().plusDays(1));
+		} catch (SQLException err) {
+			err.printStackTrace();
+		}
+		ledgerModel.setFirstPage(page, (double) userInfo[6]);
+	}
+	
+	/**
+	 * Fetches the months before the oldest loaded one in the background, unless they 
+	 * are already being fetched or every month is loaded.
+	 */
+	private void loadOlderMonths() {
+		if (ledgerLoader != null || !ledgerModel.hasMore()) return;
+		ledgerLoader = new LedgerLoader(ledgerModel.getNextBefore());
+		ledgerLoader.execute();
+	}
+	
+	/**
+	 * Background task that loads the months before a given date.
+	 */
+	private class LedgerLoader extends SwingWorker<LedgerPage, Void> {
+		private final LocalDate before;
+		
+		private LedgerLoader(LocalDate before) {
+			this.before = before;
+		}
+		
+		@Override
+		protected LedgerPage doInBackground() throws SQLException {
+			try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
+				return loadLedgerPage(connect, before);
+			}
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled() || ledgerLoader != this) return;
+			ledgerLoader = null;
+			try {
+				ledgerModel.appendPage(get());
+			} catch (InterruptedException | ExecutionException err) {
+				err.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Whole months of charges and payments, newest first.
+	 */
+	public static class LedgerPage {
+		private final ArrayList<Object[]> activity;
+		private final LocalDate start;
+		private final boolean more;
+		
+		/**
+		 * @param activity - Rows of PageQueries.LEDGER_PAGE
+		 * @param start - First day of the oldest month in the page
+		 * @param more - True if there is activity before the start
+		 */
+		public LedgerPage(ArrayList<Object[]> activity, LocalDate start, boolean more) {
+			this.activity = activity;
+			this.start = start;
+			this.more = more;
+		}
+	}
+	
+	/**
+	 * Loads the whole months holding the next LEDGER_PAGE_SIZE charges and payments 
+	 * before a date. Pages always end on a month boundary, so a month is never split 
+	 * between two pages.
+	 * @param connect - Open connection
+	 * @param before - Exclusive upper bound, the start of the previous page
+	 * @return the page of activity, empty if there is none before the date
+	 * @throws SQLException if a query fails
+	 */
+	private LedgerPage loadLedgerPage(Connection connect, LocalDate before) throws SQLException {
+		
+		LocalDate start;
+		boolean more;
+		
+		// Oldest date of the next rows
+		try (PreparedStatement statement = connect.prepareStatement(PageQueries.LEDGER_START)) {
+			QueryStats.tag(statement, "ResidentDashboardPage.ledgerStart");
+			statement.setInt(1, currentSession.getUserId());
+			statement.setDate(2, Date.valueOf(before));
+			statement.setInt(3, LEDGER_PAGE_SIZE);
+			statement.setInt(4, currentSession.getUserId());
+			statement.setDate(5, Date.valueOf(before));
+			statement.setInt(6, LEDGER_PAGE_SIZE);
+			statement.setInt(7, LEDGER_PAGE_SIZE);
+			ResultSet result = statement.executeQuery();
+			result.next();
+			if (result.getDate("oldest") == null) return new LedgerPage(new ArrayList<Object[]>(), before, false);
+			start = result.getDate("oldest").toLocalDate().withDayOfMonth(1);
+			more = result.getInt("row_count") == LEDGER_PAGE_SIZE;
+		}
+		
+		// Every row of those months
+        try (PreparedStatement statement = connect.prepareStatement(PageQueries.LEDGER_PAGE)) {
+	        QueryStats.tag(statement, "ResidentDashboardPage.ledgerPage");
+	        statement.setInt(1, currentSession.getUserId());
+	        statement.setDate(2, Date.valueOf(start));
+	        statement.setDate(3, Date.valueOf(before));
+	        statement.setInt(4, currentSession.getUserId());
+	        statement.setDate(5, Date.valueOf(start));
+	        statement.setDate(6, Date.valueOf(before));
+	        return new LedgerPage(sqlToArray(statement.executeQuery()), start, more);
+        }
+	}
+	
+	/**
+	 * Table model over the loaded months of charges and payments, newest first. 
+	 * The balance of each row is carried from the row after it, so it stays 
+	 * correct as older months are appended.
+	 */
+	public static class LedgerModel extends AbstractTableModel {
+		private static final int MONTH = 0;
+		private static final int DATE = 1;
+		private static final int NAME = 2;
+		private static final int DETAILS = 3;
+		private static final int CHARGE = 4;
+		private static final int PAYMENT = 5;
+		private static final int BALANCE = 6;
+		private final String[] columnNames = {"", "Date", "Charge/Payment", "", "Charge", "Payment", "Balance"};
+		private final DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMMM");
+		private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+		private final ArrayList<Object[]> activity = new ArrayList<Object[]>();
+		private final ArrayList<Double> balances = new ArrayList<Double>();
+		private double balance = 0;
+		private LocalDate nextBefore;
+		private boolean more = false;
+		
+		/**
+		 * Replaces the loaded activity with the most recent months.
+		 * @param page - Most recent months, null if they could not be loaded
+		 * @param currentBalance - Balance after the most recent activity
+		 */
+		public void setFirstPage(LedgerPage page, double currentBalance) {
+			activity.clear();
+			balances.clear();
+			balance = currentBalance;
+			more = false;
+			if (page != null) add(page);
+			fireTableDataChanged();
+		}
+		
+		/**
+		 * Adds older months after the loaded activity.
+		 * @param page - Months before the oldest loaded one
+		 */
+		private void appendPage(LedgerPage page) {
+			int first = activity.size();
+			add(page);
+			if (activity.size() > first) fireTableRowsInserted(first, activity.size() - 1);
+		}
+		
+		/*
+		 * Adds the rows of a page, each with the balance after it.
+		 */
+		private void add(LedgerPage page) {
+			for (Object[] row : page.activity) {
+				activity.add(row);
+				balances.add(balance);
+				balance += (double) row[5];
+				balance -= (double) row[4];
+			}
+			nextBefore = page.start;
+			more = page.more;
+		}
+		
+		private boolean hasMore() {
+			return more;
+		}
+		
+		private LocalDate getNextBefore() {
+			return nextBefore;
+		}
+		
+		private Object[] getActivity(int row) {
+			return activity.get(row);
+		}
+		
+		private boolean isPayment(int row) {
+			return ((String) activity.get(row)[1]).equals("payment");
+		}
+		
+		private boolean isFirstOfMonth(int row) {
+			if (row == 0) return true;
+			LocalDate date = ((Date) activity.get(row)[2]).toLocalDate();
+			LocalDate previous = ((Date) activity.get(row - 1)[2]).toLocalDate();
+			return date.getMonthValue() != previous.getMonthValue() || date.getYear() != previous.getYear();
+		}
+		
+		@Override
+		public int getRowCount() {
+			return activity.size();
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return columnNames.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return columnNames[column];
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			Object[] entry = activity.get(row);
+			
+			switch (column) {
+			case MONTH:
+				return isFirstOfMonth(row) ? ((Date) entry[2]).toLocalDate().format(monthFormat) : null;
+			case DATE:
+				return ((Date) entry[2]).toLocalDate().format(dateFormat);
+			case NAME:
+				return entry[3];
+			case DETAILS:
+				return isPayment(row) ? "..." : null;
+			case CHARGE:
+				return dollarFormat.format((double) entry[4]);
+			case PAYMENT:
+				return dollarFormat.format((double) entry[5]);
+			case BALANCE:
+				double rowBalance = balances.get(row);
+				return dollarFormat.format((rowBalance <= 0.01) ? 0.0 : rowBalance);
+			default:
+				return null;
+			}
+		}
 	}
 	
 	/*
@@ -1098,16 +1024,22 @@ public class ResidentDashboardPage extends JPanel implements Page{
 					String sqlGetPaymentId = "SELECT MAX(id) AS pid FROM `payments` WHERE userid = " + currentSession.getUserId();
 
 					// Connect to database
-					try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+					try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 						PreparedStatement statement = connect.prepareStatement(sqlQuery);
 						
-						// Query
+						// Query (payment and balance together)
+						connect.setAutoCommit(false);
 						statement.setString(1, "Debit Card On-Line Payment");
 						statement.setDouble(2, amountEntry);
 						statement.setString(3, "0000");
 						statement.setInt(4, currentSession.getUserId());
 						statement.executeUpdate();
 						statement.close();
+						AccountBalances.recordPayment(connect, currentSession.getUserId(), amountEntry);
+						BuildingMonthKpis.recordPayment(connect, currentSession.getUserId(), amountEntry);
+						connect.commit();
+						connect.setAutoCommit(true);
+						DashboardCache.invalidate((String) userInfo[5]);
 
 						// Close submit payment pop up
 						submitPaymentPopup.setVisible(false);
@@ -1174,7 +1106,7 @@ public class ResidentDashboardPage extends JPanel implements Page{
 		String sqlQuery = "SELECT * FROM payments WHERE id = " + paymentId;
 
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, dbUsername, dbPassword)) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, dbUsername, dbPassword)) {
 			Statement statement = connect.createStatement();
 
 			// Query
@@ -1411,19 +1343,10 @@ public class ResidentDashboardPage extends JPanel implements Page{
 	
 	@Override
 	public void refreshAll() {
-		refreshTable(allResidentsPanelContent, paymentsScroll);
+		
+		// Balance first, the ledger's running balance starts from it
 		refreshBalance(balancePanel, balancePanelContent);
-	}
-
-	/**
-	 * Removes the Charges panel content from its container and rebuilds it.
-	 * @param panel - Container
-	 * @param table - Content
-	 */
-	private void refreshTable(JPanel panel, Component table) {
-		panel.remove(table);
-		buildChargesTable(panel);
-		panel.validate();
+		loadRecentMonths();
 	}
 	
 	/**
@@ -0,0 +1,226 @@
+package main.java.ui;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory index of the Resident Manager rows, so filter changes are answered
+ * without a database round trip. Names, usernames, units and buildings are indexed
+ * by trigram; the Active, Inactive and New toggles are bitsets over the rows.
+ * <p>
+ * Matching follows the SQL it replaces: case-insensitive substring search (LIKE '%...%'),
+ * with the name search covering first name, last name and username.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+public class ResidentIndex {
+
+	// Resident row columns (see ResidentManagerPage.loadResidents)
+	private static final int UID = 0;
+	private static final int USER = 1;
+	private static final int FIRST_NAME = 4;
+	private static final int LAST_NAME = 5;
+	private static final int LEASE_END = 7;
+	private static final int UNIT = 8;
+	private static final int BUILDING = 9;
+
+	// Lower case search keys of a row
+	private static final int KEY_FIRST_NAME = 0;
+	private static final int KEY_LAST_NAME = 1;
+	private static final int KEY_USER = 2;
+	private static final int KEY_UNIT = 3;
+	private static final int KEY_BUILDING = 4;
+
+	private static final int GRAM = 3;
+
+	// Rows
+	private final List<Object[]> rows = new ArrayList<Object[]>();
+	private final List<String[]> keys = new ArrayList<String[]>();
+	private final Map<Integer, Integer> rowByUid = new HashMap<Integer, Integer>();
+	private boolean sorted = true;
+
+	// Trigram postings
+	private final Map<String, Postings> nameGrams = new HashMap<String, Postings>();
+	private final Map<String, Postings> unitGrams = new HashMap<String, Postings>();
+	private final Map<String, Postings> buildingGrams = new HashMap<String, Postings>();
+
+	// Status filters
+	private final BitSet live = new BitSet();
+	private final BitSet active = new BitSet();
+	private final BitSet inactive = new BitSet();
+	private final BitSet noUnit = new BitSet();
+	private final LocalDate today = LocalDate.now();
+
+	/*
+	 * Row numbers containing a trigram, in increasing order.
+	 */
+	private static class Postings {
+		private int[] rows = new int[4];
+		private int size = 0;
+
+		private void add(int row) {
+			if (size > 0 && rows[size - 1] == row) return;
+			if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+			rows[size++] = row;
+		}
+	}
+
+	/**
+	 * Builds an index over resident rows.
+	 * @param residents - Rows in display order (username ascending)
+	 */
+	public ResidentIndex(List<Object[]> residents) {
+		for (Object[] resident : residents) addRow(resident);
+	}
+
+	/**
+	 * Adds a resident, e.g. one just created on the page.
+	 * @param resident - Row in the same format as the loaded rows
+	 */
+	public void add(Object[] resident) {
+		addRow(resident);
+		sorted = false;
+	}
+
+	/**
+	 * Removes a resident from the search results.
+	 * @param uid - User id of the resident
+	 */
+	public void remove(int uid) {
+		Integer row = rowByUid.remove(uid);
+		if (row != null) live.clear(row);
+	}
+
+	/**
+	 * @return the number of residents in the index
+	 */
+	public int size() {
+		return live.cardinality();
+	}
+
+	/**
+	 * Returns the residents matching a search.
+	 * @param name - Part of a first name, last name or username, "" for any
+	 * @param building - Part of a building name, "" for any
+	 * @param unit - Part of a unit name, "" for any
+	 * @param showActive - Active toggle
+	 * @param showInactive - Inactive toggle
+	 * @param showNew - New toggle
+	 * @return matching rows, ordered by username
+	 */
+	public ArrayList<Object[]> search(String name, String building, String unit,
+			boolean showActive, boolean showInactive, boolean showNew) {
+		name = name.toLowerCase(Locale.ROOT);
+		building = building.toLowerCase(Locale.ROOT);
+		unit = unit.toLowerCase(Locale.ROOT);
+
+		// Status toggles (none selected shows everyone)
+		BitSet allowed = (BitSet) live.clone();
+		if (showActive || showInactive || showNew) {
+			if (!showActive) allowed.andNot(active);
+			if (!showInactive) allowed.andNot(inactive);
+			if (!showNew) allowed.andNot(noUnit);
+		}
+
+		// Start from the shortest postings list of the search terms
+		Postings candidates = null;
+		candidates = shortest(candidates, nameGrams, name);
+		candidates = shortest(candidates, unitGrams, unit);
+		candidates = shortest(candidates, buildingGrams, building);
+
+		ArrayList<Object[]> results = new ArrayList<Object[]>();
+		if (candidates != null) {
+			for (int i = 0; i < candidates.size; i++) {
+				int row = candidates.rows[i];
+				if (allowed.get(row) && matches(row, name, building, unit)) results.add(rows.get(row));
+			}
+		}
+		else {
+			for (int row = allowed.nextSetBit(0); row >= 0; row = allowed.nextSetBit(row + 1)) {
+				if (matches(row, name, building, unit)) results.add(rows.get(row));
+			}
+		}
+
+		// Residents added after loading are at the end
+		if (!sorted) results.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare((String) a[USER], (String) b[USER]));
+		return results;
+	}
+
+	/*
+	 * Index Methods
+	 */
+
+	private void addRow(Object[] resident) {
+		int row = rows.size();
+		String[] key = new String[5];
+		key[KEY_FIRST_NAME] = lower(resident[FIRST_NAME]);
+		key[KEY_LAST_NAME] = lower(resident[LAST_NAME]);
+		key[KEY_USER] = lower(resident[USER]);
+		key[KEY_UNIT] = lower(resident[UNIT]);
+		key[KEY_BUILDING] = lower(resident[BUILDING]);
+		rows.add(resident);
+		keys.add(key);
+		rowByUid.put(((Number) resident[UID]).intValue(), row);
+
+		addGrams(nameGrams, key[KEY_FIRST_NAME], row);
+		addGrams(nameGrams, key[KEY_LAST_NAME], row);
+		addGrams(nameGrams, key[KEY_USER], row);
+		addGrams(unitGrams, key[KEY_UNIT], row);
+		addGrams(buildingGrams, key[KEY_BUILDING], row);
+
+		live.set(row);
+		if (resident[UNIT] == null) noUnit.set(row);
+		if (resident[LEASE_END] != null) {
+			if (((Date) resident[LEASE_END]).toLocalDate().isBefore(today)) inactive.set(row);
+			else active.set(row);
+		}
+	}
+
+	private static void addGrams(Map<String, Postings> grams, String value, int row) {
+		if (value == null) return;
+		for (int i = 0; i + GRAM <= value.length(); i++) {
+			grams.computeIfAbsent(value.substring(i, i + GRAM), k -> new Postings()).add(row);
+		}
+	}
+
+	/*
+	 * Returns the shorter of current and the shortest postings list of the search
+	 * term's trigrams. Terms shorter than a trigram do not narrow the candidates.
+	 */
+	private static Postings shortest(Postings current, Map<String, Postings> grams, String term) {
+		for (int i = 0; i + GRAM <= term.length(); i++) {
+			Postings postings = grams.get(term.substring(i, i + GRAM));
+			if (postings == null) return new Postings(); // No row contains the term
+			if (current == null || postings.size < current.size) current = postings;
+		}
+		return current;
+	}
+
+	/*
+	 * Checks every search term against a row.
+	 */
+	private boolean matches(int row, String name, String building, String unit) {
+		String[] key = keys.get(row);
+		if (!name.isEmpty() && !contains(key[KEY_FIRST_NAME], name) && !contains(key[KEY_LAST_NAME], name)
+				&& !contains(key[KEY_USER], name)) return false;
+		if (!unit.isEmpty() && !contains(key[KEY_UNIT], unit)) return false;
+		if (!building.isEmpty() && !contains(key[KEY_BUILDING], building)) return false;
+		return true;
+	}
+
+	private static boolean contains(String value, String term) {
+		return value != null && value.contains(term);
+	}
+
+	private static String lower(Object value) {
+		return (value == null) ? null : value.toString().toLowerCase(Locale.ROOT);
+	}
+}
@@ -16,23 +16,32 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.CancellationToken;
+import main.java.db.ConnectionPool;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
 
 /**
  * A class that creates a Resident Manager page consisting of three panels:
@@ -63,6 +72,16 @@ public class ResidentManagerPage extends JPanel implements Page {
 	private String searchedBuilding = "";
 	private String searchedUnit = "";
 	
+	// Search pipeline
+	private static final int SEARCH_DELAY = 250;
+	private Timer searchTimer;
+	private ResidentIndex residentIndex;
+	private ResidentIndexLoader indexLoader;
+	private ResidentFilter shownFilter;
+	
+	// Residents table
+	private ResidentTableModel residentModel;
+	
 	// Search Filters
 	private CustomButton activeButton;
 	private CustomButton inactiveButton;
@@ -89,7 +108,6 @@ public class ResidentManagerPage extends JPanel implements Page {
 	// Colors
 	private Color backgroundColor = Theme.baseColor;
 	private Color paneColor = Theme.paneColor;
-	private Color paneLightColor = Theme.paneLightColor;
 	private Color textColor = Theme.textSecondaryColor;
 	private Color textColorTitle = Theme.textPrimaryColor;
 	private Color fieldColor = Theme.fieldColor; 
@@ -110,6 +128,10 @@ public class ResidentManagerPage extends JPanel implements Page {
 		this.setBackground(backgroundColor);
 		this.currentSession = session;
 		
+		// Typing restarts the timer, so a search runs once the user pauses
+		searchTimer = new Timer(SEARCH_DELAY, e -> search());
+		searchTimer.setRepeats(false);
+		
 		// Title
 		JLabel titleLabel = new JLabel(title);
         titleLabel.setFont(new Font("Arial", Font.BOLD, 23));
@@ -298,7 +320,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 				}
 				else searchedName = "";
 				
-				refreshTable();
+				scheduleSearch();
 			}
 			
 		});
@@ -375,7 +397,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 				}
 				else searchedBuilding = "";
 				
-				refreshTable();
+				scheduleSearch();
 			}
 			
 		});
@@ -388,7 +410,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 					buildingSearch.setForeground(textColorTitle);
 					buildingSearch.setFont(new Font("Arial", Font.PLAIN, searchTextSize));
 				}
-				refreshTable();
+				scheduleSearch();
 			}
 
 			@Override
@@ -399,7 +421,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 					buildingSearch.setForeground(textColor);
 					buildingSearch.setFont(new Font("Arial", Font.PLAIN, searchBarHeight/2));
 		        }	
-				refreshTable();
+				scheduleSearch();
 			}
 			
 		});
@@ -454,7 +476,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 				}
 				else searchedUnit = "";
 				
-				refreshTable();
+				scheduleSearch();
 			}
 			
 		});
@@ -498,7 +520,8 @@ public class ResidentManagerPage extends JPanel implements Page {
 				nameUsername.setText("");
 				buildingSearch.setText("");
 				unitSearch.setText("");
-				refreshAll();	
+				refreshSearch(filterPanel, searchPanelContent);
+				showSearch();
 			}
 			
         });
@@ -744,14 +767,13 @@ public class ResidentManagerPage extends JPanel implements Page {
 		
 		ArrayList<String> buildingList = new ArrayList<String>();
 		
-		String sqlBuildingQuery = "SELECT `building` FROM units WHERE deleted = 0 GROUP BY `building`";
-
 		// Load Data
-        try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+        try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
         	Statement statement = connect.createStatement();
+        	QueryStats.tag(statement, "ResidentManagerPage.buildingList");
 
 			// Query
-			ResultSet results = statement.executeQuery(sqlBuildingQuery);
+			ResultSet results = statement.executeQuery(PageQueries.BUILDING_LIST);
 			while (results.next()) buildingList.add(results.getString("building"));
 
 			// Close Connection
@@ -867,7 +889,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 //		String sqlUnitQuery = "SELECT `unit` FROM units WHERE `building` LIKE '%" + searchedBuilding+ "%'";
 //
 //		// Load Data
-//        try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+//        try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 //        	Statement statement = connect.createStatement();
 //
 //			// Query
@@ -1005,562 +1027,376 @@ public class ResidentManagerPage extends JPanel implements Page {
 		allResidentsPanelContent.setAlignmentX(Component.LEFT_ALIGNMENT);
 		allResidentsPanelContent.setOpaque(true);
 		
-		buildResidentTable(allResidentsPanelContent);
+		residentIndex = new ResidentIndex(loadResidents());
+		shownFilter = new ResidentFilter();
+		buildResidentTable(allResidentsPanelContent, shownFilter.search(residentIndex));
 		
 		panel.add(allResidentsPanelContent);
 		return panel;
 	}
 	
+	/**
+	 * Creates the Residents table over a model, with its columns and renderers but 
+	 * no actions (also used by TableBenchmark).
+	 * @param model - Resident rows
+	 * @return the table
+	 */
+	public static ThemedTable createResidentTable(ResidentTableModel model) {
+		ThemedTable residentTable = new ThemedTable(model);
+		
+		// Columns
+		residentTable.setColumn(ResidentTableModel.STATUS, 22, new ThemedTable.StatusRenderer(6));
+		residentTable.setColumn(ResidentTableModel.ACCOUNT, 0, new ThemedTable.TwoNameRenderer());
+		residentTable.setColumn(ResidentTableModel.CONTACT, 62, 
+				new ThemedTable.ButtonRenderer("Contact", new Dimension(50,16)));
+		residentTable.setColumn(ResidentTableModel.UNIT, 0, new ThemedTable.TwoNameRenderer());
+		residentTable.setColumn(ResidentTableModel.LEASE_START, 90, 
+				ThemedTable.TextRenderer.dimmed(SwingConstants.RIGHT, row -> !model.isActive(row)));
+		residentTable.setColumn(ResidentTableModel.LEASE_ARROW, 20, 
+				ThemedTable.TextRenderer.dimmed(SwingConstants.LEFT, row -> !model.isActive(row)));
+		residentTable.setColumn(ResidentTableModel.LEASE_END, 90, 
+				ThemedTable.TextRenderer.dimmed(SwingConstants.LEFT, row -> !model.isActive(row)));
+		residentTable.setColumn(ResidentTableModel.PAYMENT, 80, new ThemedTable.FlagRenderer());
+		residentTable.setColumn(ResidentTableModel.DELETE, 52, 
+				new ThemedTable.ButtonRenderer("Delete", new Dimension(40,16)));
+		
+		return residentTable;
+	}
+	
 	/**
 	 * Fills the input panel with a Residents table.
-	 * Creates a scroll table with Resident information
+	 * Creates a scroll table with Resident information. Only the rows on screen 
+	 * are rendered; searches replace the rows of the model.
 	 * @param panel - Panel to build the Resident table on
+	 * @param users - Residents returned by the index
 	 */
-	private void buildResidentTable(JPanel panel) {
-		// Container
-		JPanel residentTable = new JPanel();
-	    residentTable.setLayout(new GridBagLayout());
-	    residentTable.setOpaque(true);
-	    residentTable.setBackground(paneColor);
-	    residentTable.setAlignmentX(Component.LEFT_ALIGNMENT);
-	    GridBagConstraints c = new GridBagConstraints();
-	    
-	    // Left space
-	    JPanel leftSpacer = new JPanel();
-	    leftSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0.1;
-		c.weighty = 0.0;
-        c.gridx = 0;
-        c.gridy = 0;
-        residentTable.add(leftSpacer, c);
-        
-        // Right space
-	    JPanel rightSpacer = new JPanel();
-	    rightSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0.1;
-		c.weighty = 0.0;
-        c.gridx = 10;
-        c.gridy = 0;
-        residentTable.add(rightSpacer, c);
-	    
-	    /*
-	     * Table header
-	     */
-	    
-        // Account
-	    JLabel columnHeader0 = new JLabel("Account", SwingConstants.LEFT);
-		columnHeader0.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader0.setForeground(textColor);
-		columnHeader0.setBorder(new EmptyBorder(4, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 1;
-        c.gridy = 0;
-        c.weightx = 0.1;
-		c.weighty = 0.0;
-		c.gridwidth = 3;
-		residentTable.add(columnHeader0, c);
+	private void buildResidentTable(JPanel panel, ArrayList<Object[]> users) {
+		residentModel = new ResidentTableModel(users);
+		ThemedTable residentTable = createResidentTable(residentModel);
 		
-		// Unit
-		JLabel columnHeader2 = new JLabel("Unit", SwingConstants.LEFT);
-		columnHeader2.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader2.setForeground(textColor);
-		columnHeader2.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.gridwidth = 1;
-		c.weightx = 0.1;
-        c.gridx = 4;
-        c.gridy = 0;
-        residentTable.add(columnHeader2, c);
-        
-        // Lease
-        JLabel columnHeader3 = new JLabel("Lease", SwingConstants.LEFT);
-		columnHeader3.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader3.setForeground(textColor);
-		columnHeader3.setPreferredSize(new Dimension(65, TABLE_CELL_HEIGHT));
-		columnHeader3.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.weightx = 0.1;
-		c.gridwidth = 3;
-        c.gridx = 5;
-        c.gridy = 0;
-        residentTable.add(columnHeader3, c);
-   
-        // Payment
-        JLabel columnSize6 = new JLabel("Payment", SwingConstants.LEFT);
-		columnSize6.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize6.setForeground(textColor);
-		columnSize6.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.gridwidth = 1;
-        c.gridx = 8;
-        c.gridy = 0;
-        residentTable.add(columnSize6, c);
-        
-        
-        // Header underline
-        JPanel headerLine = new JPanel();
-        headerLine.setBackground(textColor);
-        headerLine.setPreferredSize(new Dimension(100, 1));
-        c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 1.0;
-		c.gridwidth = 9;
-        c.gridx = 1;
+		// Actions
+		residentTable.setCellAction(ResidentTableModel.CONTACT, row -> {
+			Object[] user = residentModel.getResident(row);
+			
+			// Bring up pop up
+			new PopupWindow(buildAccountContactDisplay(
+					combineNames((String)user[4], (String)user[5]), 
+					(String)user[1], (String)user[2], (String)user[3]), "ok");
+		});
+		residentTable.setCellAction(ResidentTableModel.DELETE, row -> deleteResident(residentModel.getResident(row)));
+		
+		/*
+		 * Make table scroll
+		 */
+		
+		GridBagConstraints c = new GridBagConstraints();
+	    unitScroll = residentTable.buildScrollPane();
+        c.fill = GridBagConstraints.BOTH;
+        c.gridx = 0;
         c.gridy = 1;
-        residentTable.add(headerLine, c);
-        
-        /*
-         * Search
-         */
-        
-        ArrayList<Object[]> users = new ArrayList<Object[]>();
-        
-        // Prepare query
-		String sqlQuery = """
-				SELECT * FROM (
-				SELECT `uid`,`user`,`email`,`phone`,`first_name`,`last_name`,`start`,`recent_lease_end`,`unit`,`building`,`sum_charges`,`sum_payments`
-				FROM (SELECT * FROM `users` WHERE users.type = 'general' AND deleted = 0) AS u 
-				
-				    LEFT JOIN (SELECT `start`, MAX(`end`) AS 'recent_lease_end', `unitid`, `userid` FROM `leases` GROUP BY `userid`) AS l
-				    ON u.uid = l.userid
-				    
-				    LEFT JOIN (SELECT `id`,`unit`,`building` FROM `units`) AS u2
-				    ON l.unitid = u2.id
-				    
-				    LEFT JOIN (SELECT SUM(`charges`.`amount`) as sum_charges, charges.userid FROM charges WHERE charges.date <= CURRENT_DATE GROUP BY `userid`) as c
-				    ON u.uid = c.userid
-				    
-				    LEFT JOIN (SELECT SUM(`payments`.`amount`) as sum_payments, payments.userid FROM payments GROUP BY `userid`) as p
-				    ON u.uid = p.userid
-				    
-				) AS resident_manager 
-				"""
-				+ "WHERE "
-				
-				// Name Search
-				+ "(`first_name` LIKE '%" + searchedName + "%' OR `last_name` LIKE '%" + searchedName + "%' OR `user` LIKE '%" + searchedName + "%') "
-				
-				// Filter
-				+ ((activeSelected || inactiveSelected || newSelected) ? (
-				
-						((!activeSelected) ? "AND (`recent_lease_end` < CURRENT_DATE() OR `recent_lease_end` IS NULL) ":"")
-						+ ((!inactiveSelected) ? "AND (`recent_lease_end` >= CURRENT_DATE() OR `recent_lease_end` IS NULL) ":"")
+        c.weightx = 1.0;
+		c.weighty = 1.0;
+		c.gridwidth = 1;
+		panel.add(unitScroll, c);
+	}
+	
+	/**
+	 * Asks for confirmation, then deletes a resident account.
+	 * @param user - Resident row
+	 */
+	private void deleteResident(Object[] user) {
+		new PopupWindow(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				// If user answers yes
+				if (e.getActionCommand().equals("Yes")) {
+					
+					// Prepare query
+					String sqlQuery = "UPDATE users SET deleted = 1 WHERE uid =" + user[0];
+					
+					// Connect to database
+					try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+						Statement statement = connect.createStatement();
 						
-					) : "")
-				
-				// Unit Search
-				+ ((searchedUnit.equals("")) ? "AND (unit LIKE '%%' OR unit IS NULL) " : ("AND unit LIKE '%" + searchedUnit + "%' "))
-				
-				// Building Search
-				+ ((searchedBuilding.equals("")) ? "AND (building LIKE '%%' OR unit IS NULL) " : ("AND building LIKE '%" + searchedBuilding + "%' "))
-				
-				
-				+ ((activeSelected || inactiveSelected || newSelected) ? (
-					((!newSelected) ? "AND `unit` IS NOT NULL ":"")) : "")
+						// Query
+						statement.executeUpdate(sqlQuery);
+						if (user[8] != null) DashboardCache.invalidate((String) user[9]);
+						residentIndex.remove(((Number) user[0]).intValue());
+						
+						// Close connection
+						connect.close();
+					} catch (SQLException err) {
+						err.printStackTrace();
+					}
+
+					showSearch();
+				}
+			}
+			
+		}, "Are you sure you want to permanently delete this account?", "yesno");
+	}
+	
+	/**
+	 * Table model over the resident rows of the index. Cell values are computed 
+	 * when a row is drawn.
+	 */
+	public static class ResidentTableModel extends AbstractTableModel {
+		private static final int STATUS = 0;
+		private static final int ACCOUNT = 1;
+		private static final int CONTACT = 2;
+		private static final int UNIT = 3;
+		private static final int LEASE_START = 4;
+		private static final int LEASE_ARROW = 5;
+		private static final int LEASE_END = 6;
+		private static final int PAYMENT = 7;
+		private static final int DELETE = 8;
+		private final String[] columnNames = {"", "Account", "", "Unit", "Lease", "", "", "Payment", ""};
+		private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+		private ArrayList<Object[]> residents;
+		
+		/**
+		 * @param residents - Rows of PageQueries.RESIDENT_LIST
+		 */
+		public ResidentTableModel(ArrayList<Object[]> residents) {
+			this.residents = residents;
+		}
 		
+		/**
+		 * Replaces the rows shown by the table.
+		 * @param residents - Residents returned by the index
+		 */
+		private void setResidents(ArrayList<Object[]> residents) {
+			this.residents = residents;
+			fireTableDataChanged();
+		}
 		
-				+ "ORDER BY `resident_manager`.`user` ASC";
+		private Object[] getResident(int row) {
+			return residents.get(row);
+		}
 		
-        // Load Data
-        try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
-        	Statement statement = connect.createStatement();
-
-			// Query
-			ResultSet results = statement.executeQuery(sqlQuery);
-			users = sqlToArray(results);
-
-			// Close Connection
-			connect.close();
-		} catch (SQLException err) {
-			err.printStackTrace();
+		/**
+		 * @param row - Model row
+		 * @return true if the resident's most recent lease has not ended
+		 */
+		private boolean isActive(int row) {
+			Object[] user = residents.get(row);
+			return user[8] != null && !((Date)user[7]).toLocalDate().isBefore(LocalDate.now());
 		}
-
-        /*
-         * Table Rows
-         */
-        
-        // Loop
-        int currentRow = 2;
-        for (Object[] user : users) {
-        	
-        	// Calculate
-        	boolean isNewUser = (user[8] == null);
-        	boolean isActive = false;
-        	
-        	double balance = 0;
-        	if (!isNewUser) {
-        		if(user[10] != null && user[11] != null) 
-        			balance = ((double) user[10]) - ((double) user[11]);
-        		isActive = ((Date)user[7]).toLocalDate().isBefore(LocalDate.now()) ? false : true;
-        	}
-        	boolean isPaid = (balance <= 1);
-        	
-        	/*
-        	 * Account Status
-        	 */
-        	
-        	// Container
-			JPanel tableColumn = new JPanel();
-			tableColumn.setLayout(new GridBagLayout());
-			tableColumn.setBorder(new EmptyBorder(0, 4, 0, 4));
-			tableColumn.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn.setOpaque(true);
-	    		tableColumn.setBackground(paneLightColor);
-	    	}
+		
+		@Override
+		public int getRowCount() {
+			return residents.size();
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return columnNames.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return columnNames[column];
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			Object[] user = residents.get(row);
+			boolean isNewUser = (user[8] == null);
+			boolean isActive = isActive(row);
 			
-			// Flag
-			int circleRadius = 6;
-			JPanel tableColumnFlag = new JPanel();
-
-			if (isNewUser) {
-				tableColumnFlag = getStatusCircle(Theme.newStatus, circleRadius);
-			}
-			else if (isActive) {
-				tableColumnFlag = getStatusCircle(greenColor, circleRadius);
-
+			switch (column) {
+			case STATUS:
+				if (isNewUser) return Theme.newStatus;
+				return isActive ? Theme.greenColor : Theme.textThirdColor;
+			case ACCOUNT:
+				return new String[] {Page.joinNames((String)user[4], (String)user[5]), (String)user[1]};
+			case CONTACT:
+				return "Contact";
+			case DELETE:
+				return "Delete";
 			}
-			else {
-				tableColumnFlag = getStatusCircle(Theme.textThirdColor, circleRadius);
-			}
-			tableColumn.add(tableColumnFlag);
-			
-			// Add Container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 1;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			residentTable.add(tableColumn, c);
-			
-			/*
-			 * Account Name
-			 */
-			
-			JPanel tableColumn0 = buildTwoNameDisplay(combineNames((String)user[4], (String)user[5]), (String)user[1]);
-	    	tableColumn0.setBorder(new EmptyBorder(4, 4, 4, 4));
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn0.setOpaque(true);
-	    		tableColumn0.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.HORIZONTAL;
-	        c.gridx = 2;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			residentTable.add(tableColumn0, c);
-			
-			/*
-			 * Contact Button
-			 */
-			
-			// Container
-			JPanel tableColumn1 = new JPanel();
-			tableColumn1.setLayout(new GridBagLayout());
-			tableColumn1.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn1.setOpaque(true);
-	    		tableColumn1.setBackground(paneLightColor);
-	    	}
-			tableColumn1.setBorder(new EmptyBorder(0, 4, 0, 4));
 			
-			//Button
-			CustomButton contactAction = new CustomButton("Contact", 
-					Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-			contactAction.setFont(new Font("Arial", Font.BOLD, 10));
-			contactAction.setBorderPainted(false);
-			contactAction.setForeground(textColorTitle);
-			contactAction.setFocusPainted(false);
-			contactAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-			contactAction.setPreferredSize(new Dimension(50,16));
-			contactAction.addActionListener(new ActionListener() {
-				
-				@Override
-				public void actionPerformed(ActionEvent e) {
-						// Bring up pop up
-						new PopupWindow(buildAccountContactDisplay(
-								combineNames((String)user[4], (String)user[5]), 
-								(String)user[1], (String)user[2], (String)user[3]), "ok");
-				}
-				
-	        });
-			tableColumn1.add(contactAction);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 3;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			residentTable.add(tableColumn1, c);
-			
-			// If already had a lease
-			if (!isNewUser) {
-				
-				/*
-				 * Unit
-				 */
-				
-				JPanel tableColumn2 = new JPanel();
-				tableColumn2 = buildTwoNameDisplay((String)user[8], (String)user[9]);
-				tableColumn2.setOpaque(false);
-				tableColumn2.setBorder(new EmptyBorder(4, 4, 4, 4));
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn2.setOpaque(true);
-		    		tableColumn2.setBackground(paneLightColor);
-		    	}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 4;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				residentTable.add(tableColumn2, c);
-				
-				/*
-				 * Lease
-				 */
-				
-				// Lease Start
-				JLabel tableColumn3 = new JLabel(
-						((Date)user[6]).toLocalDate().format(DateTimeFormatter.ofPattern("MM/dd/yyyy")),
-						SwingConstants.RIGHT);
-		    	tableColumn3.setFont(new Font("Arial", Font.PLAIN, 14));
-		    	tableColumn3.setForeground(textColorTitle);
-		    	tableColumn3.setBorder(new EmptyBorder(0, 4, 0, 4));
-		    	
-		    	//If the lease is finished
-		    	if (!isActive) {
-		    		tableColumn3.setForeground(textColor);
-		    	}
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn3.setOpaque(true);
-		    		tableColumn3.setBackground(paneLightColor);
-		    	}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 5;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				residentTable.add(tableColumn3, c);
-				
-				// Space ">"
-				JLabel tableColumn3Space = new JLabel(">",SwingConstants.LEFT);
-				tableColumn3Space.setFont(new Font("Arial", Font.PLAIN, 14));
-				tableColumn3Space.setForeground(textColorTitle);
-				tableColumn3Space.setBorder(new EmptyBorder(0, 4, 0, 4));
-				if (!isActive) {
-		    		tableColumn3Space.setForeground(textColor);
-		    	}
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn3Space.setOpaque(true);
-		    		tableColumn3Space.setBackground(paneLightColor);
-		    	}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 6;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				residentTable.add(tableColumn3Space, c);
-				
-				// Lease End
-				JLabel tableColumn4 = new JLabel(
-						((Date)user[7]).toLocalDate().format(DateTimeFormatter.ofPattern("MM/dd/yyyy")),
-						SwingConstants.LEFT);
-				tableColumn4.setFont(new Font("Arial", Font.PLAIN, 14));
-				tableColumn4.setForeground(textColorTitle);
-				tableColumn4.setBorder(new EmptyBorder(0, 4, 0, 4));
-				if(!isActive) {
-					tableColumn4.setForeground(textColor);
-				}
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn4.setOpaque(true);
-		    		tableColumn4.setBackground(paneLightColor);
-		    	}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 7;
-		        c.gridy = currentRow;
-		        c.weightx = 0.01;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				residentTable.add(tableColumn4, c);
-				
-				/*
-				 * Payment Status
-				 */
-				
-				// Container
-    			JPanel tableColumn7 = new JPanel();
-    			tableColumn7.setLayout(new GridBagLayout());
-    			tableColumn7.setOpaque(false);
-				if (currentRow % 2 == 1) {
-    	    		tableColumn7.setOpaque(true);
-    	    		tableColumn7.setBackground(paneLightColor);
-    	    	}
-    			
-				// Flag
-    			JLabel tableColumn7Flag = new JLabel("CHARGED", SwingConstants.LEFT);
-    	    	tableColumn7Flag.setFont(new Font("Arial", Font.BOLD, 11));
-    	    	tableColumn7Flag.setForeground(Theme.flagText);
-    	    	tableColumn7Flag.setBorder(new EmptyBorder(0, 4, 0, 4));
-    	    	tableColumn7Flag.setBackground(textColor);
-    	    	tableColumn7Flag.setOpaque(true);
-    	    	if (!isActive && !isPaid) {
-    				tableColumn7Flag.setText("CHARGED");
-    				tableColumn7Flag.setBackground(redColor);
-    			}
-    			if (isPaid) {
-    				tableColumn7Flag.setText("PAID");
-    				tableColumn7Flag.setBackground(greenColor);
-    			}
-    	    	
-    	    	c.fill = GridBagConstraints.NONE;
-    	        c.gridx = 0;
-    	        c.gridy = 0;
-    	        c.weightx = 0.0;
-    			c.weighty = 0.0;
-    			c.gridwidth = 1;
-    			tableColumn7.add(tableColumn7Flag);
-    			
-    			// Container
-    			c.fill = GridBagConstraints.BOTH;
-    	        c.gridx = 8;
-    	        c.gridy = currentRow;
-    	        c.weightx = 0.0;
-    			c.weighty = 0.0;
-    			c.gridwidth = 1;
-    			residentTable.add(tableColumn7, c);
+			// Lease columns (empty for new residents)
+			if (isNewUser) return null;
+			switch (column) {
+			case UNIT:
+				return new String[] {(String)user[8], (String)user[9]};
+			case LEASE_START:
+				return ((Date)user[6]).toLocalDate().format(dateFormat);
+			case LEASE_ARROW:
+				return ">";
+			case LEASE_END:
+				return ((Date)user[7]).toLocalDate().format(dateFormat);
+			case PAYMENT:
+				double balance = 0;
+				if(user[10] != null && user[11] != null) 
+        			balance = ((double) user[10]) - ((double) user[11]);
+				if (balance <= 1) return new ThemedTable.Flag("PAID", Theme.greenColor);
+				if (!isActive) return new ThemedTable.Flag("CHARGED", Theme.redColor);
+				return new ThemedTable.Flag("CHARGED", Theme.textSecondaryColor);
+			default:
+				return null;
 			}
-			
-			else {
-				//Fill with background
-				JPanel tableColumn2Fill = new JPanel();
-				tableColumn2Fill.setOpaque(false);
-				if (currentRow % 2 == 1) {
-					tableColumn2Fill.setOpaque(true);
-					tableColumn2Fill.setBackground(paneLightColor);
-    	    	}
-				c.fill = GridBagConstraints.BOTH;
-    	        c.gridx = 4;
-    	        c.gridy = currentRow;
-    	        c.weightx = 0.0;
-    			c.weighty = 0.0;
-    			c.gridwidth = 5;
-    			residentTable.add(tableColumn2Fill, c);
+		}
+	}
+		
+	/*
+	 * Search Pipeline
+	 */
+	
+	/**
+	 * Search fields and status filters at one point in time. Two searches with 
+	 * equal filters return the same residents.
+	 */
+	private class ResidentFilter {
+		private final String name = searchedName;
+		private final String building = searchedBuilding;
+		private final String unit = searchedUnit;
+		private final boolean active = activeSelected;
+		private final boolean inactive = inactiveSelected;
+		private final boolean isNew = newSelected;
+		
+		/**
+		 * @param index - Resident index to search
+		 * @return residents matching this filter
+		 */
+		private ArrayList<Object[]> search(ResidentIndex index) {
+			return index.search(name, building, unit, active, inactive, isNew);
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof ResidentFilter)) return false;
+			ResidentFilter filter = (ResidentFilter) other;
+			return name.equals(filter.name) && building.equals(filter.building) && unit.equals(filter.unit)
+					&& active == filter.active && inactive == filter.inactive && isNew == filter.isNew;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, building, unit, active, inactive, isNew);
+		}
+	}
+	
+	/**
+	 * Background task that reloads every resident into a new index, then shows 
+	 * the current search from it if no newer reload has started since.
+	 */
+	private class ResidentIndexLoader extends SwingWorker<ResidentIndex, Void> {
+		private final CancellationToken token = new CancellationToken();
+		
+		@Override
+		protected ResidentIndex doInBackground() throws SQLException {
+			return new ResidentIndex(loadResidents(token));
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled() || indexLoader != this) return;
+			indexLoader = null;
+			try {
+				residentIndex = get();
+			} catch (InterruptedException | ExecutionException err) {
+				err.printStackTrace();
+				return;
 			}
-			
-			/*
-			 * Delete unit
-			 */
-			
-			// Container
-			JPanel tableColumn8 = new JPanel();
-			tableColumn8.setLayout(new GridBagLayout());
-			tableColumn8.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn8.setOpaque(true);
-	    		tableColumn8.setBackground(paneLightColor);
-	    	}
-			tableColumn8.setBorder(new EmptyBorder(0, 4, 0, 4));
-			
-			//Button
-			CustomButton deleteAction = new CustomButton("Delete", Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-			deleteAction.setFont(new Font("Arial", Font.BOLD, 10));
-			deleteAction.setBorderPainted(false);
-			deleteAction.setForeground(textColorTitle);
-			deleteAction.setFocusPainted(false);
-			deleteAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-			deleteAction.setPreferredSize(new Dimension(40,16));
-			deleteAction.addActionListener(new ActionListener() {
-				
-				@Override
-				public void actionPerformed(ActionEvent e) {
-						// Bring up pop up
-						new PopupWindow(new ActionListener() {
-
-							@Override
-							public void actionPerformed(ActionEvent e) {
-								// If user answers yes
-								if (e.getActionCommand().equals("Yes")) {
-									
-									// Prepare query
-									String sqlQuery = "UPDATE users SET deleted = 1 WHERE uid =" + user[0];
-									
-									// Connect to database
-									try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
-										Statement statement = connect.createStatement();
-										
-										// Query
-										statement.executeUpdate(sqlQuery);
-										
-										// Close connection
-										connect.close();
-									} catch (SQLException err) {
-										err.printStackTrace();
-									}
-
-									refreshAll();
-								}
-							}
-							
-						}, "Are you sure you want to permanently delete this account?", "yesno");
-				}
-				
-	        });
-			tableColumn8.add(deleteAction);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 9;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			residentTable.add(tableColumn8, c);
+			showSearch();
+		}
+		
+		/**
+		 * Cancels the task and its running query. Statement.cancel() opens a 
+		 * connection of its own, so it is sent from a background thread.
+		 */
+		private void stop() {
+			cancel(false);
+			CompletableFuture.runAsync(token::cancel);
+		}
+	}
+	
+	/**
+	 * Restarts the search delay. Called on every key stroke so the table is only 
+	 * rebuilt once the user pauses.
+	 */
+	private void scheduleSearch() {
+		searchTimer.restart();
+	}
+	
+	/**
+	 * Shows the residents matching the current filters. Does nothing if the filters 
+	 * match the residents already shown.
+	 */
+	private void search() {
+		if (new ResidentFilter().equals(shownFilter)) {
+			searchTimer.stop();
+			return;
+		}
+		showSearch();
+	}
+	
+	/**
+	 * Shows the residents matching the current filters from the index.
+	 */
+	private void showSearch() {
+		searchTimer.stop();
+		shownFilter = new ResidentFilter();
+		showResidents(shownFilter.search(residentIndex));
+	}
+	
+	/**
+	 * Reloads the index from the database in the background, cancelling any 
+	 * reload in flight. The table keeps showing the old index until it is done.
+	 */
+	private void reloadIndex() {
+		if (indexLoader != null) indexLoader.stop();
+		indexLoader = new ResidentIndexLoader();
+		indexLoader.execute();
+	}
+	
+	/**
+	 * Replaces the rows of the Residents table.
+	 * @param users - Residents returned by the index
+	 */
+	private void showResidents(ArrayList<Object[]> users) {
+		residentModel.setResidents(users);
+	}
+	
+	/**
+	 * Loads every resident, printing any error.
+	 * @return list of residents, empty if the query failed
+	 */
+	private ArrayList<Object[]> loadResidents() {
+		try {
+			return loadResidents(new CancellationToken());
+		} catch (SQLException err) {
+			err.printStackTrace();
+			return new ArrayList<Object[]>();
+		}
+	}
+	
+	/**
+	 * Loads every resident with their most recent lease and balance, ordered by 
+	 * username. Searching is done on the result by ResidentIndex.
+	 * @param token - Cancels the query from another thread
+	 * @return list of residents
+	 * @throws SQLException if the query fails or is cancelled
+	 */
+	private ArrayList<Object[]> loadResidents(CancellationToken token) throws SQLException {
+		
+        // Load Data
+        try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+        	Statement statement = connect.createStatement();
+        	QueryStats.tag(statement, "ResidentManagerPage.residentList");
 
-			/*
-			 * Increase row
-			 */
-			
-			currentRow++;
-        }
-    	
-    	/*
-    	 * Push table to top
-    	 */
-    	
-    	JPanel tableBottomSpacer = new JPanel();
-    	tableBottomSpacer.setOpaque(false);
-        c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0;
-		c.weighty = 1;
-		c.gridwidth = 1;
-        c.gridx = 0;
-        c.gridy = currentRow;
-        residentTable.add(tableBottomSpacer, c);
-        	
-        /*
-         * Make table scroll
-         */
-        
-	    unitScroll = new JScrollPane(residentTable);
-	    unitScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-	    unitScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-	    unitScroll.setBorder(new EmptyBorder(0,0,0,0));
-	    unitScroll.getVerticalScrollBar().setUnitIncrement(10);
-	    unitScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
-	    unitScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
-        c.fill = GridBagConstraints.BOTH;
-        c.gridx = 0;
-        c.gridy = 1;
-        c.weightx = 1.0;
-		c.weighty = 1.0;
-		c.gridwidth = 1;
-		panel.add(unitScroll, c);
+			// Query
+        	token.register(statement);
+        	try {
+        		return sqlToArray(statement.executeQuery(PageQueries.RESIDENT_LIST));
+        	} finally {
+        		token.unregister(statement);
+        		token.throwIfCancelled();
+        	}
+		}
 	}
 		
 	/*
@@ -1774,11 +1610,20 @@ public class ResidentManagerPage extends JPanel implements Page {
 								
 								
 								// Connect to database
-								try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+								try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 									Statement statement = connect.createStatement();
 									
 									// Query
-									statement.executeUpdate(sqlQuery);
+									statement.executeUpdate(sqlQuery, Statement.RETURN_GENERATED_KEYS);
+									ResultSet key = statement.getGeneratedKeys();
+									
+									// Add to the search index as a new resident (no lease)
+									if (key.next()) {
+										residentIndex.add(new Object[] { key.getInt(1), newResidentUsername.getText(),
+												newResidentEmail.getText(), newResidentPhone.getText(), insertName[0],
+												(insertName.length > 1) ? insertName[1] : null,
+												null, null, null, null, null, null });
+									}
 								
 									// Close connection
 									connect.close();
@@ -1788,7 +1633,7 @@ public class ResidentManagerPage extends JPanel implements Page {
 								
 								// Clear fields
 								clearNewEntry();
-								refreshAll();
+								showSearch();
 							}
 						}
 						
@@ -1861,16 +1706,15 @@ public class ResidentManagerPage extends JPanel implements Page {
 	
 	@Override
 	public void refreshAll() {
-		refreshTable(allResidentsPanelContent, unitScroll);
 		refreshSearch(filterPanel, searchPanelContent);
-		
+		reloadIndex();
 	}
 	
 	/**
-	 * Quick version of refreshTable.
+	 * Searches right away with the current filters (used by the filter buttons).
 	 */
 	private void refreshTable() {
-		refreshTable(allResidentsPanelContent, unitScroll);
+		search();
 	}
 	
 	/**
@@ -1883,17 +1727,6 @@ public class ResidentManagerPage extends JPanel implements Page {
 		buildSearchPanel(panel);
 		panel.revalidate();
 		
-	}	
-	
-	/**
-	 * Removes the Table panel content from its container and rebuilds it.
-	 * @param panel - Container
-	 * @param table - Content
-	 */
-	private void refreshTable(JPanel panel, Component table) {
-		panel.remove(table);
-		buildResidentTable(panel);
-		panel.validate();
 	}
 }
 
@@ -0,0 +1,465 @@
+package main.java.ui;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableModel;
+
+import main.java.Page;
+
+/**
+ * A JTable styled like the rest of the pages: pane background, alternating light rows,
+ * underlined header and buttons painted inside cells. Only the rows on screen are
+ * rendered, so tables of thousands of rows cost one set of renderer components
+ * instead of a component tree per row.
+ *
+ * @author Nicolas Gonzalez
+ *
+ */
+@SuppressWarnings("serial")
+public class ThemedTable extends JTable {
+
+	public static final int ROW_HEIGHT = 34;
+
+	// Cell actions
+	private final Map<Integer, IntConsumer> actions = new HashMap<Integer, IntConsumer>();
+	private int hoverRow = -1;
+	private int hoverColumn = -1;
+	private IntConsumer headerAction;
+	private IntFunction<Color> rowSeparator;
+
+	/**
+	 * Creates a themed table over a model.
+	 * @param model - Table data
+	 */
+	public ThemedTable(TableModel model) {
+		super(model);
+		setBackground(Theme.paneColor);
+		setForeground(Theme.textPrimaryColor);
+		setFont(new Font("Arial", Font.PLAIN, 14));
+		setRowHeight(ROW_HEIGHT);
+		setShowGrid(false);
+		setIntercellSpacing(new Dimension(0, 0));
+		setFillsViewportHeight(true);
+		setRowSelectionAllowed(false);
+		setFocusable(false);
+		setDefaultRenderer(Object.class, new TextRenderer(SwingConstants.LEFT));
+
+		// Header
+		JTableHeader header = getTableHeader();
+		header.setReorderingAllowed(false);
+		header.setBackground(Theme.paneColor);
+		header.setDefaultRenderer(new HeaderRenderer());
+
+		// Hover and clicks for button cells
+		MouseAdapter mouse = new MouseAdapter() {
+
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				setHover(rowAtPoint(e.getPoint()), columnAtPoint(e.getPoint()));
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e) {
+				setHover(-1, -1);
+			}
+
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int row = rowAtPoint(e.getPoint());
+				int column = columnAtPoint(e.getPoint());
+				if (row < 0 || column < 0) return;
+				IntConsumer action = actions.get(convertColumnIndexToModel(column));
+				if (action != null) action.accept(convertRowIndexToModel(row));
+			}
+		};
+		addMouseListener(mouse);
+		addMouseMotionListener(mouse);
+		header.addMouseListener(new MouseAdapter() {
+
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int column = columnAtPoint(e.getPoint());
+				if (headerAction == null || column < 0) return;
+				headerAction.accept(convertColumnIndexToModel(column));
+				getTableHeader().repaint();
+			}
+		});
+	}
+
+	/**
+	 * Sets how a column is drawn.
+	 * @param column - Model column index
+	 * @param width - Fixed width in pixels, 0 to share the remaining width
+	 * @param renderer - Cell renderer, null for the default text renderer
+	 */
+	public void setColumn(int column, int width, TableCellRenderer renderer) {
+		TableColumn tableColumn = getColumnModel().getColumn(convertColumnIndexToView(column));
+		if (width > 0) {
+			tableColumn.setMinWidth(width);
+			tableColumn.setMaxWidth(width);
+			tableColumn.setPreferredWidth(width);
+		}
+		if (renderer != null) tableColumn.setCellRenderer(renderer);
+	}
+
+	/**
+	 * Runs an action when a cell of the column is clicked.
+	 * @param column - Model column index
+	 * @param action - Receives the model row index of the clicked cell
+	 */
+	public void setCellAction(int column, IntConsumer action) {
+		actions.put(column, action);
+	}
+
+	/**
+	 * Runs an action when a column header is clicked (e.g. to sort the model).
+	 * @param action - Receives the model column index of the clicked header
+	 */
+	public void setHeaderAction(IntConsumer action) {
+		headerAction = action;
+	}
+
+	/**
+	 * Draws a line above rows that start a group (e.g. a new building).
+	 * @param separator - Returns the line color for a model row, null for no line
+	 */
+	public void setRowSeparator(IntFunction<Color> separator) {
+		rowSeparator = separator;
+		repaint();
+	}
+
+	/**
+	 * Wraps the table in a scroll pane with the theme scroll bar.
+	 * @return a scroll pane showing the table
+	 */
+	public JScrollPane buildScrollPane() {
+		JScrollPane scroll = new JScrollPane(this);
+		scroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+		scroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+		scroll.setBorder(new EmptyBorder(0, 0, 0, 0));
+		scroll.getViewport().setBackground(Theme.paneColor);
+		scroll.getVerticalScrollBar().setUnitIncrement(10);
+		scroll.getVerticalScrollBar().setUI(new Page.CustomScrollBarUI(Theme.fieldColor));
+		scroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
+		return scroll;
+	}
+
+	/**
+	 * @param row - View row index
+	 * @return the background of the row (every other row is lighter)
+	 */
+	public Color getRowBackground(int row) {
+		return (row % 2 == 1) ? Theme.paneLightColor : Theme.paneColor;
+	}
+
+	/**
+	 * @param row - View row index
+	 * @param column - View column index
+	 * @return true if the mouse is over the cell
+	 */
+	public boolean isHovered(int row, int column) {
+		return row == hoverRow && column == hoverColumn;
+	}
+
+	/*
+	 * Paints the rows, then the group separators over the visible ones.
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		if (rowSeparator == null || getRowCount() == 0) return;
+		Rectangle clip = g.getClipBounds();
+		int first = Math.max(0, rowAtPoint(clip.getLocation()));
+		int last = rowAtPoint(new Point(clip.x, clip.y + clip.height - 1));
+		if (last < 0) last = getRowCount() - 1;
+		for (int row = first; row <= last; row++) {
+			Color color = rowSeparator.apply(convertRowIndexToModel(row));
+			if (color == null) continue;
+			g.setColor(color);
+			g.fillRect(0, row * getRowHeight(), getWidth(), 1);
+		}
+	}
+
+	/*
+	 * Repaints the cells the mouse left and entered.
+	 */
+	private void setHover(int row, int column) {
+		if (row == hoverRow && column == hoverColumn) return;
+		if (hoverRow >= 0 && hoverColumn >= 0) repaint(getCellRect(hoverRow, hoverColumn, false));
+		hoverRow = row;
+		hoverColumn = column;
+		if (row >= 0 && column >= 0) repaint(getCellRect(row, column, false));
+	}
+
+	/*
+	 * Renderers
+	 */
+
+	/**
+	 * Text cell in the page font. Rows can be dimmed (e.g. finished leases) or given
+	 * a color of their own.
+	 */
+	public static class TextRenderer extends DefaultTableCellRenderer {
+		private final IntFunction<Color> foreground;
+		private Font font;
+
+		/**
+		 * @param alignment - SwingConstants horizontal alignment
+		 */
+		public TextRenderer(int alignment) {
+			this(alignment, row -> null);
+		}
+
+
+		/**
+		 * @param alignment - SwingConstants horizontal alignment
+		 * @param foreground - Text color of a model row, null for the primary text color
+		 */
+		public TextRenderer(int alignment, IntFunction<Color> foreground) {
+			this.foreground = foreground;
+			setHorizontalAlignment(alignment);
+			setBorder(new EmptyBorder(0, 4, 0, 4));
+		}
+
+		/**
+		 * @param alignment - SwingConstants horizontal alignment
+		 * @param dimmed - Model rows drawn in the secondary text color
+		 * @return a text renderer
+		 */
+		public static TextRenderer dimmed(int alignment, IntPredicate dimmed) {
+			return new TextRenderer(alignment, row -> dimmed.test(row) ? Theme.textSecondaryColor : null);
+		}
+
+		/**
+		 * @param font - Font of the cells instead of the table font
+		 * @return this renderer
+		 */
+		public TextRenderer withFont(Font font) {
+			this.font = font;
+			return this;
+		}
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			setText((value == null) ? "" : value.toString());
+			setFont((font == null) ? table.getFont() : font);
+			setBackground(((ThemedTable) table).getRowBackground(row));
+			Color color = foreground.apply(table.convertRowIndexToModel(row));
+			setForeground((color == null) ? Theme.textPrimaryColor : color);
+			return this;
+		}
+	}
+
+	/**
+	 * Big name on top of a small one (same as Page.buildTwoNameDisplay).
+	 * Values are String[] {big, small}; null draws an empty cell.
+	 */
+	public static class TwoNameRenderer extends JPanel implements TableCellRenderer {
+		private final JLabel big = new JLabel("", SwingConstants.LEFT);
+		private final JLabel small = new JLabel("", SwingConstants.LEFT);
+
+		public TwoNameRenderer() {
+			setLayout(new GridBagLayout());
+			setBorder(new EmptyBorder(4, 4, 4, 4));
+			GridBagConstraints c = new GridBagConstraints();
+			big.setFont(new Font("Arial", Font.PLAIN, 14));
+			small.setFont(new Font("Arial", Font.PLAIN, 9));
+			c.fill = GridBagConstraints.HORIZONTAL;
+			c.weightx = 1.0;
+			c.anchor = GridBagConstraints.WEST;
+			c.gridy = 0;
+			add(big, c);
+			c.gridy = 1;
+			add(small, c);
+		}
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			String[] names = (String[]) value;
+			big.setText((names == null) ? "" : names[0]);
+			small.setText((names == null) ? "" : names[1]);
+			big.setForeground(Theme.textPrimaryColor);
+			small.setForeground(Theme.textSecondaryColor);
+			setBackground(((ThemedTable) table).getRowBackground(row));
+			return this;
+		}
+	}
+
+	/**
+	 * Small button drawn in the cell, lit up while the mouse is over it. Clicks are
+	 * handled with setCellAction. A null value draws an empty cell.
+	 */
+	public static class ButtonRenderer extends JPanel implements TableCellRenderer {
+		private final Page.CustomButton button;
+
+		/**
+		 * @param text - Button text
+		 * @param size - Button size
+		 */
+		public ButtonRenderer(String text, Dimension size) {
+			this(text, size, 10);
+		}
+
+		/**
+		 * @param text - Button text
+		 * @param size - Button size
+		 * @param fontSize - Size of the bold button font
+		 */
+		public ButtonRenderer(String text, Dimension size, int fontSize) {
+			setLayout(new GridBagLayout());
+			setBorder(new EmptyBorder(0, 4, 0, 4));
+			button = new Page.CustomButton(text, Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
+			button.setFont(new Font("Arial", Font.BOLD, fontSize));
+			button.setBorderPainted(false);
+			button.setFocusPainted(false);
+			button.setBorder(new EmptyBorder(0, 0, 0, 0));
+			button.setPreferredSize(size);
+			add(button);
+		}
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			button.setVisible(value != null);
+			button.setForeground(Theme.textPrimaryColor);
+			button.setBackground(((ThemedTable) table).isHovered(row, column) ? Theme.hoverColor : Theme.buttonColor);
+			setBackground(((ThemedTable) table).getRowBackground(row));
+			return this;
+		}
+	}
+
+	/**
+	 * Colored status circle. Values are Colors; null draws an empty cell.
+	 */
+	public static class StatusRenderer extends JPanel implements TableCellRenderer {
+		private final int radius;
+		private Color color;
+
+		/**
+		 * @param radius - Circle radius
+		 */
+		public StatusRenderer(int radius) {
+			this.radius = radius;
+		}
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			color = (Color) value;
+			setBackground(((ThemedTable) table).getRowBackground(row));
+			return this;
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			if (color == null) return;
+			Graphics2D g2d = (Graphics2D) g;
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g2d.setColor(color);
+			g2d.fillOval((getWidth() / 2) - radius, (getHeight() / 2) - radius, radius * 2, radius * 2);
+		}
+	}
+
+	/**
+	 * Bold label on a colored background (e.g. PAID / CHARGED). Values are Flags;
+	 * null draws an empty cell.
+	 */
+	public static class FlagRenderer extends JPanel implements TableCellRenderer {
+		private final JLabel flag = new JLabel("", SwingConstants.LEFT);
+
+		public FlagRenderer() {
+			setLayout(new GridBagLayout());
+			GridBagConstraints c = new GridBagConstraints();
+			flag.setFont(new Font("Arial", Font.BOLD, 11));
+			flag.setBorder(new EmptyBorder(0, 4, 0, 4));
+			flag.setOpaque(true);
+			c.anchor = GridBagConstraints.WEST;
+			c.weightx = 1.0;
+			c.insets = new Insets(0, 4, 0, 4);
+			add(flag, c);
+		}
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			Flag cell = (Flag) value;
+			flag.setVisible(cell != null);
+			if (cell != null) {
+				flag.setText(cell.text);
+				flag.setBackground(cell.color);
+				flag.setForeground(Theme.flagText);
+			}
+			setBackground(((ThemedTable) table).getRowBackground(row));
+			return this;
+		}
+	}
+
+	/**
+	 * Value of a FlagRenderer cell.
+	 */
+	public static class Flag {
+		private final String text;
+		private final Color color;
+
+		/**
+		 * @param text - Flag text
+		 * @param color - Flag background
+		 */
+		public Flag(String text, Color color) {
+			this.text = text;
+			this.color = color;
+		}
+	}
+
+	/*
+	 * Header in the secondary text color with a line underneath.
+	 */
+	private static class HeaderRenderer extends DefaultTableCellRenderer {
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int row, int column) {
+			setText((value == null) ? "" : value.toString());
+			setFont(new Font("Arial", Font.PLAIN, 14));
+			setForeground(Theme.textSecondaryColor);
+			setBackground(Theme.paneColor);
+			setHorizontalAlignment(SwingConstants.LEFT);
+			setBorder(BorderFactory.createCompoundBorder(
+					BorderFactory.createMatteBorder(0, 0, 1, 0, Theme.textSecondaryColor),
+					new EmptyBorder(4, 4, 0, 4)));
+			return this;
+		}
+	}
+}
@@ -14,7 +14,7 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -22,6 +22,9 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -29,9 +32,17 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableCellRenderer;
 
 import main.java.Page;
 import main.java.Session;
+import main.java.db.BuildingMonthKpis;
+import main.java.db.ConnectionPool;
+import main.java.db.LeaseService;
+import main.java.db.PageQueries;
+import main.java.db.QueryStats;
+
 
 
 /**
@@ -75,11 +86,11 @@ public class UnitManagerPage extends JPanel implements Page {
 	private JPanel summaryPanelContent;
 	private JPanel allUnitsPanelContent;
 	private JScrollPane unitScroll;
+	private UnitTableModel unitModel;
 	
 	// Colors
 	private Color backgroundColor = Theme.baseColor;
 	private Color paneColor = Theme.paneColor;
-	private Color paneLightColor = Theme.paneLightColor;
 	private Color textColor = Theme.textSecondaryColor;
 	private Color textColorTitle = Theme.textPrimaryColor;
 	private Color fieldColor = Theme.fieldColor; 
@@ -245,40 +256,13 @@ public class UnitManagerPage extends JPanel implements Page {
 		int charged = 0;
 		int ending = 0;
 		
-		// Prepare query
-		String sqlQuery = """
-				SELECT 
-				COUNT(unit) AS unit_count,
-				COUNT(IF(current_lease_end < CURRENT_DATE(), 1, NULL)) AS vacant,
-				COUNT(IF(balance > 0, 1, NULL)) AS outstanding,
-				COUNT(IF(current_lease_end >= CURRENT_DATE() AND current_lease_end < DATE_ADD(NOW(), INTERVAL 2 MONTH), 1, NULL)) AS ending
-				
-				FROM (SELECT building, floor, unit, CONCAT(first_name, ' ', last_name) AS name, current_lease_end, rent, ROUND(sum_charges - sum_payments, 2) AS balance 
-				FROM
-				(SELECT `unitid`, MAX(`end`) AS 'current_lease_end', `rent`, `userid` FROM `leases` GROUP BY `unitid`) as l
-									
-				RIGHT JOIN (SELECT id, building, floor, unit FROM units WHERE deleted = 0) as units 
-				ON l.unitid = units.id
-								    
-				LEFT JOIN users 
-				ON l.userid = users.uid
-								    
-				LEFT JOIN (SELECT SUM(`charges`.`amount`) as sum_charges, charges.userid FROM charges WHERE charges.date <= CURRENT_DATE GROUP BY `userid`) as c
-				ON l.userid = c.userid
-								    
-				LEFT JOIN (SELECT SUM(`payments`.`amount`) as sum_payments, payments.userid FROM payments GROUP BY `userid`) as p
-				ON l.userid = p.userid
-				
-				ORDER BY building, floor, unit
-				) AS all_units 
-				""";
-
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 			Statement statement = connect.createStatement();
+			QueryStats.tag(statement, "UnitManagerPage.unitSummary");
 
 			// Query
-			ResultSet result = statement.executeQuery(sqlQuery);
+			ResultSet result = statement.executeQuery(PageQueries.UNIT_SUMMARY);
 			if (result.next()) {
 				total = result.getInt("unit_count");
 				vacant = result.getInt("vacant");
@@ -622,173 +606,99 @@ public class UnitManagerPage extends JPanel implements Page {
 		return panel;
 	}
 	
+	/**
+	 * Creates the Unit table over a model, with its columns, renderers, separators and 
+	 * header sorting but no cell actions (also used by TableBenchmark).
+	 * @param model - Unit rows
+	 * @return the table
+	 */
+	public static ThemedTable createUnitTable(UnitTableModel model) {
+		ThemedTable unitTable = new ThemedTable(model);
+		unitTable.setRowHeight(TABLE_CELL_HEIGHT + 4);
+		
+		// Columns
+		TableCellRenderer residentName = ThemedTable.TextRenderer.dimmed(SwingConstants.LEFT, 
+				row -> model.isLeaseEnded(row));
+		TableCellRenderer vacantFlag = new ThemedTable.FlagRenderer();
+		unitTable.setColumn(UnitTableModel.BUILDING, 0, 
+				new ThemedTable.TextRenderer(SwingConstants.LEFT).withFont(new Font("Arial", Font.BOLD, 14)));
+		unitTable.setColumn(UnitTableModel.FLOOR, 60, null);
+		unitTable.setColumn(UnitTableModel.UNIT, 0, null);
+		unitTable.setColumn(UnitTableModel.RESIDENT, 0, (table, value, isSelected, hasFocus, row, column) -> 
+				((value instanceof ThemedTable.Flag) ? vacantFlag : residentName)
+						.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column));
+		unitTable.setColumn(UnitTableModel.ADD_RESIDENT, 26, 
+				new ThemedTable.ButtonRenderer("+", new Dimension(16,16), 14));
+		unitTable.setColumn(UnitTableModel.LEASE_END, 100, 
+				new ThemedTable.TextRenderer(SwingConstants.LEFT, row -> model.getLeaseEndColor(row)));
+		unitTable.setColumn(UnitTableModel.RENT, 90, 
+				ThemedTable.TextRenderer.dimmed(SwingConstants.LEFT, row -> model.isLeaseEnded(row)));
+		unitTable.setColumn(UnitTableModel.PAYMENT, 90, new ThemedTable.FlagRenderer());
+		unitTable.setColumn(UnitTableModel.DELETE, 60, 
+				new ThemedTable.ButtonRenderer("Delete", new Dimension(40,16)));
+		
+		// Lines between buildings and floors, sorting from the header
+		unitTable.setRowSeparator(row -> model.getSeparator(row));
+		unitTable.setHeaderAction(column -> model.sortBy(column));
+		
+		return unitTable;
+	}
+	
 	/**
 	 * Fills the input panel with a Unit table.
-	 * Creates a scroll table with Unit information
+	 * Creates a scroll table with Unit information. Only the rows on screen are 
+	 * rendered; clicking a header sorts the rows in memory.
 	 * @param panel - Panel to build the Unit table on
 	 */
 	private void buildUnitTable(JPanel panel) {
-		// Container
-		JPanel unitTable = new JPanel();
-	    unitTable.setLayout(new GridBagLayout());
-	    unitTable.setOpaque(true);
-	    unitTable.setBackground(paneColor);
-	    unitTable.setAlignmentX(Component.LEFT_ALIGNMENT);
-	    GridBagConstraints c = new GridBagConstraints();
-	    
-	    // Left space
-	    JPanel leftSpacer = new JPanel();
-	    leftSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0.1;
-		c.weighty = 0.0;
-        c.gridx = 0;
-        c.gridy = 0;
-        unitTable.add(leftSpacer, c);
-        
-        // Right space
-	    JPanel rightSpacer = new JPanel();
-	    rightSpacer.setOpaque(false);
-    	c.fill = GridBagConstraints.BOTH;
-		//c.weightx = 0.1;
-		c.weighty = 0.0;
-        c.gridx = 10;
-        c.gridy = 0;
-        unitTable.add(rightSpacer, c);
-	    
-	    /*
-	     * Table header
-	     */
-	    
-        // Building
-	    JLabel columnHeader0 = new JLabel("Building", SwingConstants.LEFT);
-		columnHeader0.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader0.setForeground(textColor);
-		columnHeader0.setBorder(new EmptyBorder(4, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-        c.gridx = 1;
-        c.gridy = 0;
-        c.weightx = 0.1;
-		c.weighty = 0.0;
-		c.gridwidth = 1;
-		unitTable.add(columnHeader0, c);
-		
-		// Floor
-		JLabel columnHeader1 = new JLabel("Floor", SwingConstants.LEFT);
-		columnHeader1.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader1.setForeground(textColor);
-		columnHeader1.setPreferredSize(new Dimension(45, TABLE_CELL_HEIGHT));
-		columnHeader1.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.1;
-        c.gridx = 2;
-        c.gridy = 0;
-        unitTable.add(columnHeader1, c);
+		unitModel = new UnitTableModel(loadUnits());
+		ThemedTable unitTable = createUnitTable(unitModel);
+		
+		// Actions
+		unitTable.setCellAction(UnitTableModel.ADD_RESIDENT, row -> {
+			if (unitModel.getValueAt(row, UnitTableModel.ADD_RESIDENT) == null) return;
+			Object[] unit = unitModel.getUnit(row);
+			unassignedUserPanel = new PopupWindow(new ActionListener() {
+
+				@Override
+				public void actionPerformed(ActionEvent e) {
+				}
+				
+			}, buildUnassignedUserPanel((int)unit[0]), "cancel");
+		});
+		unitTable.setCellAction(UnitTableModel.DELETE, row -> deleteUnit(unitModel.getUnit(row)));
 		
-        // Unit
-		JLabel columnHeader2 = new JLabel("Unit", SwingConstants.LEFT);
-		columnHeader2.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader2.setForeground(textColor);
-		columnHeader2.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 0.1;
-        c.gridx = 3;
-        c.gridy = 0;
-        unitTable.add(columnHeader2, c);
-        
-        //Resident
-        JLabel columnHeader3 = new JLabel("Resident", SwingConstants.LEFT);
-		columnHeader3.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnHeader3.setForeground(textColor);
-		columnHeader3.setPreferredSize(new Dimension(65, TABLE_CELL_HEIGHT));
-		columnHeader3.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.weightx = 0.1;
-        c.gridx = 4;
-        c.gridy = 0;
-        unitTable.add(columnHeader3, c);
-      
-		// Lease End
-		JLabel columnSize5 = new JLabel("Lease End", SwingConstants.LEFT);
-		columnSize5.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize5.setForeground(textColor);
-		columnSize5.setBorder(new EmptyBorder(0, 4, 0, 4));
-		c.weightx = 0.1;
-        c.gridx = 6;
-        c.gridy = 0;
-        unitTable.add(columnSize5, c);
-        
-        // Rent
-        JLabel columnSize6 = new JLabel("Rent", SwingConstants.LEFT);
-		columnSize6.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize6.setForeground(textColor);
-		columnSize6.setBorder(new EmptyBorder(0, 4, 0, 4));
-        c.gridx = 7;
-        c.gridy = 0;
-        unitTable.add(columnSize6, c);
-        
-        // Payment
-        JLabel columnSize7 = new JLabel("Payment", SwingConstants.LEFT);
-		columnSize7.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize7.setForeground(textColor);
-        c.gridx = 8;
-        c.gridy = 0;
-        unitTable.add(columnSize7, c);
-        
-        // Delete
-        JLabel columnSize8 = new JLabel("Delete", SwingConstants.LEFT);
-		columnSize8.setFont(new Font("Arial", Font.PLAIN, 14));
-		columnSize8.setForeground(textColor);
-		c.weightx = 0.0;
-        c.gridx = 9;
-        c.gridy = 0;
-        
-        // Header underline
-        JPanel headerLine = new JPanel();
-        headerLine.setBackground(textColor);
-        headerLine.setPreferredSize(new Dimension(100, 1));
-        c.fill = GridBagConstraints.HORIZONTAL;
-		c.weightx = 1.0;
-		c.gridwidth = 9;
-        c.gridx = 1;
+		/*
+		 * Make table scroll
+		 */
+		
+		GridBagConstraints c = new GridBagConstraints();
+	    unitScroll = unitTable.buildScrollPane();
+	    unitScroll.getVerticalScrollBar().setUnitIncrement(7);
+        c.fill = GridBagConstraints.BOTH;
+        c.gridx = 0;
         c.gridy = 1;
-        unitTable.add(headerLine, c);
-        
-        /*
-         * Data
-         */
-        
-        ArrayList<Object[]> units = new ArrayList<Object[]>();
-        
-        // Prepare query
-		String sqlQuery = """
-				SELECT list_unitid, building, floor, unit, 
-				IF(last_name IS NULL,first_name,CONCAT(first_name, ' ', last_name)) AS name, 
-				current_lease_end, rent, 
-				IF((sum_charges IS NULL OR sum_payments IS NULL),0,ROUND(sum_charges - sum_payments, 2)) AS balance 
-				FROM
-					(SELECT `unitid`, MAX(`end`) AS 'current_lease_end', `rent`, `userid` FROM `leases` GROUP BY `unitid`) as l
-					
-					RIGHT JOIN (SELECT id AS list_unitid, building, floor, unit FROM units WHERE deleted = 0) as units 
-				    ON l.unitid = units.list_unitid
-				    
-					LEFT JOIN users 
-				    ON l.userid = users.uid
-				    
-					LEFT JOIN (SELECT SUM(`charges`.`amount`) as sum_charges, charges.userid FROM charges WHERE charges.date <= CURRENT_DATE GROUP BY `userid`) as c
-				    ON l.userid = c.userid
-				    
-					LEFT JOIN (SELECT SUM(`payments`.`amount`) as sum_payments, payments.userid FROM payments GROUP BY `userid`) as p
-				    ON l.userid = p.userid
-				    
-				ORDER BY building, floor, unit;
-				""";
+        c.weightx = 1.0;
+		c.weighty = 1.0;
+		c.gridwidth = 1;
+		panel.add(unitScroll, c);
+	}
+	
+	/**
+	 * Loads every unit with its most recent lease, resident and balance, ordered by 
+	 * building, floor and unit.
+	 * @return list of units
+	 */
+	private ArrayList<Object[]> loadUnits() {
+		ArrayList<Object[]> units = new ArrayList<Object[]>();
 		
         // Load Data
-        try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+        try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
         	Statement statement = connect.createStatement();
+        	QueryStats.tag(statement, "UnitManagerPage.unitList");
 
 			// Query
-			ResultSet result = statement.executeQuery(sqlQuery);
+			ResultSet result = statement.executeQuery(PageQueries.UNIT_LIST);
 			units = sqlToArray(result);
 
 			// Close Connection
@@ -797,534 +707,248 @@ public class UnitManagerPage extends JPanel implements Page {
 			err.printStackTrace();
 		}
         
-        /*
-         * Table Rows
-         */
-
-        // Loop
-        int currentRow = 2;
-        Object[] precedingUnit = new Object[7];
-        for (Object[] unit : units) {
-        
-        	/*
-        	 * Lines Between Buildings
-        	 */
-        	
-			// Check if first row of building
-			boolean firstRow = true;
-			// If same as previous units building
-			if (unit[1] == null ||((String)unit[1]).equalsIgnoreCase((String) precedingUnit[1])) {
-				firstRow = false;
-			}
-			
-			if (firstRow && precedingUnit[0] != null) {
-	        	JPanel buildingLine = new JPanel();
-	        	buildingLine.setBackground(textColor);
-	        	buildingLine.setPreferredSize(new Dimension(100, 1));
-	            c.fill = GridBagConstraints.HORIZONTAL;
-	    		c.weightx = 0.0;
-	    		c.gridwidth = 9;
-	            c.gridx = 1;
-	            c.gridy = currentRow;
-	            unitTable.add(buildingLine, c);
-	            currentRow++;
-	            currentRow++;
-			}
-			
-			/*
-    		 * Lines Between Floors
-    		 */
-			
-			// Check if first row of floor
-			boolean firstFloorRow = true;
-			if(precedingUnit[0] != null) {
-				
-				// If same as previous units building
-				if ((int)unit[2] == (int)precedingUnit[2]) {
-					firstFloorRow = false;
-				}
-				
-				if (!firstRow && firstFloorRow) {
-					JPanel floorLine = new JPanel();
-	        		floorLine.setBackground(Theme.textThirdColor);
-	        		floorLine.setPreferredSize(new Dimension(100, 1));
-	                c.fill = GridBagConstraints.HORIZONTAL;
-	        		c.weightx = 0.0;
-	        		c.gridwidth = 9;
-	                c.gridx = 1;
-	                c.gridy = currentRow;
-	                unitTable.add(floorLine, c);
-	                currentRow++;
-	                currentRow++;
-				}
-			}
-
-			precedingUnit = unit;
-		
-			/*
-			 * Building
-			 */
-			
-			String buildingName = firstRow ? ((String)unit[1]) : " ";
-			
-			JLabel tableColumn0 = new JLabel(buildingName, SwingConstants.LEFT);
-	    	tableColumn0.setFont(new Font("Arial", Font.BOLD, 14));
-	    	tableColumn0.setForeground(textColorTitle);
-	    	tableColumn0.setBorder(new EmptyBorder(0, 4, 0, 4));
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn0.setOpaque(true);
-	    		tableColumn0.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 1;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			unitTable.add(tableColumn0, c);
-        			
-			/*
-			 * Floor
-			 */
-			
-			String floorName = firstFloorRow ? Integer.toString((int)unit[2]) : " ";
- 
-        			JLabel tableColumn1 = new JLabel(floorName, SwingConstants.LEFT);
-        	    	tableColumn1.setFont(new Font("Arial", Font.PLAIN, 14));
-	    	tableColumn1.setForeground(textColorTitle);
-	    	tableColumn1.setBorder(new EmptyBorder(0, 4, 0, 4));
-	    	tableColumn1.setPreferredSize(new Dimension(1, TABLE_CELL_HEIGHT)); // Sets row height
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn1.setOpaque(true);
-	    		tableColumn1.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 2;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			unitTable.add(tableColumn1, c);
+        return units;
+	}
 	
-			/*
-			 * Unit
-			 */
-			
-			JLabel tableColumn2 = new JLabel(((String)unit[3]), SwingConstants.LEFT);
-	    	tableColumn2.setFont(new Font("Arial", Font.PLAIN, 14));
-	    	tableColumn2.setForeground(textColorTitle);
-	    	tableColumn2.setBorder(new EmptyBorder(0, 4, 0, 4));
-	    	if (currentRow % 2 == 1) {
-	    		tableColumn2.setOpaque(true);
-	    		tableColumn2.setBackground(paneLightColor);
-	    	}
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 3;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			unitTable.add(tableColumn2, c);
-			
-			/*
-			 * Resident
-			 */
-
-			JLabel tableColumn3 = new JLabel();
-	    	
-	    	// Pull resident object
-			String tableResident = (String)unit[4];
+	/**
+	 * Asks for confirmation, then deletes a unit.
+	 * @param unit - Unit row
+	 */
+	private void deleteUnit(Object[] unit) {
+		new PopupWindow(new ActionListener() {
 			
-			// If resident in unit
-			if (tableResident != null) {
-				// Set cell to name
-				tableColumn3.setText(tableResident);
-				tableColumn3.setFont(new Font("Arial", Font.PLAIN, 14));
-				tableColumn3.setForeground(textColorTitle);
-				tableColumn3.setOpaque(false);
-				if (currentRow % 2 == 1) {
-    	    		tableColumn3.setOpaque(true);
-    	    		tableColumn3.setBackground(paneLightColor);
-    	    	}
-				
-				tableColumn3.setBorder(new EmptyBorder(0, 4, 0, 4));
-				tableColumn3.setPreferredSize(null);
-				c.fill = GridBagConstraints.BOTH;
-    	        c.gridx = 4;
-    	        c.gridy = currentRow;
-    	        c.weightx = 0.0;
-    			c.weighty = 0.0;
-    			c.gridwidth = 1;
-				unitTable.add(tableColumn3, c);
-			}
-	
-			// If vacant set cell to VACANT flag
-			else {
-				// Container
-    			JPanel tableColumn3Vacant = new JPanel();
-    			tableColumn3Vacant.setLayout(new GridBagLayout());
-    			tableColumn3Vacant.setOpaque(false);
-    			if (currentRow % 2 == 1) {
-    	    		tableColumn3Vacant.setOpaque(true);
-    	    		tableColumn3Vacant.setBackground(paneLightColor);
-    	    	}
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				// If user answers yes
+				if (e.getActionCommand().equals("Yes")) {
 
-    			// Add label to container
-				tableColumn3.setText("VACANT");
-    	    	tableColumn3.setFont(new Font("Arial", Font.BOLD, 11));
-    	    	tableColumn3.setForeground(Theme.flagText);
-    	    	tableColumn3.setBorder(new EmptyBorder(0, 4, 0, 4));
-    	    	tableColumn3.setBackground(redColor);
-    	    	tableColumn3.setOpaque(true);
-    			c.fill = GridBagConstraints.NONE;
-    	        c.gridx = 0;
-    	        c.gridy = 0;
-    	        c.weightx = 0.1;
-    			c.weighty = 0.0;
-    			c.gridwidth = 1;
-    			tableColumn3Vacant.add(tableColumn3, c);
-				
-    			// Add container to cell
-				c.fill = GridBagConstraints.BOTH;
-    	        c.gridx = 4;
-    	        c.gridy = currentRow;
-    	        c.weightx = 0.0;
-    			c.weighty = 0.0;
-    			c.gridwidth = 1;
-				unitTable.add(tableColumn3Vacant, c);
+					// Prepare query
+					String sqlQuery = "UPDATE units SET deleted = 1 WHERE id =" + unit[0];
+					
+					// Connect to database
+					try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+						Statement statement = connect.createStatement();
+						
+						// Query
+						statement.executeUpdate(sqlQuery);
+						BuildingMonthKpis.refreshBuilding(connect, (String) unit[1], LocalDate.now(), LocalDate.now());
+						DashboardCache.invalidate((String) unit[1]);
+						
+						// Close connection
+						connect.close();
+					} catch (SQLException err) {
+						err.printStackTrace();
+					}
+					
+					refreshAll();
+				}
 			}
 			
-			/*
-			 * Add or remove resident buttons
-			 */
-			
-			// Button Container
-			JPanel tableColumn4 = new JPanel();
-			tableColumn4.setLayout(new GridBagLayout());
-			tableColumn4.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn4.setOpaque(true);
-	    		tableColumn4.setBackground(paneLightColor);
-	    	}
-			tableColumn4.setBorder(new EmptyBorder(0, 4, 0, 4));
-			
-			// TODO Button if unit is occupied (Show remove button) (Older version)
-			if (unit[5] != null && !((Date)unit[5]).toLocalDate().isBefore(LocalDate.now())) {
-				// Remove button
-//				CustomButton residentAction = new CustomButton("-", 
-//						Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-//    			residentAction.setFont(new Font("Arial", Font.BOLD, 14));
-//    			residentAction.setBorderPainted(false);
-//    			residentAction.setForeground(textColorTitle);
-//    			residentAction.setFocusPainted(false);
-//    			residentAction.setBorder(new EmptyBorder(0, 2, 0, 3));
-//    			residentAction.setPreferredSize(new Dimension(16,16));
-//    	        residentAction.addActionListener(new ActionListener() {
-//    	        	
-//    				@Override
-//    				public void actionPerformed(ActionEvent e) {
-//    						// Bring up pop up
-//    						new PopupWindow(new ActionListener() {
-//
-//    							@Override
-//    							public void actionPerformed(ActionEvent e) {
-//    								// If user answers yes
-//    								if (e.getActionCommand().equals("Yes")) {
-//    									unit.getResident().removeUnit();
-//    									unit.removeResident();
-//    									refreshAll();
-//    								}
-//    								// If user answers no
-//    								if (e.getActionCommand().equals("No")) {}
-//    							}
-//    							
-//    						}, "Are you sure you want to remove this resident?", "yesno");
-//    				}
-//    	        
-//    	        });
-//    			tableColumn4.add(residentAction);
+		}, "Are you sure you want to remove this unit?", "yesno");
+	}
+	
+	/**
+	 * Table model over the unit rows. Rows are sorted by reordering an index array, 
+	 * so sorting never goes back to the database. Sorted by building, the building 
+	 * and floor are only shown on the first row of each group.
+	 */
+	public static class UnitTableModel extends AbstractTableModel {
+		private static final int BUILDING = 0;
+		private static final int FLOOR = 1;
+		private static final int UNIT = 2;
+		private static final int RESIDENT = 3;
+		private static final int ADD_RESIDENT = 4;
+		private static final int LEASE_END = 5;
+		private static final int RENT = 6;
+		private static final int PAYMENT = 7;
+		private static final int DELETE = 8;
+		private final String[] columnNames = {"Building", "Floor", "Unit", "Resident", "", "Lease End", "Rent", "Payment", "Delete"};
+		private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+		private final LocalDate today = LocalDate.now();
+		
+		// Same order as the query (empty buildings and floors first)
+		private final Comparator<Object[]> locationOrder = Comparator
+				.comparing((Object[] unit) -> (String) unit[1], Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+				.thenComparing(unit -> (Integer) unit[2], Comparator.nullsFirst(Comparator.naturalOrder()))
+				.thenComparing(unit -> (String) unit[3], String.CASE_INSENSITIVE_ORDER);
+		
+		// Rows
+		private ArrayList<Object[]> units;
+		private int[] order;
+		
+		// Sort
+		private int sortColumn = BUILDING;
+		private boolean ascending = true;
+		
+		/**
+		 * @param units - Rows of PageQueries.UNIT_LIST
+		 */
+		public UnitTableModel(ArrayList<Object[]> units) {
+			setUnits(units);
+		}
+		
+		/**
+		 * Replaces the rows, keeping the current sort.
+		 * @param units - Units returned by loadUnits
+		 */
+		private void setUnits(ArrayList<Object[]> units) {
+			this.units = units;
+			sort();
+		}
+		
+		/**
+		 * Sorts by a column, or flips the direction if it is already sorted by it. 
+		 * Columns without a sort key are ignored.
+		 * @param column - Model column
+		 */
+		private void sortBy(int column) {
+			if (column != BUILDING && column != FLOOR && column != UNIT && column != LEASE_END && column != PAYMENT) return;
+			ascending = (column == sortColumn) ? !ascending : true;
+			sortColumn = column;
+			sort();
+		}
+		
+		private void sort() {
+			Integer[] sorted = new Integer[units.size()];
+			for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+			Arrays.sort(sorted, (a, b) -> compare(units.get(a), units.get(b)));
+			order = new int[sorted.length];
+			for (int i = 0; i < sorted.length; i++) order[i] = sorted[i];
+			fireTableDataChanged();
+		}
+		
+		/*
+		 * Compares two units by the sort column (empty values last in both directions), 
+		 * then by building, floor and unit.
+		 */
+		private int compare(Object[] a, Object[] b) {
+			Comparable<?> keyA = getSortKey(a);
+			Comparable<?> keyB = getSortKey(b);
+			if (keyA != null || keyB != null) {
+				if (keyA == null) return 1;
+				if (keyB == null) return -1;
+				@SuppressWarnings("unchecked")
+				int result = ((Comparable<Object>) keyA).compareTo(keyB);
+				if (result != 0) return ascending ? result : -result;
 			}
-			
-			// If unit is empty (Show add button)
-			else {
-				// Add button
-				CustomButton residentAction = new CustomButton("+", 
-						Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-    			residentAction.setFont(new Font("Arial", Font.BOLD, 14));
-    			residentAction.setBorderPainted(false);
-    			residentAction.setForeground(textColorTitle);
-    			residentAction.setFocusPainted(false);
-    			residentAction.setBorder(new EmptyBorder(0, 4, 0, 4));
-    			residentAction.setPreferredSize(new Dimension(16,16));
-    			residentAction.addActionListener(new ActionListener() {
-    				
-    				@Override
-    				public void actionPerformed(ActionEvent e) {
-    					unassignedUserPanel = new PopupWindow(new ActionListener() {
-
-    							@Override
-    							public void actionPerformed(ActionEvent e) {
-    							}
-    							
-    						}, buildUnassignedUserPanel((int)unit[0]), "cancel");
-    				}
-    				
-    	        });
-    			tableColumn4.add(residentAction);
+			int result = locationOrder.compare(a, b);
+			return (sortColumn == BUILDING && !ascending) ? -result : result;
+		}
+		
+		private Comparable<?> getSortKey(Object[] unit) {
+			switch (sortColumn) {
+			case FLOOR:
+				return (Integer) unit[2];
+			case UNIT:
+				return ((String) unit[3]).toLowerCase();
+			case LEASE_END:
+				return (unit[5] == null) ? null : ((Date) unit[5]).toLocalDate();
+			case PAYMENT:
+				return (unit[4] == null) ? null : (double) unit[7];
+			default:
+				return null;
 			}
+		}
+		
+		private Object[] getUnit(int row) {
+			return units.get(order[row]);
+		}
+		
+		/**
+		 * @param row - Table row
+		 * @return true if the unit's most recent lease has ended
+		 */
+		private boolean isLeaseEnded(int row) {
+			Object[] unit = getUnit(row);
+			return unit[5] != null && ((Date) unit[5]).toLocalDate().isBefore(today);
+		}
+		
+		/**
+		 * @param row - Table row
+		 * @return red if the lease has ended, yellow if it ends in the next two months
+		 */
+		private Color getLeaseEndColor(int row) {
+			Object[] unit = getUnit(row);
+			if (unit[5] == null) return null;
+			LocalDate currentLeaseEnd = ((Date) unit[5]).toLocalDate();
+			if (currentLeaseEnd.isBefore(today)) return Theme.redColor;
+			if (currentLeaseEnd.isBefore(today.plus(2, ChronoUnit.MONTHS))) return Theme.yellowColor;
+			return null;
+		}
+		
+		/**
+		 * @param row - Table row
+		 * @return the line color above a row starting a building or floor, null if none
+		 */
+		private Color getSeparator(int row) {
+			if (sortColumn != BUILDING || row == 0) return null;
+			if (isFirstOfBuilding(row)) return Theme.textSecondaryColor;
+			if (isFirstOfFloor(row)) return Theme.textThirdColor;
+			return null;
+		}
+		
+		private boolean isFirstOfBuilding(int row) {
+			if (row == 0) return true;
+			String building = (String) getUnit(row)[1];
+			String previous = (String) getUnit(row - 1)[1];
+			return (building == null) ? previous != null : !building.equalsIgnoreCase(previous);
+		}
+		
+		private boolean isFirstOfFloor(int row) {
+			return isFirstOfBuilding(row) || !Objects.equals(getUnit(row)[2], getUnit(row - 1)[2]);
+		}
+		
+		@Override
+		public int getRowCount() {
+			return order.length;
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return columnNames.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			if (column != sortColumn) return columnNames[column];
+			return columnNames[column] + (ascending ? " \u25B2" : " \u25BC");
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			Object[] unit = getUnit(row);
+			boolean grouped = (sortColumn == BUILDING);
 			
-			// Add container to cell
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 5;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			unitTable.add(tableColumn4, c);
-    			
-			/*
-			 * If unit is null (Rest of cells will be blank if the unit is empty))
-			 */
-			
-			if (unit[4] != null) {
-				
-				/*
-				 * Lease end 
-				 */
-				
-				LocalDate currentLeaseEnd = ((Date) unit[5]).toLocalDate();
-				
-				JLabel tableColumn5 = 
-						new JLabel(currentLeaseEnd.format(
-								DateTimeFormatter.ofPattern("MM/dd/yyyy")), SwingConstants.LEFT);
-		    	tableColumn5.setFont(new Font("Arial", Font.PLAIN, 14));
-		    	tableColumn5.setForeground(textColorTitle);
-		    	tableColumn5.setBorder(new EmptyBorder(0, 4, 0, 4));
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn5.setOpaque(true);
-		    		tableColumn5.setBackground(paneLightColor);
-		    	}
-		    	
-		    	// If the lease is done, red
-		    	if(currentLeaseEnd.isBefore(LocalDate.now())) {
-		    		tableColumn5.setForeground(redColor);
-		    		tableColumn3.setForeground(Theme.textSecondaryColor); //Resident
-				}
-		    	
-		    	else { 
-		    		// If the lease is ending in he next two months, yellow
-		    		if (currentLeaseEnd.isBefore(LocalDate.now().plus(2, ChronoUnit.MONTHS))) {
-		    			tableColumn5.setForeground(Theme.yellowColor);
-		    		}
-		    	}
-	
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 6;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				unitTable.add(tableColumn5, c);
-				
-				//TODO Add Lease Renew button
-				
-				/*
-				 * Rent amount
-				 */
-				
-				int rentAmount = (int)unit[6];
-				String rentAmountString = String.format("%,d", rentAmount);
-				
-				JLabel tableColumn6 = new JLabel(("$ " + rentAmountString), SwingConstants.LEFT);
-		    	tableColumn6.setFont(new Font("Arial", Font.PLAIN, 14));
-		    	tableColumn6.setForeground(textColorTitle);
-		    	tableColumn6.setBorder(new EmptyBorder(0, 4, 0, 4));
-		    	if (currentRow % 2 == 1) {
-		    		tableColumn6.setOpaque(true);
-		    		tableColumn6.setBackground(paneLightColor);
-		    	}
-		    	if(currentLeaseEnd.isBefore(LocalDate.now())) {
-		    		tableColumn6.setForeground(Theme.textSecondaryColor);
-				}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 7;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				unitTable.add(tableColumn6, c);
-				
-				/*
-				 * Payment status
-				 */
-				
-				// Container
-				JPanel tableColumn7 = new JPanel();
-				tableColumn7.setLayout(new GridBagLayout());
-				tableColumn7.setOpaque(false);
-				if (currentRow % 2 == 1) {
-		    		tableColumn7.setOpaque(true);
-		    		tableColumn7.setBackground(paneLightColor);
-		    	}
-				
-				// Flag
-				JLabel tableColumn7Flag = new JLabel("CHARGED", SwingConstants.LEFT);
-		    	tableColumn7Flag.setFont(new Font("Arial", Font.BOLD, 11));
-		    	tableColumn7Flag.setForeground(Theme.flagText);
-		    	tableColumn7Flag.setBorder(new EmptyBorder(0, 4, 0, 4));
-		    	tableColumn7Flag.setBackground(textColor);
-		    	tableColumn7Flag.setOpaque(true);
-				if ((double)unit[7] <= 0.01) {
-					tableColumn7Flag.setText("PAID");
-					tableColumn7Flag.setBackground(greenColor);
-				}
-				
-		    	c.fill = GridBagConstraints.NONE;
-		        c.gridx = 0;
-		        c.gridy = 0;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				tableColumn7.add(tableColumn7Flag);
-				
-				// Container
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 8;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 1;
-				unitTable.add(tableColumn7, c);    			
+			switch (column) {
+			case BUILDING:
+				return (!grouped || isFirstOfBuilding(row)) ? unit[1] : null;
+			case FLOOR:
+				return (!grouped || isFirstOfFloor(row)) ? unit[2] : null;
+			case UNIT:
+				return unit[3];
+			case RESIDENT:
+				return (unit[4] != null) ? unit[4] : new ThemedTable.Flag("VACANT", Theme.redColor);
+			case ADD_RESIDENT:
+				// Units without a current lease can get a new resident
+				return (unit[5] == null || ((Date) unit[5]).toLocalDate().isBefore(today)) ? "+" : null;
+			case DELETE:
+				return "Delete";
 			}
 			
-			/*
-			 * If unit is empty (Fill empty space with the right color)
-			 */
-			
-			else {
-				JPanel tableColumn5 = new JPanel();
-				tableColumn5.setOpaque(false);
-				if (currentRow % 2 == 1) {
-		    		tableColumn5.setOpaque(true);
-		    		tableColumn5.setBackground(paneLightColor);
-		    	}
-				c.fill = GridBagConstraints.BOTH;
-		        c.gridx = 6;
-		        c.gridy = currentRow;
-		        c.weightx = 0.0;
-				c.weighty = 0.0;
-				c.gridwidth = 3;
-				unitTable.add(tableColumn5, c);
+			// Lease columns (empty for vacant units)
+			if (unit[4] == null) return null;
+			switch (column) {
+			case LEASE_END:
+				return ((Date) unit[5]).toLocalDate().format(dateFormat);
+			case RENT:
+				return "$ " + String.format("%,d", (int) unit[6]);
+			case PAYMENT:
+				if ((double) unit[7] <= 0.01) return new ThemedTable.Flag("PAID", Theme.greenColor);
+				return new ThemedTable.Flag("CHARGED", Theme.textSecondaryColor);
+			default:
+				return null;
 			}
-				
-			/*
-			 * Delete Unit Button
-			 */
-			
-			// Container
-			JPanel tableColumn8 = new JPanel();
-			tableColumn8.setLayout(new GridBagLayout());
-			tableColumn8.setOpaque(false);
-			if (currentRow % 2 == 1) {
-	    		tableColumn8.setOpaque(true);
-	    		tableColumn8.setBackground(paneLightColor);
-	    	}
-			tableColumn8.setBorder(new EmptyBorder(0, 4, 0, 4));
-			
-			//Button
-			CustomButton deleteAction = new CustomButton("Delete", 
-					Theme.buttonColor, Theme.hoverColor, Theme.pressedColor);
-			deleteAction.setFont(new Font("Arial", Font.BOLD, 10));
-			deleteAction.setForeground(textColorTitle);
-			deleteAction.setFocusPainted(false);
-			deleteAction.setBorder(new EmptyBorder(0, 0, 0, 0));
-			deleteAction.setPreferredSize(new Dimension(40,16));
-			deleteAction.addActionListener(new ActionListener() {
-				
-				@Override
-				public void actionPerformed(ActionEvent e) {
-						// Bring up pop up
-						new PopupWindow(new ActionListener() {
-	
-							@Override
-							public void actionPerformed(ActionEvent e) {
-								// If user answers yes
-								if (e.getActionCommand().equals("Yes")) {
-	
-									// Prepare query
-									String sqlQuery = "UPDATE units SET deleted = 1 WHERE id =" + unit[0];
-									
-									// Connect to database
-									try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
-										Statement statement = connect.createStatement();
-										
-										// Query
-										statement.executeUpdate(sqlQuery);
-										
-										// Close connection
-										connect.close();
-									} catch (SQLException err) {
-										err.printStackTrace();
-									}
-									
-									refreshAll();
-								}
-							}
-							
-						}, "Are you sure you want to remove this unit?", "yesno");
-				}
-				
-	        });
-			tableColumn8.add(deleteAction);
-			
-			// Add container
-			c.fill = GridBagConstraints.BOTH;
-	        c.gridx = 9;
-	        c.gridy = currentRow;
-	        c.weightx = 0.0;
-			c.weighty = 0.0;
-			c.gridwidth = 1;
-			unitTable.add(tableColumn8, c);
-	
-			/*
-			 * Increase row
-			 */
-		   	
-	        currentRow++;
-        }
-    	
-    	/*
-    	 * Push table to top
-    	 */
-    	
-    	JPanel tableBottomSpacer = new JPanel();
-    	tableBottomSpacer.setOpaque(false);
-        c.fill = GridBagConstraints.BOTH;
-		c.weightx = 0;
-		c.weighty = 1;
-		c.gridwidth = 1;
-        c.gridx = 0;
-        c.gridy = currentRow;
-        unitTable.add(tableBottomSpacer, c);
-        	
-        /*
-         * Make table scroll
-         */
-        
-	    unitScroll = new JScrollPane(unitTable);
-	    unitScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-	    unitScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-	    unitScroll.setBorder(new EmptyBorder(0,0,0,0));    
-	    unitScroll.getVerticalScrollBar().setUnitIncrement(7);
-	    unitScroll.getVerticalScrollBar().setUI(new CustomScrollBarUI(fieldColor));
-	    unitScroll.getVerticalScrollBar().setPreferredSize(new Dimension(5, 0));
-        c.fill = GridBagConstraints.BOTH;
-        c.gridx = 0;
-        c.gridy = 1;
-        c.weightx = 1.0;
-		c.weighty = 1.0;
-		c.gridwidth = 1;
-		panel.add(unitScroll, c);
+		}
 	}
 	
 	/**
@@ -1413,19 +1037,14 @@ public class UnitManagerPage extends JPanel implements Page {
         
         ArrayList<Object[]> unassignedUsers = new ArrayList<Object[]>();
         
-        // Prepare query
-        String sqlQuery = "SELECT uid, user, IF(users.last_name IS NULL, users.first_name, CONCAT(users.first_name, ' ',users.last_name)) AS name, unitid "
-        		+ "FROM users "
-        		+ "LEFT JOIN (SELECT MAX(`end`) AS 'recent_lease_end', `unitid`, `userid` FROM `leases` GROUP BY `userid`) AS l "
-        		+ "ON users.uid = l.userid "
-        		+ " WHERE (unitid = " + unitid + " OR unitid IS NULL) AND users.type = 'general' ORDER BY user";
-
         // Connect to database
-        try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
-        	Statement statement = connect.createStatement();
+        try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+        	PreparedStatement statement = connect.prepareStatement(PageQueries.UNASSIGNED_RESIDENTS);
+        	QueryStats.tag(statement, "UnitManagerPage.unassignedResidents");
+        	statement.setInt(1, unitid);
 
         	// Query
-        	ResultSet result = statement.executeQuery(sqlQuery);
+        	ResultSet result = statement.executeQuery();
         	unassignedUsers = sqlToArray(result);
 
         	// Close connection
@@ -1484,33 +1103,22 @@ public class UnitManagerPage extends JPanel implements Page {
 										int validRentAmountEntry = Integer.valueOf(rentAmountEntry.getText());
 										
 										// Create the new lease
-										String sqlQuery = "INSERT INTO leases(start, end, rent, unitid, userid) "
-												+ "VALUES ('" 
-												+ validStartDateEntry 
-												+ "', '" + validEndDateEntry
-												+ "', " + validRentAmountEntry
-												+ ", " + unitid
-												+ ", " + (int)user[0]
-												+ ")";
-
-										// Create the rent charges
-										StringBuilder sqlInsertMonthlyCharges = new StringBuilder(
-												"INSERT INTO charges(`name`,`date`,`amount`,`userid`) VALUES ");
-										
-										sqlInsertMonthlyCharges.append(sqlInsertRentCharges(validStartDateEntry, validEndDateEntry, 
-												validRentAmountEntry, (int)user[0]));
-												
-										sqlInsertMonthlyCharges.deleteCharAt(sqlInsertMonthlyCharges.length() - 1);
+										LeaseService.LeaseRequest lease = new LeaseService.LeaseRequest(validStartDateEntry,
+												validEndDateEntry, validRentAmountEntry, unitid, (int)user[0]);
 
 										// Connect to database
-										try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+										try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 											Statement statement = connect.createStatement();
 
-											// Query
-											statement.executeUpdate(sqlQuery);
+											// Query (lease, rent charges and balance together)
+											LeaseService.createLease(connect, lease);
 											
-											// Insert rent charges
-											statement.executeUpdate(sqlInsertMonthlyCharges.toString());
+											// Dashboard data of the unit's building is out of date
+											String leaseBuilding = null;
+											ResultSet result = statement.executeQuery("SELECT building FROM units WHERE id = " + unitid);
+											while (result.next()) leaseBuilding = result.getString("building");
+											BuildingMonthKpis.refreshBuilding(connect, leaseBuilding, validStartDateEntry, validEndDateEntry);
+											DashboardCache.invalidate(leaseBuilding);
 
 											// Close connection
 											connect.close();
@@ -1614,83 +1222,6 @@ public class UnitManagerPage extends JPanel implements Page {
 		return popupPanel;
 	}
 	
-	/**
-	 * Helper method used by to create rent charges.
-	 * Creates monthly charges for the input lease terms.
-	 * @param leaseStart
-	 * @param leaseEnd
-	 * @param monthlyRent
-	 * @param uid
-	 * @return sql query insert value details in the format "(...),..."
-	 */
-	private String sqlInsertRentCharges(LocalDate leaseStart, LocalDate leaseEnd, int monthlyRent, int uid) { //TODO
-		StringBuilder insertQuery = new StringBuilder();
-
-		// Loop while the term end count is ahead of the lease start
-		LocalDate termEndCount = leaseEnd;
-		while ((termEndCount.isEqual(leaseStart)) || (termEndCount.isAfter(leaseStart))) {
-			
-			// Sets start of term to first of the month (based on term end)
-			LocalDate termStartCount = 
-					LocalDate.of(termEndCount.getYear(), termEndCount.getMonthValue() , 1);
-			
-			// If the lease starts after the count
-			if (termStartCount.isBefore(leaseStart)) {
-				termStartCount = leaseStart;
-			}
-			
-			/**
-			 * Rent Charges
-			 */
-			
-			// Calculate rent amounts and periods
-			int termLengthDays = termEndCount.getDayOfMonth() - (termStartCount.getDayOfMonth() - 1);
-			int rentAmount = (int)(((double)termLengthDays 
-					/ (double)termEndCount.lengthOfMonth()) 
-					* (double)monthlyRent);
-			
-			// Charge Name
-			String chargeName = "Rent (" 
-					+ termStartCount.format(DateTimeFormatter.ofPattern("MM/yyyy")) + ")";
-			if (termLengthDays != termEndCount.lengthOfMonth()) {
-				chargeName += " - (" + termLengthDays + "/" + termEndCount.lengthOfMonth() + " days)";
-			}
-			
-			// Dates
-			LocalDate postingDate = termStartCount;
-
-			// Insert into charges query
-			insertQuery.append("(");
-			insertQuery.append("'" + chargeName + "',");
-			insertQuery.append("'" + postingDate + "',");
-			insertQuery.append("" + rentAmount + ",");
-			insertQuery.append("" + uid + "");
-			insertQuery.append("),");
-			
-			/*
-			 * Service Fee
-			 */
-			
-			String serviceFeeName = "Service Fee (" 
-					+ termStartCount.format(DateTimeFormatter.ofPattern("MM/yyyy")) + ")";
-			double serviceFee = 3.99;
-			
-			// Insert into charges query
-			insertQuery.append("(");
-			insertQuery.append("'" + serviceFeeName + "',");
-			insertQuery.append("'" + postingDate + "',");
-			insertQuery.append("" + serviceFee + ",");
-			insertQuery.append("" + uid + "");
-			insertQuery.append("),");
-			
-			// Move counters
-			termEndCount = termEndCount.minus(1, ChronoUnit.MONTHS);
-			termEndCount = LocalDate.of(termEndCount.getYear(), termEndCount.getMonthValue(), 
-					termEndCount.lengthOfMonth());
-		}
-		return insertQuery.toString();
-	}
-	
 	/**
 	 * Builds and returns a panel with lease creation fields.
 	 * Used to add a resident to an empty unit.
@@ -1791,7 +1322,7 @@ public class UnitManagerPage extends JPanel implements Page {
 		String sqlQuery = "SELECT unit,building FROM units WHERE id = " + unitid;
 
 		// Connect to database
-		try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+		try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 			Statement statement = connect.createStatement();
 
 			// Query
@@ -2155,11 +1686,13 @@ public class UnitManagerPage extends JPanel implements Page {
 										+ ")";
 
 								// Connect to database
-								try (Connection connect = DriverManager.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
+								try (Connection connect = ConnectionPool.getConnection(dbUrl, currentSession.getUser(), currentSession.getAdminPass())) {
 									Statement statement = connect.createStatement();
 
 									// Query
 									statement.executeUpdate(sqlQuery);
+									BuildingMonthKpis.recordNewUnit(connect, building.getText());
+									DashboardCache.invalidate(building.getText());
 
 									// Close connection
 									connect.close();
@@ -2243,7 +1776,7 @@ public class UnitManagerPage extends JPanel implements Page {
 	@Override
 	public void refreshAll() {
 		refreshSummary(summaryPanel, summaryPanelContent);
-		refreshTable(allUnitsPanelContent, unitScroll);
+		unitModel.setUnits(loadUnits());
 	}
 	
 	/**
@@ -2256,16 +1789,5 @@ public class UnitManagerPage extends JPanel implements Page {
 		buildSummaryPanel(panel);
 		panel.revalidate();
 	}
-	
-	/**
-	 * Removes the Unit table panel content from its container and rebuilds it.
-	 * @param panel - Container
-	 * @param table - Content
-	 */
-	private void refreshTable(JPanel panel, Component table) {
-		panel.remove(table);
-		buildUnitTable(panel);
-		panel.validate();
-	}
 }
 